@@ -0,0 +1,90 @@
+package knoteditor.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import knoteditor.BezierCurve;
+import knoteditor.ChainKernel;
+import knoteditor.IntersectionSolver;
+import knoteditor.PairList;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Random candidate pairs solved one at a time against the batch entry point,
+ * which bisects a block of pairs together through the chain kernel
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class BatchSolveBenchmark {
+
+	private static final int PAIRS = 4096;
+
+	@Param({ "SCALAR", "VECTOR" })
+	public String kernel;
+
+	private List<BezierCurve> curves;
+	private PairList pairs;
+	private double[] roots;
+	private int[] counts;
+
+	@Setup
+	public void setup() {
+		ChainKernel chainKernel = "VECTOR".equals(kernel) ? ChainKernel.VECTOR : ChainKernel.SCALAR;
+		if (chainKernel == null) {
+			throw new IllegalStateException("the Vector API kernel is not available in this JVM");
+		}
+		IntersectionSolver.get().setChainKernel(chainKernel);
+
+		Random random = new Random(1);
+		curves = new ArrayList<BezierCurve>(2 * PAIRS);
+		pairs = new PairList(PAIRS);
+		for (int k = 0; k < PAIRS; k++) {
+			curves.add(randomCurve(random));
+			curves.add(randomCurve(random));
+			pairs.add(2 * k, 2 * k + 1);
+		}
+		roots = new double[PAIRS * IntersectionSolver.MAX_ROOTS];
+		counts = new int[PAIRS];
+	}
+
+	private static BezierCurve randomCurve(Random random) {
+		return new BezierCurve(1000 * random.nextDouble(), 1000 * random.nextDouble(), 1000 * random.nextDouble(), 1000 * random.nextDouble(),
+				1000 * random.nextDouble(), 1000 * random.nextDouble(), 1000 * random.nextDouble(), 1000 * random.nextDouble());
+	}
+
+	@Benchmark
+	public int[] batch() {
+		IntersectionSolver.get().intersections(curves, pairs, 0, PAIRS, roots, counts);
+		return counts;
+	}
+
+	//The single pair path does not use the kernel, so this is the baseline
+	@Benchmark
+	public int single() {
+		IntersectionSolver solver = IntersectionSolver.get();
+		int total = 0;
+		for (int k = 0; k < PAIRS; k++) {
+			total += solver.intersections(curves.get(pairs.p(k)), curves.get(pairs.q(k)), roots);
+		}
+		return total;
+	}
+
+}
@@ -0,0 +1,93 @@
+package knoteditor.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import knoteditor.ChainKernel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * The scalar and Vector API chain kernels side by side on raw chains. The
+ * fork adds the incubator module, without which the VECTOR runs fail in
+ * setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ChainKernelBenchmark {
+
+	private static final int CHAINS = 64;
+
+	@Param({ "SCALAR", "VECTOR" })
+	public String kernel;
+
+	//Points per kernel call
+	@Param({ "64", "1024" })
+	public int points;
+
+	//Whether all points of a call evaluate the same chain
+	@Param({ "false", "true" })
+	public boolean uniform;
+
+	private ChainKernel chainKernel;
+
+	private double[] chains;
+	private int[] degrees;
+	private int[] chainSizes;
+	private double[] ts;
+	private int[] pointChains;
+	private int[] agreements;
+
+	@Setup
+	public void setup() {
+		chainKernel = "VECTOR".equals(kernel) ? ChainKernel.VECTOR : ChainKernel.SCALAR;
+		if (chainKernel == null) {
+			throw new IllegalStateException("the Vector API kernel is not available in this JVM");
+		}
+
+		//Full-length chains with one degree less per row, like a real
+		//Sturm chain of a degree 9 polynomial
+		Random random = new Random(1);
+		chains = new double[CHAINS * ChainKernel.CHAIN];
+		degrees = new int[CHAINS * ChainKernel.ROW];
+		chainSizes = new int[CHAINS];
+		for (int c = 0; c < CHAINS; c++) {
+			chainSizes[c] = ChainKernel.ROW - 1;
+			for (int i = 0; i < ChainKernel.ROW; i++) {
+				degrees[c * ChainKernel.ROW + i] = ChainKernel.ROW - 1 - i;
+				for (int d = 0; d < ChainKernel.ROW - i; d++) {
+					chains[c * ChainKernel.CHAIN + i * ChainKernel.ROW + d] = random.nextGaussian();
+				}
+			}
+		}
+		ts = new double[points];
+		pointChains = new int[points];
+		agreements = new int[points];
+		for (int k = 0; k < points; k++) {
+			ts[k] = random.nextDouble();
+			pointChains[k] = uniform ? 0 : random.nextInt(CHAINS);
+		}
+	}
+
+	@Benchmark
+	public int[] signAgreements() {
+		chainKernel.signAgreements(chains, degrees, chainSizes, ts, pointChains, points, agreements);
+		return agreements;
+	}
+
+}
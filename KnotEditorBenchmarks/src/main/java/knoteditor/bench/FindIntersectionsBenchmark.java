@@ -0,0 +1,93 @@
+package knoteditor.bench;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import knoteditor.BezierCurve;
+import knoteditor.BezierIntersection;
+import knoteditor.BroadPhase;
+import knoteditor.PairCache;
+import knoteditor.PairSolve;
+import knoteditor.SVGKnotEditor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Whole-document intersection on a synthetic knot field. BRUTE_FORCE is
+ * quadratic, so only pass -p broadPhase=BRUTE_FORCE together with a small
+ * curve count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindIntersectionsBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int curves;
+
+	@Param({ "SWEEP_AND_PRUNE" })
+	public String broadPhase;
+
+	//One thread runs the sequential code path
+	@Param({ "1" })
+	public int threads;
+
+	@Param({ "1" })
+	public long seed;
+
+	@Param({ "DOUBLE_SOLVE" })
+	public String pairSolve;
+
+	//With the cache on, every call after the first only measures cache hits
+	@Param({ "false" })
+	public boolean pairCache;
+
+	private List<BezierCurve> field;
+	private BroadPhase phase;
+	private ExecutorService executor;
+
+	@Setup
+	public void setup() {
+		field = KnotGenerator.knotField(curves, seed);
+		phase = BroadPhase.valueOf(broadPhase);
+		BezierIntersection.setDefaultPairSolve(PairSolve.valueOf(pairSolve));
+		BezierIntersection.setPairCache(pairCache ? new PairCache(1 << 20) : null);
+		if (threads > 1) {
+			executor = Executors.newFixedThreadPool(threads);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Set<BezierIntersection> findIntersections() throws InterruptedException {
+		if (executor == null) {
+			return SVGKnotEditor.findIntersections(field, phase);
+		}
+		return SVGKnotEditor.findIntersections(field, phase, executor);
+	}
+
+}
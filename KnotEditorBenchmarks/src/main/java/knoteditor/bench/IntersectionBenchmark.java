@@ -0,0 +1,92 @@
+package knoteditor.bench;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+import knoteditor.BezierCurve;
+import knoteditor.BezierIntersection;
+import knoteditor.IntersectionAlgorithm;
+import knoteditor.IntersectionSolver;
+import knoteditor.RootRefinement;
+
+
+/*
+ * Reports how far apart the intersection engines' roots are on a fixed set
+ * of random curve pairs, and how many pairs they disagree on outright. The
+ * engines are timed by PairBenchmark; the tests check the agreement itself.
+ *
+ * java -cp target/benchmarks.jar knoteditor.bench.IntersectionBenchmark
+ */
+public class IntersectionBenchmark {
+
+	private static final int PAIRS = 20000;
+
+	//Roots further apart than this count as a disagreement between engines
+	private static final double ROOT_TOLERANCE = 1e-6;
+
+	public static void main(String[] args) {
+		//Every setting has to really solve, not reuse another setting's roots
+		BezierIntersection.setPairCache(null);
+		Random random = new Random(42);
+		BezierCurve[] p = new BezierCurve[PAIRS];
+		BezierCurve[] q = new BezierCurve[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			p[i] = randomCurve(random);
+			q[i] = randomCurve(random);
+		}
+
+		IntersectionSolver solver = IntersectionSolver.get();
+		solver.setRootRefinement(RootRefinement.BISECTION);
+		double[][] bisection = solveAll(IntersectionAlgorithm.IMPLICIT, p, q);
+		solver.setRootRefinement(RootRefinement.NEWTON);
+		double[][] newton = solveAll(IntersectionAlgorithm.IMPLICIT, p, q);
+		solver.setRootRefinement(null);
+		double[][] subdivision = solveAll(IntersectionAlgorithm.SUBDIVISION, p, q);
+		compare("IMPLICIT/BISECTION vs IMPLICIT/NEWTON", bisection, newton);
+		compare("IMPLICIT/BISECTION vs SUBDIVISION", bisection, subdivision);
+	}
+
+	/*
+	 * The implicit engine also reports where p crosses the extension of q
+	 * beyond its ends, so engines are compared on the matched crossings
+	 */
+	private static double[][] solveAll(IntersectionAlgorithm algorithm, BezierCurve[] p, BezierCurve[] q) {
+		double[][] results = new double[p.length][];
+		for (int i = 0; i < p.length; i++) {
+			Set<BezierIntersection> intersections = BezierIntersection.createIntersections(p[i], q[i], algorithm);
+			results[i] = new double[intersections.size()];
+			int j = 0;
+			for (BezierIntersection intersection : intersections) {
+				results[i][j++] = intersection.pIntersect.t;
+			}
+			Arrays.sort(results[i]);
+		}
+		return results;
+	}
+
+	private static void compare(String label, double[][] a, double[][] b) {
+		int mismatches = 0;
+		double maxDifference = 0.0;
+		for (int i = 0; i < a.length; i++) {
+			if (a[i].length != b[i].length) {
+				mismatches++;
+				continue;
+			}
+			for (int j = 0; j < a[i].length; j++) {
+				double difference = Math.abs(a[i][j] - b[i][j]);
+				if (difference > ROOT_TOLERANCE) {
+					mismatches++;
+					break;
+				}
+				maxDifference = Math.max(maxDifference, difference);
+			}
+		}
+		System.out.printf("%s: %d of %d pairs disagree, largest root difference otherwise %g%n", label, mismatches, a.length, maxDifference);
+	}
+
+	private static BezierCurve randomCurve(Random random) {
+		return new BezierCurve(random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0);
+	}
+
+}
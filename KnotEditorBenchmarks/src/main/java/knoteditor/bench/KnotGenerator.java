@@ -0,0 +1,134 @@
+package knoteditor.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import knoteditor.BezierCurve;
+
+
+/*
+ * Reproducible synthetic knot drawings. Every knot is a torus knot projection
+ * sampled at evenly spaced angles and joined into a closed Catmull-Rom spline,
+ * so the same seed always gives the same curves, bit for bit.
+ */
+public class KnotGenerator {
+
+	public static final int SEGMENTS_PER_KNOT = 48;
+	public static final double KNOT_RADIUS = 100;
+
+	//Torus knot windings the field picks from
+	private static final int[][] WINDINGS = { { 2, 3 }, { 2, 5 }, { 3, 4 }, { 3, 5 }, { 2, 7 } };
+
+	//Knots are placed slightly closer than their diameter so neighbours cross as well
+	private static final double SPACING = 1.9 * KNOT_RADIUS;
+
+	//Control points are nudged by up to this much to keep curves in general position
+	private static final double JITTER = 0.5;
+
+	private KnotGenerator() {
+	}
+
+	/*
+	 * A (p, q) torus knot centred on (cx, cy), projected onto the plane.
+	 */
+	public static List<BezierCurve> torusKnot(int p, int q, int segments, double cx, double cy, double radius, Random random) {
+		double[] x = new double[segments];
+		double[] y = new double[segments];
+		for (int i = 0; i < segments; i++) {
+			double phi = 2 * Math.PI * i / segments;
+			double r = radius * (0.6 + 0.4 * Math.cos(q * phi));
+			x[i] = cx + r * Math.cos(p * phi) + JITTER * (random.nextDouble() - 0.5);
+			y[i] = cy + r * Math.sin(p * phi) + JITTER * (random.nextDouble() - 0.5);
+		}
+
+		List<BezierCurve> curves = new ArrayList<BezierCurve>(segments);
+		for (int i = 0; i < segments; i++) {
+			int prev = (i + segments - 1) % segments;
+			int next = (i + 1) % segments;
+			int after = (i + 2) % segments;
+			curves.add(new BezierCurve(x[i], y[i],
+					x[i] + (x[next] - x[prev]) / 6, y[i] + (y[next] - y[prev]) / 6,
+					x[next] - (x[after] - x[i]) / 6, y[next] - (y[after] - y[i]) / 6,
+					x[next], y[next]));
+		}
+		return curves;
+	}
+
+	/*
+	 * Fills a square grid with torus knots until there are exactly count curves.
+	 */
+	public static List<BezierCurve> knotField(int count, long seed) {
+		Random random = new Random(seed);
+		int knots = (count + SEGMENTS_PER_KNOT - 1) / SEGMENTS_PER_KNOT;
+		int columns = (int) Math.ceil(Math.sqrt(knots));
+
+		List<BezierCurve> curves = new ArrayList<BezierCurve>(knots * SEGMENTS_PER_KNOT);
+		for (int k = 0; k < knots; k++) {
+			int[] winding = WINDINGS[random.nextInt(WINDINGS.length)];
+			double cx = KNOT_RADIUS + SPACING * (k % columns);
+			double cy = KNOT_RADIUS + SPACING * (k / columns);
+			curves.addAll(torusKnot(winding[0], winding[1], SEGMENTS_PER_KNOT, cx, cy, KNOT_RADIUS, random));
+		}
+		return curves.subList(0, count);
+	}
+
+	/*
+	 * Writes the curves as SVG paths, starting a new subpath wherever a curve
+	 * does not begin at the end of the previous one.
+	 */
+	public static void writeSVG(List<BezierCurve> curves, Writer out) throws IOException {
+		double width = 0, height = 0;
+		for (BezierCurve c : curves) {
+			width = Math.max(width, Math.max(Math.max(c.x1, c.cx1), Math.max(c.cx2, c.x2)));
+			height = Math.max(height, Math.max(Math.max(c.y1, c.cy1), Math.max(c.cy2, c.y2)));
+		}
+
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + Math.ceil(width) + "\" height=\"" + Math.ceil(height) + "\">\n");
+		out.write("<g fill=\"none\" stroke=\"black\">\n");
+		BezierCurve last = null;
+		for (BezierCurve c : curves) {
+			if (last == null || last.x2 != c.x1 || last.y2 != c.y1) {
+				if (last != null) {
+					out.write("\"/>\n");
+				}
+				out.write("<path d=\"M" + c.x1 + "," + c.y1);
+			}
+			out.write(" C" + c.cx1 + "," + c.cy1 + " " + c.cx2 + "," + c.cy2 + " " + c.x2 + "," + c.y2);
+			last = c;
+		}
+		if (last != null) {
+			out.write("\"/>\n");
+		}
+		out.write("</g>\n</svg>\n");
+	}
+
+	public static void writeSVG(List<BezierCurve> curves, File file) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			writeSVG(curves, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/*
+	 * KnotGenerator <file.svg> <curves> [seed]
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("usage: KnotGenerator <file.svg> <curves> [seed]");
+			System.exit(1);
+		}
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+		writeSVG(knotField(Integer.parseInt(args[1]), seed), new File(args[0]));
+	}
+
+}
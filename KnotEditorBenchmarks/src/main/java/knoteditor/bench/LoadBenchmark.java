@@ -0,0 +1,80 @@
+package knoteditor.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import knoteditor.BezierCurve;
+import knoteditor.CurveBatch;
+import knoteditor.CurveFile;
+import knoteditor.StreamingSVGLoader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+
+/*
+ * Loading a synthetic knot field, either by parsing it as SVG or by mapping
+ * the binary cache written from the same curves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+	@Param({ "10000", "100000" })
+	public int curves;
+
+	@Param({ "1" })
+	public long seed;
+
+	private File svg;
+	private File cache;
+
+	@Setup
+	public void setup() throws IOException {
+		List<BezierCurve> field = KnotGenerator.knotField(curves, seed);
+		svg = File.createTempFile("knots", ".svg");
+		cache = File.createTempFile("knots", ".knot");
+		KnotGenerator.writeSVG(field, svg);
+		CurveFile.write(cache, CurveBatch.of(field));
+	}
+
+	@TearDown
+	public void tearDown() {
+		svg.delete();
+		cache.delete();
+	}
+
+	@Benchmark
+	public List<BezierCurve> loadSVG() throws IOException, SAXException {
+		return StreamingSVGLoader.load(svg);
+	}
+
+	@Benchmark
+	public double openCurveFile() throws IOException {
+		//Touch one value per curve so the mapping is actually paged in
+		CurveBatch batch = CurveFile.open(cache).getCurves();
+		double sum = 0;
+		for (int i = 0; i < batch.size(); i++) {
+			sum += batch.value(CurveBatch.X1, i);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,103 @@
+package knoteditor.bench;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import knoteditor.BezierCurve;
+import knoteditor.BezierIntersection;
+import knoteditor.BezierPoint;
+import knoteditor.IntersectionAlgorithm;
+import knoteditor.IntersectionSolver;
+import knoteditor.RootRefinement;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/*
+ * Single curve pairs covering the interesting cases for the narrow phase: no
+ * intersection at all, a tangency, and the nine-crossing pair from
+ * BezierCurve.main. The pair cache is off so every call really solves.
+ * The refinement only applies to the implicit engines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PairBenchmark {
+
+	@Param({ "IMPLICIT", "NORMALIZED", "SUBDIVISION" })
+	public String algorithm;
+
+	@Param({ "BISECTION", "NEWTON" })
+	public String refinement;
+
+	private IntersectionAlgorithm engine;
+
+	private BezierCurve nineP, nineQ;
+	private BezierCurve disjointP, disjointQ;
+	private BezierCurve tangentP, tangentQ;
+	private BezierCurve loop;
+
+	@Setup
+	public void setup() {
+		BezierIntersection.setPairCache(null);
+		if ("SUBDIVISION".equals(algorithm)) {
+			engine = IntersectionAlgorithm.SUBDIVISION;
+		} else if ("NORMALIZED".equals(algorithm)) {
+			engine = IntersectionAlgorithm.NORMALIZED;
+		} else {
+			engine = IntersectionAlgorithm.IMPLICIT;
+		}
+		IntersectionSolver.get().setRootRefinement(RootRefinement.valueOf(refinement));
+
+		nineP = new BezierCurve(0, 1000, 333, -2000, 666, 3000, 1000, 0);
+		nineQ = new BezierCurve(0, 0, 3000, 333, -2000, 666, 1000, 1000);
+
+		disjointP = nineP;
+		disjointQ = new BezierCurve(2000, 0, 5000, 333, 0, 666, 3000, 1000);
+
+		//Arches meeting at (500, 75) with a common horizontal tangent
+		tangentP = new BezierCurve(0, 0, 333, 100, 667, 100, 1000, 0);
+		tangentQ = new BezierCurve(0, 150, 333, 50, 667, 50, 1000, 150);
+
+		loop = new BezierCurve(0, 0, 1000, 1000, 0, 1000, 1000, 0);
+	}
+
+	@Benchmark
+	public Set<BezierPoint> intersectDisjoint() {
+		return disjointP.intersections(disjointQ, engine);
+	}
+
+	@Benchmark
+	public Set<BezierPoint> intersectTangent() {
+		return tangentP.intersections(tangentQ, engine);
+	}
+
+	@Benchmark
+	public Set<BezierPoint> intersectNine() {
+		return nineP.intersections(nineQ, engine);
+	}
+
+	@Benchmark
+	public Set<BezierIntersection> createIntersectionsNine() {
+		return BezierIntersection.createIntersections(nineP, nineQ, engine);
+	}
+
+	@Benchmark
+	public Set<BezierPoint> selfIntersections() {
+		return loop.selfIntersections();
+	}
+
+}
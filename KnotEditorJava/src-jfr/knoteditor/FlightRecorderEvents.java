@@ -0,0 +1,81 @@
+package knoteditor;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+
+/*
+ * Commits an IntersectionPassEvent for every findIntersections call and an
+ * IntersectionMetricsEvent with the running totals once per period. While a
+ * recording has the metrics event enabled the counters are switched on, so
+ * starting a recording on a running process, or with the JVM, is enough to
+ * get them.
+ */
+class FlightRecorderEvents extends IntersectionEvents {
+
+	private static final String METRICS_ENABLED = IntersectionMetricsEvent.NAME + "#enabled";
+
+	FlightRecorderEvents() {
+		FlightRecorder.addPeriodicEvent(IntersectionMetricsEvent.class, new Runnable() {
+			@Override
+			public void run() {
+				IntersectionMetricsEvent event = new IntersectionMetricsEvent();
+				event.set(IntersectionMetrics.snapshot());
+				event.commit();
+			}
+		});
+		//addListener calls recorderInitialized straight away if the recorder
+		//is already up, which catches recordings started on the command line
+		FlightRecorder.addListener(new FlightRecorderListener() {
+			@Override
+			public void recorderInitialized(FlightRecorder recorder) {
+				updateRecording(recorder);
+			}
+
+			@Override
+			public void recordingStateChanged(Recording changed) {
+				updateRecording(FlightRecorder.getFlightRecorder());
+			}
+		});
+	}
+
+	/*
+	 * Count while any running recording has the metrics event enabled
+	 */
+	private static void updateRecording(FlightRecorder recorder) {
+		boolean record = false;
+		for (Recording recording : recorder.getRecordings()) {
+			if (recording.getState() == RecordingState.RUNNING && !"false".equals(recording.getSettings().get(METRICS_ENABLED))) {
+				record = true;
+			}
+		}
+		IntersectionMetrics.setRecording(record);
+	}
+
+	@Override
+	Object beginPass() {
+		IntersectionPassEvent event = new IntersectionPassEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	void endPass(Object pass, String broadPhase, int curves, long pairsConsidered, long candidatePairs, int intersections) {
+		IntersectionPassEvent event = (IntersectionPassEvent) pass;
+		event.end();
+		if (event.shouldCommit()) {
+			event.broadPhase = broadPhase;
+			event.curves = curves;
+			event.pairsConsidered = pairsConsidered;
+			event.candidatePairs = candidatePairs;
+			event.intersections = intersections;
+			event.commit();
+		}
+	}
+
+}
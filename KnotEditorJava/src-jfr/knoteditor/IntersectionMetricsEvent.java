@@ -0,0 +1,84 @@
+package knoteditor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+
+/*
+ * The intersection counters since start up, so the change between two
+ * events is the work done in between
+ */
+@Name(IntersectionMetricsEvent.NAME)
+@Label("Intersection Metrics")
+@Description("Running totals of the intersection pipeline counters")
+@Category("Knot Editor")
+@StackTrace(false)
+@Period("1 s")
+class IntersectionMetricsEvent extends Event {
+
+	static final String NAME = "knoteditor.IntersectionMetrics";
+
+	@Label("Pairs Considered")
+	long pairsConsidered;
+
+	@Label("Pairs Culled")
+	long pairsCulled;
+
+	@Label("Chains Built")
+	long chainsBuilt;
+
+	@Label("Chain Degrees")
+	@Description("Chains built per polynomial degree, as degree:count")
+	String chainDegrees;
+
+	@Label("Bisections")
+	long bisections;
+
+	@Label("Refinement Steps")
+	long refinementSteps;
+
+	@Label("Roots Found")
+	long rootsFound;
+
+	@Label("Matches Dropped")
+	@Description("Roots left unmatched by the tolerance check")
+	long matchesDropped;
+
+	@Label("Self-Intersection Tests")
+	long selfIntersectionTests;
+
+	@Label("Self-Intersections Found")
+	long selfIntersectionsFound;
+
+	@Label("Subdivisions Truncated")
+	@Description("Subdivision solves stopped at their piece limit")
+	long subdivisionsTruncated;
+
+	@Label("Compensated Evaluations")
+	long compensatedEvaluations;
+
+	@Label("Exact Evaluations")
+	long exactEvaluations;
+
+	void set(IntersectionMetrics metrics) {
+		pairsConsidered = metrics.getPairsConsidered();
+		pairsCulled = metrics.getPairsCulled();
+		chainsBuilt = metrics.getChainsBuilt();
+		chainDegrees = metrics.getChainDegreeHistogram();
+		bisections = metrics.getBisections();
+		refinementSteps = metrics.getRefinementSteps();
+		rootsFound = metrics.getRootsFound();
+		matchesDropped = metrics.getMatchesDropped();
+		selfIntersectionTests = metrics.getSelfIntersectionTests();
+		selfIntersectionsFound = metrics.getSelfIntersectionsFound();
+		subdivisionsTruncated = metrics.getSubdivisionsTruncated();
+		compensatedEvaluations = metrics.getCompensatedEvaluations();
+		exactEvaluations = metrics.getExactEvaluations();
+	}
+
+}
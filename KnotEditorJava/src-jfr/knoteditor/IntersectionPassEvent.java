@@ -0,0 +1,35 @@
+package knoteditor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+@Name("knoteditor.IntersectionPass")
+@Label("Intersection Pass")
+@Description("One findIntersections call over a list of curves")
+@Category("Knot Editor")
+@StackTrace(false)
+class IntersectionPassEvent extends Event {
+
+	@Label("Broad Phase")
+	String broadPhase;
+
+	@Label("Curves")
+	int curves;
+
+	@Label("Pairs Considered")
+	@Description("Pairs of curves that are not neighbours in the list")
+	long pairsConsidered;
+
+	@Label("Candidate Pairs")
+	@Description("Pairs of curves handed to the narrow phase")
+	long candidatePairs;
+
+	@Label("Intersections")
+	int intersections;
+
+}
@@ -0,0 +1,107 @@
+package knoteditor;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+
+/*
+ * Evaluates one point per vector lane. Lanes that all belong to the same
+ * chain share broadcast coefficients; mixed lanes gather theirs. Horner runs
+ * from degree 9 in the gather case, which gives the same bits as the scalar
+ * kernel because the coefficients above each degree are zero. Multiply and
+ * add stay separate for the same reason.
+ */
+public class VectorChainKernel extends ChainKernel {
+
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	private static final class Scratch {
+		int[] offsets = new int[64];
+		double[] sizes = new double[64];
+		final double[] counts = new double[SPECIES.length()];
+	}
+
+	private static final ThreadLocal<Scratch> LOCAL = new ThreadLocal<Scratch>() {
+		@Override
+		protected Scratch initialValue() {
+			return new Scratch();
+		}
+	};
+
+	@Override
+	public void signAgreements(double[] chains, int[] degrees, int[] chainSizes, double[] points, int[] pointChains, int count, int[] agreements) {
+		int lanes = SPECIES.length();
+		int vectorCount = count - count % lanes;
+		if (vectorCount == 0) {
+			SCALAR.signAgreements(chains, degrees, chainSizes, points, pointChains, count, agreements);
+			return;
+		}
+
+		Scratch scratch = LOCAL.get();
+		if (scratch.offsets.length < vectorCount) {
+			scratch.offsets = new int[vectorCount];
+			scratch.sizes = new double[vectorCount];
+		}
+		int[] offsets = scratch.offsets;
+		double[] sizes = scratch.sizes;
+		for (int k = 0; k < vectorCount; k++) {
+			offsets[k] = pointChains[k] * CHAIN;
+			sizes[k] = chainSizes[pointChains[k]];
+		}
+
+		for (int k = 0; k < vectorCount; k += lanes) {
+			int c = pointChains[k];
+			boolean uniform = true;
+			int rows = chainSizes[c];
+			for (int lane = 1; lane < lanes; lane++) {
+				int other = pointChains[k + lane];
+				uniform &= other == c;
+				rows = Math.max(rows, chainSizes[other]);
+			}
+
+			DoubleVector t = DoubleVector.fromArray(SPECIES, points, k);
+			DoubleVector size = DoubleVector.fromArray(SPECIES, sizes, k);
+			DoubleVector result = DoubleVector.zero(SPECIES);
+			VectorMask<Double> prevPositive = null;
+			for (int i = 0; i <= rows; i++) {
+				DoubleVector val = DoubleVector.zero(SPECIES);
+				if (uniform) {
+					int offset = c * CHAIN + i * ROW;
+					for (int deg = degrees[c * ROW + i]; deg > 0; deg--) {
+						val = val.add(chains[offset + deg]).mul(t);
+					}
+					val = val.add(chains[offset]);
+				} else {
+					for (int deg = ROW - 1; deg > 0; deg--) {
+						val = val.add(DoubleVector.fromArray(SPECIES, chains, i * ROW + deg, offsets, k)).mul(t);
+					}
+					val = val.add(DoubleVector.fromArray(SPECIES, chains, i * ROW, offsets, k));
+				}
+				VectorMask<Double> positive = val.compare(VectorOperators.GE, 0.0);
+				if (i > 0) {
+					VectorMask<Double> agree = positive.eq(prevPositive).and(size.compare(VectorOperators.GE, i));
+					result = result.add(1.0, agree);
+				}
+				prevPositive = positive;
+			}
+
+			result.intoArray(scratch.counts, 0);
+			for (int lane = 0; lane < lanes; lane++) {
+				agreements[k + lane] = (int) scratch.counts[lane];
+			}
+		}
+
+		//The tail that does not fill a vector
+		for (int k = vectorCount; k < count; k++) {
+			agreements[k] = ScalarChainKernel.signAgreements(chains, degrees, chainSizes, points[k], pointChains[k]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "VECTOR";
+	}
+
+}
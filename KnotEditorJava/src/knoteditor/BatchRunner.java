@@ -0,0 +1,599 @@
+package knoteditor;
+
+import java.awt.geom.AffineTransform;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*
+ * Headless batch processing of knot SVGs. Every file goes through three
+ * stages: loading the curves, finding the intersections, and writing the
+ * knot SVG, the binary curve cache and optionally a PNG. Each stage has its
+ * own workers, and the stages hand files on through bounded queues, so a
+ * fast stage blocks instead of piling up files in memory when the next one
+ * falls behind.
+ *
+ * Loading and writing are IO bound and run on virtual threads where the
+ * runtime has them, or else on an unbounded pool of platform threads.
+ * Intersections run as chunks on a pool sized to the processors, shared by
+ * all files in flight. Each file keeps only a few chunks per thread queued
+ * at a time, so the files in flight take turns on the pool and a large file
+ * does not make the others wait out their budget behind its backlog.
+ *
+ * Every file has a time budget for loading and finding its intersections,
+ * broad phase included, not counting the time it spends waiting in the
+ * stage queues. A file that runs out is reported and dropped before it is
+ * written. Intersections stop within one pair solve, while a load cannot be
+ * interrupted and is checked when it is done. Either way the other workers
+ * carry on, so one slow file does not hold up the rest of the run.
+ *
+ * Outputs are named after the inputs' paths relative to the deepest
+ * directory holding all of them, so inputs of the same name from different
+ * directories land in matching subdirectories instead of overwriting each
+ * other.
+ */
+public class BatchRunner {
+
+	//Marks the end of the files on a queue, one per worker of the next stage
+	private static final Job END = new Job(null, null, 0);
+
+	private final File outputDirectory;
+	private int intersectThreads = Runtime.getRuntime().availableProcessors();
+	private int filesInFlight = Runtime.getRuntime().availableProcessors();
+	private int ioWorkers = 8;
+	private int queueCapacity = 16;
+	private long timeoutNanos = TimeUnit.SECONDS.toNanos(60);
+	private int pngWidth, pngHeight;
+
+	public BatchRunner(File outputDirectory) {
+		this.outputDirectory = outputDirectory;
+	}
+
+	/*
+	 * Threads in the pool that runs the intersection chunks
+	 */
+	public void setIntersectThreads(int threads) {
+		intersectThreads = threads;
+	}
+
+	/*
+	 * Files whose intersections are being found at the same time
+	 */
+	public void setFilesInFlight(int files) {
+		filesInFlight = files;
+	}
+
+	/*
+	 * Files being loaded at the same time, and likewise written
+	 */
+	public void setIOWorkers(int workers) {
+		ioWorkers = workers;
+	}
+
+	/*
+	 * Files waiting between two stages before the earlier stage blocks
+	 */
+	public void setQueueCapacity(int capacity) {
+		queueCapacity = capacity;
+	}
+
+	public void setTimeout(long timeout, TimeUnit unit) {
+		timeoutNanos = unit.toNanos(timeout);
+	}
+
+	/*
+	 * Also render every file to a PNG of this size. A width of 0 turns PNG
+	 * output off.
+	 */
+	public void setPNGSize(int width, int height) {
+		pngWidth = width;
+		pngHeight = height;
+	}
+
+	public Summary run(List<File> files) throws InterruptedException {
+		if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+			throw new IllegalArgumentException("cannot create " + outputDirectory);
+		}
+		final Summary summary = new Summary();
+		final ConcurrentLinkedQueue<Job> pending = new ConcurrentLinkedQueue<Job>();
+		List<String> names = outputNames(files);
+		for (int i = 0; i < files.size(); i++) {
+			pending.add(new Job(files.get(i), names.get(i), timeoutNanos));
+		}
+		final BlockingQueue<Job> loaded = new ArrayBlockingQueue<Job>(queueCapacity);
+		final BlockingQueue<Job> solved = new ArrayBlockingQueue<Job>(queueCapacity);
+		final AtomicInteger loadersLeft = new AtomicInteger(ioWorkers);
+		final AtomicInteger solversLeft = new AtomicInteger(filesInFlight);
+		final ExecutorService cpu = Executors.newFixedThreadPool(intersectThreads, daemonThreads("knoteditor-intersect-"));
+		final BroadPhase broadPhase = SVGKnotEditor.getDefaultBroadPhase();
+		ExecutorService io = newIOExecutor();
+		CompletionService<Object> completion = new ExecutorCompletionService<Object>(io);
+
+		List<Future<Object>> workers = new ArrayList<Future<Object>>();
+		for (int i = 0; i < ioWorkers; i++) {
+			workers.add(completion.submit(new Worker() {
+				@Override
+				void work() throws InterruptedException {
+					try {
+						for (Job job = pending.poll(); job != null; job = pending.poll()) {
+							long start = System.nanoTime();
+							try {
+								job.curves = StreamingSVGLoader.load(job.file);
+							} catch (Exception e) {
+								summary.failed(job, "cannot be loaded", e);
+								continue;
+							} finally {
+								job.spend(System.nanoTime() - start, summary.loadNanos);
+							}
+							if (job.remaining <= 0) {
+								summary.timedOut(job, "loading");
+								continue;
+							}
+							loaded.put(job);
+						}
+					} finally {
+						if (loadersLeft.decrementAndGet() == 0) {
+							for (int k = 0; k < filesInFlight; k++) {
+								loaded.put(END);
+							}
+						}
+					}
+				}
+			}, null));
+		}
+		for (int i = 0; i < filesInFlight; i++) {
+			workers.add(completion.submit(new Worker() {
+				@Override
+				void work() throws InterruptedException {
+					try {
+						for (Job job = loaded.take(); job != END; job = loaded.take()) {
+							long start = System.nanoTime();
+							try {
+								job.intersections = SVGKnotEditor.findIntersections(job.curves, broadPhase, cpu, job.remaining, TimeUnit.NANOSECONDS);
+							} catch (TimeoutException e) {
+								summary.timedOut(job, "finding intersections");
+								continue;
+							} catch (RuntimeException e) {
+								summary.failed(job, "cannot be intersected", e);
+								continue;
+							} finally {
+								job.spend(System.nanoTime() - start, summary.intersectNanos);
+							}
+							if (job.remaining <= 0) {
+								summary.timedOut(job, "finding intersections");
+								continue;
+							}
+							solved.put(job);
+						}
+					} finally {
+						if (solversLeft.decrementAndGet() == 0) {
+							for (int k = 0; k < ioWorkers; k++) {
+								solved.put(END);
+							}
+						}
+					}
+				}
+			}, null));
+		}
+		for (int i = 0; i < ioWorkers; i++) {
+			workers.add(completion.submit(new Worker() {
+				@Override
+				void work() throws InterruptedException {
+					for (Job job = solved.take(); job != END; job = solved.take()) {
+						long start = System.nanoTime();
+						try {
+							write(job, cpu);
+						} catch (IOException e) {
+							summary.failed(job, "cannot be written", e);
+							continue;
+						} catch (RuntimeException e) {
+							summary.failed(job, "cannot be written", e);
+							continue;
+						} finally {
+							job.spend(System.nanoTime() - start, summary.writeNanos);
+						}
+						summary.written(job);
+					}
+				}
+			}, null));
+		}
+
+		//Workers are waited for in the order they end, so a worker that dies
+		//cannot leave the others blocked on its queue
+		try {
+			for (int i = 0; i < workers.size(); i++) {
+				completion.take().get();
+			}
+		} catch (ExecutionException e) {
+			//Workers only fail on errors, which take the whole run down
+			for (Future<Object> worker : workers) {
+				worker.cancel(true);
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			io.shutdownNow();
+			cpu.shutdownNow();
+		}
+		summary.finish();
+		return summary;
+	}
+
+	private void write(Job job, ExecutorService executor) throws IOException, InterruptedException {
+		String name = job.name;
+		File directory = new File(outputDirectory, name).getParentFile();
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("cannot create " + directory);
+		}
+		CurveFile.write(new File(outputDirectory, name + ".knot"), job.curves, job.intersections);
+		new KnotRenderer(job.curves, job.intersections).writeSVG(new File(outputDirectory, name + "-knot.svg"));
+		if (pngWidth > 0 && !job.curves.isEmpty()) {
+			List<Point> markers = new ArrayList<Point>(job.intersections.size());
+			for (BezierIntersection intersect : job.intersections) {
+				markers.add(intersect.pIntersect);
+			}
+			TileRenderer renderer = new TileRenderer(pngWidth, pngHeight);
+			renderer.setTransform(fit(job.curves, pngWidth, pngHeight));
+			renderer.render(job.curves, markers, new File(outputDirectory, name + ".png"), executor);
+		}
+	}
+
+	/*
+	 * Output names for the inputs, without extension: the input path relative
+	 * to the deepest directory holding all inputs. An input that comes up
+	 * again gets its position in the list appended.
+	 */
+	static List<String> outputNames(List<File> files) {
+		List<List<String>> paths = new ArrayList<List<String>>(files.size());
+		int common = -1;
+		for (File file : files) {
+			List<String> path = new ArrayList<String>();
+			for (File f = file.getAbsoluteFile(); f != null; f = f.getParentFile()) {
+				path.add(0, f.getName());
+			}
+			if (common < 0) {
+				common = path.size() - 1;
+			} else {
+				List<String> first = paths.get(0);
+				int k = 0;
+				while (k < common && k < path.size() - 1 && first.get(k).equals(path.get(k))) {
+					k++;
+				}
+				common = k;
+			}
+			paths.add(path);
+		}
+
+		List<String> names = new ArrayList<String>(files.size());
+		Set<String> used = new HashSet<String>();
+		for (int i = 0; i < paths.size(); i++) {
+			List<String> path = paths.get(i);
+			StringBuilder name = new StringBuilder();
+			for (int k = common; k < path.size(); k++) {
+				if (name.length() > 0) {
+					name.append(File.separatorChar);
+				}
+				name.append(path.get(k));
+			}
+			if (isSVG(files.get(i))) {
+				name.setLength(name.length() - 4);
+			}
+			//Case blind, as the output directory may be
+			if (!used.add(name.toString().toLowerCase(Locale.ROOT))) {
+				name.append('-').append(i + 1);
+			}
+			names.add(name.toString());
+		}
+		return names;
+	}
+
+	/*
+	 * Scale and move the curves into the image, keeping the aspect ratio and
+	 * a margin of a few pixels for the markers
+	 */
+	private static AffineTransform fit(List<BezierCurve> curves, int width, int height) {
+		double xmin = Double.POSITIVE_INFINITY, ymin = Double.POSITIVE_INFINITY;
+		double xmax = Double.NEGATIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+		for (BezierCurve c : curves) {
+			Bounds b = c.getBounds();
+			xmin = Math.min(xmin, b.xmin);
+			ymin = Math.min(ymin, b.ymin);
+			xmax = Math.max(xmax, b.xmax);
+			ymax = Math.max(ymax, b.ymax);
+		}
+		double margin = 10;
+		double scale = Math.min((width - 2 * margin) / Math.max(xmax - xmin, 1e-9), (height - 2 * margin) / Math.max(ymax - ymin, 1e-9));
+		AffineTransform transform = AffineTransform.getTranslateInstance(margin, margin);
+		transform.scale(scale, scale);
+		transform.translate(-xmin, -ymin);
+		return transform;
+	}
+
+	/*
+	 * One virtual thread per task where the runtime has them. The executor
+	 * is looked up reflectively since the classes still target Java 8.
+	 */
+	static ExecutorService newIOExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (Exception e) {
+			return Executors.newCachedThreadPool(daemonThreads("knoteditor-io-"));
+		}
+	}
+
+	private static ThreadFactory daemonThreads(final String prefix) {
+		final AtomicInteger count = new AtomicInteger();
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, prefix + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+
+	/*
+	 * The SVG files named by the arguments. A directory stands for the SVG
+	 * files directly in it, in name order. Any other file that is not an SVG
+	 * is a manifest with one file or directory per line, relative to the
+	 * manifest; blank lines and lines starting with # are skipped.
+	 */
+	public static List<File> collectInputs(List<String> arguments) throws IOException {
+		List<File> files = new ArrayList<File>();
+		for (String argument : arguments) {
+			collect(new File(argument), files, true);
+		}
+		return files;
+	}
+
+	private static void collect(File input, List<File> files, boolean manifestAllowed) throws IOException {
+		if (input.isDirectory()) {
+			File[] svgs = input.listFiles();
+			if (svgs == null) {
+				throw new IOException("cannot list " + input);
+			}
+			Arrays.sort(svgs);
+			for (File file : svgs) {
+				if (file.isFile() && isSVG(file)) {
+					files.add(file);
+				}
+			}
+		} else if (isSVG(input) || !manifestAllowed) {
+			files.add(input);
+		} else {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(input), "UTF-8"));
+			try {
+				File base = input.getAbsoluteFile().getParentFile();
+				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+					line = line.trim();
+					if (line.length() == 0 || line.startsWith("#")) {
+						continue;
+					}
+					File entry = new File(line);
+					collect(entry.isAbsolute() ? entry : new File(base, line), files, false);
+				}
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	private static boolean isSVG(File file) {
+		return file.getName().toLowerCase(Locale.ROOT).endsWith(".svg");
+	}
+
+	private static final class Job {
+		final File file;
+		//Output path relative to the output directory, without extension
+		final String name;
+		long remaining;
+		List<BezierCurve> curves;
+		Set<BezierIntersection> intersections;
+
+		Job(File file, String name, long budget) {
+			this.file = file;
+			this.name = name;
+			remaining = budget;
+		}
+
+		void spend(long nanos, AtomicLong stage) {
+			remaining -= nanos;
+			stage.addAndGet(nanos);
+		}
+	}
+
+	/*
+	 * Lets the stage loops throw InterruptedException, which ends a worker
+	 * quietly when the run is torn down
+	 */
+	private abstract static class Worker implements Runnable {
+		@Override
+		public void run() {
+			try {
+				work();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		abstract void work() throws InterruptedException;
+	}
+
+	/*
+	 * Counts and timings of a run. Problems with single files are printed to
+	 * standard error as they happen.
+	 */
+	public static class Summary {
+
+		private final long startTime = System.nanoTime();
+		private long elapsedNanos;
+		private final AtomicInteger written = new AtomicInteger();
+		private final AtomicInteger failed = new AtomicInteger();
+		private final AtomicInteger timedOut = new AtomicInteger();
+		private final AtomicLong curves = new AtomicLong();
+		private final AtomicLong intersections = new AtomicLong();
+		private final AtomicLong loadNanos = new AtomicLong();
+		private final AtomicLong intersectNanos = new AtomicLong();
+		private final AtomicLong writeNanos = new AtomicLong();
+
+		void written(Job job) {
+			written.incrementAndGet();
+			curves.addAndGet(job.curves.size());
+			intersections.addAndGet(job.intersections.size());
+		}
+
+		void failed(Job job, String problem, Exception e) {
+			failed.incrementAndGet();
+			System.err.println(job.file + " " + problem + ": " + e);
+		}
+
+		void timedOut(Job job, String stage) {
+			timedOut.incrementAndGet();
+			System.err.println(job.file + " ran out of time while " + stage);
+		}
+
+		void finish() {
+			elapsedNanos = System.nanoTime() - startTime;
+		}
+
+		public int getWritten() {
+			return written.get();
+		}
+
+		public int getFailed() {
+			return failed.get();
+		}
+
+		public int getTimedOut() {
+			return timedOut.get();
+		}
+
+		/*
+		 * Curves and intersections of the files that were written
+		 */
+		public long getCurves() {
+			return curves.get();
+		}
+
+		public long getIntersections() {
+			return intersections.get();
+		}
+
+		public double getSeconds() {
+			return elapsedNanos / 1e9;
+		}
+
+		//Rates are 0 for a run too short for the clock to see
+		public double getFilesPerSecond() {
+			return getSeconds() > 0 ? getWritten() / getSeconds() : 0;
+		}
+
+		public double getCurvesPerSecond() {
+			return getSeconds() > 0 ? getCurves() / getSeconds() : 0;
+		}
+
+		@Override
+		public String toString() {
+			int files = getWritten() + getFailed() + getTimedOut();
+			return String.format(Locale.ROOT, "%d files in %.2f s: %d written, %d failed, %d timed out%n"
+					+ "%.1f files/s, %.0f curves/s, %d curves, %d intersections%n"
+					+ "time spent loading %.2f s, intersecting %.2f s, writing %.2f s",
+					files, getSeconds(), getWritten(), getFailed(), getTimedOut(),
+					getFilesPerSecond(), getCurvesPerSecond(), getCurves(), getIntersections(),
+					loadNanos.get() / 1e9, intersectNanos.get() / 1e9, writeNanos.get() / 1e9);
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String usage = "usage: BatchRunner [-out dir] [-threads n] [-inflight n] [-io n] [-queue n] [-timeout seconds] [-png width height] <svg, directory or manifest>...";
+		File out = new File("out");
+		List<String> inputs = new ArrayList<String>();
+		int threads = -1, inFlight = -1, io = -1, queue = -1, width = 0, height = 0;
+		double timeout = -1;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				if (args[i].equals("-out")) {
+					out = new File(args[++i]);
+				} else if (args[i].equals("-threads")) {
+					threads = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-inflight")) {
+					inFlight = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-io")) {
+					io = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-queue")) {
+					queue = Integer.parseInt(args[++i]);
+				} else if (args[i].equals("-timeout")) {
+					timeout = Double.parseDouble(args[++i]);
+				} else if (args[i].equals("-png")) {
+					width = Integer.parseInt(args[++i]);
+					height = Integer.parseInt(args[++i]);
+				} else if (args[i].startsWith("-")) {
+					throw new IllegalArgumentException("unknown option " + args[i]);
+				} else {
+					inputs.add(args[i]);
+				}
+			}
+		} catch (RuntimeException e) {
+			//Covers bad numbers and options missing their value
+			System.err.println(usage);
+			System.exit(2);
+		}
+		if (inputs.isEmpty()) {
+			System.err.println(usage);
+			System.exit(2);
+		}
+
+		BatchRunner runner = new BatchRunner(out);
+		if (threads > 0) {
+			runner.setIntersectThreads(threads);
+		}
+		if (inFlight > 0) {
+			runner.setFilesInFlight(inFlight);
+		}
+		if (io > 0) {
+			runner.setIOWorkers(io);
+		}
+		if (queue > 0) {
+			runner.setQueueCapacity(queue);
+		}
+		if (timeout > 0) {
+			runner.setTimeout((long) (timeout * 1e9), TimeUnit.NANOSECONDS);
+		}
+		if (width > 0 && height > 0) {
+			runner.setPNGSize(width, height);
+		}
+
+		List<File> files = collectInputs(inputs);
+		System.out.println("Processing " + files.size() + " files into " + out);
+		Summary summary = runner.run(files);
+		System.out.println(summary);
+		System.exit(summary.getFailed() + summary.getTimedOut() > 0 ? 1 : 0);
+	}
+
+}
@@ -0,0 +1,504 @@
+package knoteditor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+public class BezierCurve {
+
+	public static final double EPSILON = 0.00000000001;
+
+	//Coarse samples and Newton steps used to invert a point to a parameter
+	private static final int INVERSION_SAMPLES = 16;
+	private static final int MAX_INVERSION_ITERATIONS = 64;
+	private static final double INVERSION_TOLERANCE = 1e-15;
+
+	private static volatile IntersectionAlgorithm defaultIntersectionAlgorithm = IntersectionAlgorithm.IMPLICIT;
+
+	//initial control points
+	public final double x1, y1, cx1, cy1, cx2, cy2, x2, y2;
+
+	//coefficients of parametric form
+	private final double a3, a2, a1, a0, b3, b2, b1, b0;
+
+	//coefficients of implicit form, computed on first use
+	private volatile double[] implicit;
+
+	//control hull and tight boxes, computed on first use
+	private volatile Bounds controlBounds, bounds;
+
+	/*
+	 * Create a new cubic Bezier curve from control points
+	 * 
+	 * See http://www.mare.ee/indrek/misc/2d.pdf for details on math
+	 */
+	public BezierCurve(double x1, double y1, double cx1, double cy1, double cx2, double cy2, double x2, double y2) {
+		//Calculate the parametric form of the Bezier curve
+		a3 = -x1 + 3.0*cx1 - 3.0*cx2 + x2;
+		a2 = 3.0*x1 - 6.0*cx1 + 3.0*cx2;
+		a1 = -3.0*x1 + 3.0*cx1;
+		a0 = x1;
+		b3 = -y1 + 3.0*cy1 - 3.0*cy2 + y2;
+		b2 = 3.0*y1 - 6.0*cy1 + 3.0*cy2;
+		b1 = -3.0*y1 + 3.0*cy1;
+		b0 = y1;
+
+		//System.out.printf("x(t) = %gt^3 + %gt^2 + %gt + %g\n", a3, a2, a1, a0);
+		//System.out.printf("y(t) = %gt^3 + %gt^2 + %gt + %g\n", b3, b2, b1, b0);
+
+		this.x1 = x1;
+		this.y1 = y1;
+		this.cx1 = cx1;
+		this.cy1 = cy1;
+		this.cx2 = cx2;
+		this.cy2 = cy2;
+		this.x2 = x2;
+		this.y2 = y2;
+	}
+	
+	public Point pointAt(double t) {
+		return new Point(pointX(t), pointY(t));
+	}
+	
+	double pointX(double t) {
+		return a0 + t*(a1 + t*(a2 + t*a3));
+	}
+	
+	double pointY(double t) {
+		return b0 + t*(b1 + t*(b2 + t*b3));
+	}
+	
+	/*
+	 * Length of the derivative at t
+	 */
+	double speed(double t) {
+		double dx = tangentX(t);
+		double dy = tangentY(t);
+		return Math.sqrt(dx*dx + dy*dy);
+	}
+	
+	/*
+	 * Derivative at t, pointing the way the curve runs
+	 */
+	double tangentX(double t) {
+		return a1 + t*(2*a2 + 3*t*a3);
+	}
+	
+	double tangentY(double t) {
+		return b1 + t*(2*b2 + 3*t*b3);
+	}
+	
+	/*
+	 * The part of this curve between t0 and t1 as a curve of its own. The
+	 * control points are blossom values, so the ends come out exactly equal
+	 * to this curve's ends when t0 is 0 or t1 is 1.
+	 */
+	public BezierCurve subCurve(double t0, double t1) {
+		return new BezierCurve(blossom(x1, cx1, cx2, x2, t0, t0, t0), blossom(y1, cy1, cy2, y2, t0, t0, t0),
+				blossom(x1, cx1, cx2, x2, t0, t0, t1), blossom(y1, cy1, cy2, y2, t0, t0, t1),
+				blossom(x1, cx1, cx2, x2, t0, t1, t1), blossom(y1, cy1, cy2, y2, t0, t1, t1),
+				blossom(x1, cx1, cx2, x2, t1, t1, t1), blossom(y1, cy1, cy2, y2, t1, t1, t1));
+	}
+	
+	//de Casteljau with a different parameter on every level
+	private static double blossom(double p0, double p1, double p2, double p3, double u, double v, double w) {
+		double q0 = (1 - u)*p0 + u*p1;
+		double q1 = (1 - u)*p1 + u*p2;
+		double q2 = (1 - u)*p2 + u*p3;
+		double r0 = (1 - v)*q0 + v*q1;
+		double r1 = (1 - v)*q1 + v*q2;
+		return (1 - w)*r0 + w*r1;
+	}
+	
+	/*
+	 * The parameter in [0, 1] of the point on this curve closest to (x, y).
+	 * The derivative of the squared distance is sampled coarsely, and every
+	 * sample range where it turns from negative to positive holds a local
+	 * minimum that is refined by bracketed Newton steps. The curve may pass
+	 * near the point more than once, so the closest minimum wins.
+	 */
+	double invert(double x, double y) {
+		double bestT = 0;
+		double best = distanceSquared(0, x, y);
+		double d1 = distanceSquared(1, x, y);
+		if (d1 < best) {
+			best = d1;
+			bestT = 1;
+		}
+		
+		double lo = 0;
+		double gLo = distanceSlope(lo, x, y);
+		for (int i = 1; i <= INVERSION_SAMPLES; i++) {
+			double hi = (double) i / INVERSION_SAMPLES;
+			double gHi = distanceSlope(hi, x, y);
+			if (gLo <= 0 && gHi >= 0) {
+				double t = refineInversion(lo, hi, x, y);
+				double d = distanceSquared(t, x, y);
+				if (d < best) {
+					best = d;
+					bestT = t;
+				}
+			}
+			lo = hi;
+			gLo = gHi;
+		}
+		return bestT;
+	}
+	
+	private double distanceSquared(double t, double x, double y) {
+		double dx = pointX(t) - x;
+		double dy = pointY(t) - y;
+		return dx*dx + dy*dy;
+	}
+	
+	//Half the derivative of distanceSquared
+	private double distanceSlope(double t, double x, double y) {
+		double xt = a1 + t*(2.0*a2 + t*3.0*a3);
+		double yt = b1 + t*(2.0*b2 + t*3.0*b3);
+		return (pointX(t) - x)*xt + (pointY(t) - y)*yt;
+	}
+	
+	private double refineInversion(double lo, double hi, double x, double y) {
+		double t = 0.5 * (lo + hi);
+		for (int i = 0; i < MAX_INVERSION_ITERATIONS; i++) {
+			double dx = pointX(t) - x;
+			double dy = pointY(t) - y;
+			double xt = a1 + t*(2.0*a2 + t*3.0*a3);
+			double yt = b1 + t*(2.0*b2 + t*3.0*b3);
+			double xtt = 2.0*a2 + t*6.0*a3;
+			double ytt = 2.0*b2 + t*6.0*b3;
+			double g = dx*xt + dy*yt;
+			double dg = xt*xt + yt*yt + dx*xtt + dy*ytt;
+			if (g < 0) {
+				lo = t;
+			} else {
+				hi = t;
+			}
+			
+			//Bisect whenever Newton would leave the bracket
+			double next = t - g / dg;
+			if (!(next > lo && next < hi)) {
+				next = 0.5 * (lo + hi);
+			}
+			double step = Math.abs(next - t);
+			t = next;
+			if (step < INVERSION_TOLERANCE) {
+				break;
+			}
+		}
+		return t;
+	}
+
+	public Set<BezierPoint> selfIntersections() {
+		Set<BezierPoint> selfIntersects = new HashSet<BezierPoint>();
+		double[] t = new double[2];
+		if (selfIntersection(t)) {
+			selfIntersects.add(new BezierPoint(this, t[0]));
+			selfIntersects.add(new BezierPoint(this, t[1]));
+		}
+		return selfIntersects;
+	}
+	
+	/*
+	 * The two parameters at which the curve crosses itself, in increasing
+	 * order, written to the front of t. Returns false when the curve has no
+	 * loop in [0, 1].
+	 *
+	 * Most curves are ruled out from the control polygon alone. The legs
+	 * d0 = P1 - P0, d1 = P2 - P1, d2 = P3 - P2 are the control points of the
+	 * hodograph, so if the polygon turns one way at P1 and the other at P2 the
+	 * curve has an inflection and cannot loop. If it turns the same way at
+	 * both but less than half a turn from d0 to d2, the tangent stays inside
+	 * that cone and cannot come round far enough to close a loop. Collinear
+	 * control points fail the first test: such a curve may run back over
+	 * itself, but it never crosses.
+	 *
+	 * A double root of the loop equation is a cusp, where the curve touches
+	 * itself without crossing, and is not reported either.
+	 */
+	public boolean selfIntersection(double[] t) {
+		double d0x = cx1 - x1, d0y = cy1 - y1;
+		double d1x = cx2 - cx1, d1y = cy2 - cy1;
+		double d2x = x2 - cx2, d2y = y2 - cy2;
+		double turn1 = d0x*d1y - d0y*d1x;
+		double turn2 = d1x*d2y - d1y*d2x;
+		if (!(turn1 * turn2 > 0)) {
+			return false;
+		}
+		double sweep = d0x*d2y - d0y*d2x;
+		if (sweep * turn1 > 0) {
+			return false;
+		}
+		
+		//Quadratics and lines cannot loop, and for degree elevated ones the
+		//formula below divides rounding noise by rounding noise
+		if (!ImplicitForm.isCubic(a3, a2, a1, a0, b3, b2, b1, b0)) {
+			return false;
+		}
+		
+		//u2 is the square of a2 b3 - a3 b2, which vanishes when the cubic
+		//and quadratic terms are parallel and the equation is not quadratic
+		double u2 = -2.0*a2*a3*b2*b3 + a2*a2*b3*b3 + a3*a3*b2*b2;
+		double u1 = -a1*a3*b2*b3 - a2*a3*b1*b3 + a1*a2*b3*b3 + b1*b2*a3*a3;
+		double u0 = -a1*a2*b2*b3 - a2*a3*b1*b2 - 2*a1*a3*b1*b3 + a1*a1*b3*b3 + a3*a3*b1*b1 + a1*a3*b2*b2 + b1*b3*a2*a2;
+		if (!(u2 > 0)) {
+			return false;
+		}
+		double disc = u1*u1 - 4.0*u2*u0;
+		if (!(disc > 0)) {
+			return false;
+		}
+		
+		//Take the root that does not cancel and get the other from the
+		//product of the roots
+		double root = Math.sqrt(disc);
+		double half = u1 >= 0 ? -0.5*(u1 + root) : -0.5*(u1 - root);
+		double r1 = half / u2;
+		double r2 = half != 0.0 ? u0 / half : -r1;
+		double t1 = Math.min(r1, r2);
+		double t2 = Math.max(r1, r2);
+		if (t1 < 0.0 || t2 > 1.0 || t2 - t1 < EPSILON) {
+			return false;
+		}
+		t[0] = t1;
+		t[1] = t2;
+		return true;
+	}
+
+	public static IntersectionAlgorithm getDefaultIntersectionAlgorithm() {
+		return defaultIntersectionAlgorithm;
+	}
+
+	public static void setDefaultIntersectionAlgorithm(IntersectionAlgorithm algorithm) {
+		defaultIntersectionAlgorithm = algorithm;
+	}
+
+	public Set<BezierPoint> intersections(BezierCurve other) {
+		return intersections(other, defaultIntersectionAlgorithm);
+	}
+
+	public Set<BezierPoint> intersections(BezierCurve other, IntersectionAlgorithm algorithm) {
+		Set<BezierPoint> intersections = new HashSet<BezierPoint>();
+
+		double[] roots = new double[IntersectionSolver.MAX_ROOTS];
+		int count = algorithm.intersections(this, other, roots);
+		for (int i = 0; i < count; i++) {
+			//Remember, the t values for the roots are on this curve, not the other
+			intersections.add(new BezierPoint(this, roots[i]));
+		}
+		//System.out.println("Intersections at " + intersections);
+		return intersections;
+	}
+
+	/*
+	 * Substitute the parametric form of this curve into the implicit form of
+	 * the other, giving the degree 9 polynomial in t whose roots are the
+	 * intersections. Coefficients are written lowest degree first.
+	 */
+	void intersectionPolynomial(BezierCurve other, double[] out) {
+		ImplicitForm.substitute(a3, a2, a1, a0, b3, b2, b1, b0, other.implicitForm(), 0, out);
+	}
+
+	/*
+	 * The implicit form is only needed once the curve reaches an implicit
+	 * intersection test, so it is computed then rather than up front. Racing
+	 * threads compute identical values, and the volatile write publishes a
+	 * fully filled array.
+	 */
+	double[] implicitForm() {
+		double[] u = implicit;
+		if (u == null) {
+			u = new double[ImplicitForm.SIZE];
+			ImplicitForm.compute(a3, a2, a1, a0, b3, b2, b1, b0, u, 0);
+			implicit = u;
+		}
+		return u;
+	}
+	
+	/*
+	 * The box around the control points. It holds the curve but can be far
+	 * larger than it when the control points reach out.
+	 */
+	public Bounds getControlBounds() {
+		Bounds b = controlBounds;
+		if (b == null) {
+			b = new Bounds(Math.min(Math.min(x1, x2), Math.min(cx1, cx2)), Math.min(Math.min(y1, y2), Math.min(cy1, cy2)), Math.max(Math.max(x1, x2), Math.max(cx1, cx2)), Math.max(Math.max(y1, y2), Math.max(cy1, cy2)));
+			controlBounds = b;
+		}
+		return b;
+	}
+	
+	/*
+	 * The smallest box around the curve itself: the ends plus the points
+	 * where x or y turns around
+	 */
+	public Bounds getBounds() {
+		Bounds b = bounds;
+		if (b == null) {
+			double[] t = new double[2];
+			double xmin = Math.min(x1, x2), xmax = Math.max(x1, x2);
+			for (int i = extrema(a3, a2, a1, t, 0) - 1; i >= 0; i--) {
+				double x = pointX(t[i]);
+				xmin = Math.min(xmin, x);
+				xmax = Math.max(xmax, x);
+			}
+			double ymin = Math.min(y1, y2), ymax = Math.max(y1, y2);
+			for (int i = extrema(b3, b2, b1, t, 0) - 1; i >= 0; i--) {
+				double y = pointY(t[i]);
+				ymin = Math.min(ymin, y);
+				ymax = Math.max(ymax, y);
+			}
+			b = new Bounds(xmin, ymin, xmax, ymax);
+			bounds = b;
+		}
+		return b;
+	}
+	
+	/*
+	 * Parameters strictly between 0 and 1 where x or y turns around, in
+	 * increasing order and without repeats. Between two neighbouring splits
+	 * the curve is monotone in both coordinates. Returns how many of the at
+	 * most four parameters were written to t.
+	 */
+	int monotoneSplits(double[] t) {
+		int nx = extrema(a3, a2, a1, t, 0);
+		int n = nx + extrema(b3, b2, b1, t, nx);
+		Arrays.sort(t, 0, n);
+		int kept = 0;
+		for (int i = 0; i < n; i++) {
+			if (kept == 0 || t[i] != t[kept - 1]) {
+				t[kept++] = t[i];
+			}
+		}
+		return kept;
+	}
+	
+	/*
+	 * Roots strictly inside (0, 1) of the derivative 3 c3 t^2 + 2 c2 t + c1
+	 * of one coordinate, written in increasing order from offset. The stable
+	 * form of the quadratic formula also covers the linear case, where the
+	 * q / a root overflows out of range.
+	 */
+	static int extrema(double c3, double c2, double c1, double[] t, int offset) {
+		double a = 3*c3, b = 2*c2, c = c1;
+		double disc = b*b - 4*a*c;
+		if (disc < 0) {
+			return 0;
+		}
+		double q = -0.5*(b + Math.copySign(Math.sqrt(disc), b));
+		if (q == 0) {
+			return 0;
+		}
+		double r1 = q / a, r2 = c / q;
+		if (r2 < r1) {
+			double swap = r1;
+			r1 = r2;
+			r2 = swap;
+		}
+		int n = offset;
+		if (r1 > 0 && r1 < 1) {
+			t[n++] = r1;
+		}
+		if (r2 > 0 && r2 < 1 && r2 != r1) {
+			t[n++] = r2;
+		}
+		return n - offset;
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		long temp;
+		temp = Double.doubleToLongBits(cx1);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(cx2);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(cy1);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(cy2);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(x1);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(x2);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(y1);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		temp = Double.doubleToLongBits(y2);
+		result = prime * result + (int) (temp ^ (temp >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BezierCurve other = (BezierCurve) obj;
+		if (Double.doubleToLongBits(cx1) != Double.doubleToLongBits(other.cx1))
+			return false;
+		if (Double.doubleToLongBits(cx2) != Double.doubleToLongBits(other.cx2))
+			return false;
+		if (Double.doubleToLongBits(cy1) != Double.doubleToLongBits(other.cy1))
+			return false;
+		if (Double.doubleToLongBits(cy2) != Double.doubleToLongBits(other.cy2))
+			return false;
+		if (Double.doubleToLongBits(x1) != Double.doubleToLongBits(other.x1))
+			return false;
+		if (Double.doubleToLongBits(x2) != Double.doubleToLongBits(other.x2))
+			return false;
+		if (Double.doubleToLongBits(y1) != Double.doubleToLongBits(other.y1))
+			return false;
+		if (Double.doubleToLongBits(y2) != Double.doubleToLongBits(other.y2))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + x1 + ", " + y1 + ")--(" + cx1 + ", " + cy1 + ")--(" + cx2 + ", " + cy2 + ")--(" + x2 + ", " + y2 + ")";
+	}
+
+	public static void main(String[] args) {
+		//Nine intersections here
+		//BezierCurve p = new BezierCurve(0, 1000, 333, -2000, 666, 3000, 1000, 0);
+		//BezierCurve q = new BezierCurve(0, 0, 3000, 333, -2000, 666, 1000, 1000);
+
+		//Self intersection tests
+		BezierCurve p = new BezierCurve(0, 1000, 1500, -300, -500, -300, 750, 1000);
+		BezierCurve q = new BezierCurve(0, 0, 1750, 1500, -1000, 1000, 1000, 0);
+		System.out.println("P = " + p);
+		System.out.println("Q = " + q);
+		
+		long startTime = System.currentTimeMillis();
+		BezierIntersection selfIntersectionP = BezierIntersection.createSelfIntersection(p);
+		BezierIntersection selfIntersectionQ = BezierIntersection.createSelfIntersection(q);
+		Set<BezierPoint> intersections = p.intersections(q);
+		System.out.println("Computation took " + (System.currentTimeMillis() - startTime) + " ms");
+		System.out.println("P intersects itself at " + selfIntersectionP);
+		System.out.println("Q intersects itself at " + selfIntersectionQ);
+		System.out.println("P and Q intersect at " + intersections);
+		
+		List<Point> markers = new ArrayList<Point>(intersections);
+		if (selfIntersectionP != null) {
+			markers.add(selfIntersectionP.pIntersect);
+		}
+		if (selfIntersectionQ != null) {
+			markers.add(selfIntersectionQ.pIntersect);
+		}
+		try {
+			new TileRenderer(1000, 1000).render(Arrays.asList(p, q), markers, new File("test.png"));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
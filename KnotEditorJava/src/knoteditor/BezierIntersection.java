@@ -0,0 +1,331 @@
+package knoteditor;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+public class BezierIntersection {
+	
+	public static final double TOLERABILITY_FACTOR = 0.01 / BezierCurve.EPSILON;
+	
+	//Inverted parameters further than this from the second solve fail validation
+	public static final double VALIDATION_TOLERANCE = 1e-6;
+	
+	private static final ThreadLocal<Matching> LOCAL = new ThreadLocal<Matching>() {
+		@Override
+		protected Matching initialValue() {
+			return new Matching();
+		}
+	};
+	
+	//Set knoteditor.paircache to a maximum size to turn the pair cache on
+	private static volatile PairCache pairCache = createPairCache(Integer.getInteger("knoteditor.paircache", 0));
+	
+	private static volatile PairSolve defaultPairSolve = PairSolve.valueOf(System.getProperty("knoteditor.pairsolve", PairSolve.DOUBLE_SOLVE.name()));
+	
+	//With knoteditor.validatepairsolve set, every inverted pair is solved a
+	//second time and disagreements are reported
+	private static volatile boolean validatePairSolve = Boolean.getBoolean("knoteditor.validatepairsolve");
+	private static final AtomicLong validationFailures = new AtomicLong();
+	
+	public final BezierCurve p, q;
+	public final BezierPoint pIntersect, qIntersect;
+	
+	//Distance between pIntersect and qIntersect, a measure of solve quality.
+	//It follows from the two points, so equals and hashCode leave it out.
+	public final double residual;
+	
+	private BezierIntersection(BezierCurve p, BezierCurve q, BezierPoint pIntersect, BezierPoint qIntersect, double residual) {
+		this.p = p;
+		this.q = q;
+		this.pIntersect = pIntersect;
+		this.qIntersect= qIntersect;
+		this.residual = residual;
+	}
+	
+	private BezierIntersection(BezierCurve p, BezierCurve q, BezierPoint pIntersect, BezierPoint qIntersect) {
+		this(p, q, pIntersect, qIntersect, pIntersect.distance(qIntersect));
+	}
+	
+	/*
+	 * Rebuild an intersection from previously computed parameters
+	 */
+	static BezierIntersection fromParameters(BezierCurve p, BezierCurve q, double pt, double qt) {
+		return new BezierIntersection(p, q, new BezierPoint(p, pt), new BezierPoint(q, qt));
+	}
+	
+	private static PairCache createPairCache(int maximumSize) {
+		return maximumSize > 0 ? new PairCache(maximumSize) : null;
+	}
+	
+	public static PairCache getPairCache() {
+		return pairCache;
+	}
+	
+	/*
+	 * Pass null to solve every pair from scratch
+	 */
+	public static void setPairCache(PairCache cache) {
+		pairCache = cache;
+	}
+	
+	public static PairSolve getDefaultPairSolve() {
+		return defaultPairSolve;
+	}
+	
+	public static void setDefaultPairSolve(PairSolve pairSolve) {
+		defaultPairSolve = pairSolve;
+	}
+	
+	public static boolean isValidatePairSolve() {
+		return validatePairSolve;
+	}
+	
+	public static void setValidatePairSolve(boolean validate) {
+		validatePairSolve = validate;
+	}
+	
+	/*
+	 * Number of inverted pairs that disagreed with a full second solve
+	 */
+	public static long getValidationFailures() {
+		return validationFailures.get();
+	}
+	
+	public static BezierIntersection createSelfIntersection(BezierCurve c) {
+		double[] t = LOCAL.get().pRoots;
+		boolean found = c.selfIntersection(t);
+		if (IntersectionMetrics.isCounting()) {
+			IntersectionMetrics.add(IntersectionMetrics.SELF_INTERSECTION_TESTS, 1);
+			if (found) {
+				IntersectionMetrics.add(IntersectionMetrics.SELF_INTERSECTIONS_FOUND, 1);
+			}
+		}
+		if (!found) {
+			return null;
+		}
+		return new BezierIntersection(c, c, new BezierPoint(c, t[0]), new BezierPoint(c, t[1]));
+	}
+	
+	public static Set<BezierIntersection> createIntersections(BezierCurve p, BezierCurve q) {
+		return createIntersections(p, q, BezierCurve.getDefaultIntersectionAlgorithm());
+	}
+	
+	public static Set<BezierIntersection> createIntersections(BezierCurve p, BezierCurve q, IntersectionAlgorithm algorithm) {
+		return createIntersections(p, q, algorithm, defaultPairSolve);
+	}
+	
+	/*
+	 * Find the roots on both curves, either by solving the pair in both
+	 * directions or by solving once and inverting q at every point found.
+	 * The roots are then paired one to one, repeatedly taking the closest
+	 * unmatched p and q points until the closest remaining pair is further
+	 * apart than the tolerance.
+	 */
+	public static Set<BezierIntersection> createIntersections(BezierCurve p, BezierCurve q, IntersectionAlgorithm algorithm, PairSolve pairSolve) {
+		return createIntersections(p, q, algorithm, pairSolve, tolerance(p, q));
+	}
+	
+	/*
+	 * Pieces cut from longer curves match with the tolerance of the whole
+	 * curves, passed in as maxDistance
+	 */
+	static Set<BezierIntersection> createIntersections(BezierCurve p, BezierCurve q, double maxDistance) {
+		return createIntersections(p, q, BezierCurve.getDefaultIntersectionAlgorithm(), defaultPairSolve, maxDistance);
+	}
+	
+	/*
+	 * Largest distance between matched points on p and q
+	 */
+	static double tolerance(BezierCurve p, BezierCurve q) {
+		Bounds pBounds = p.getControlBounds();
+		Bounds qBounds = q.getControlBounds();
+		return Math.max(Math.max(pBounds.width(), qBounds.width()), Math.max(pBounds.height(), qBounds.height())) / TOLERABILITY_FACTOR;
+	}
+	
+	private static Set<BezierIntersection> createIntersections(BezierCurve p, BezierCurve q, IntersectionAlgorithm algorithm, PairSolve pairSolve, double maxDistance) {
+		Matching m = LOCAL.get();
+		double[] pRoots = m.pRoots, qRoots = m.qRoots;
+		int pCount, qCount;
+		
+		//Validation exists to check the solve, so it always solves afresh
+		PairCache cache = validatePairSolve ? null : pairCache;
+		RootIsolation isolation = null;
+		RootRefinement refinement = null;
+		if (cache != null) {
+			IntersectionSolver solver = IntersectionSolver.get();
+			isolation = solver.getRootIsolation();
+			refinement = solver.getRootRefinement();
+		}
+		if (cache != null && cache.get(p, q, algorithm, pairSolve, isolation, refinement, pRoots, qRoots, m.counts)) {
+			pCount = m.counts[0];
+			qCount = m.counts[1];
+		} else {
+			pCount = algorithm.intersections(p, q, pRoots);
+			if (pairSolve == PairSolve.INVERSION) {
+				for (int i = 0; i < pCount; i++) {
+					qRoots[i] = q.invert(p.pointX(pRoots[i]), p.pointY(pRoots[i]));
+				}
+				qCount = pCount;
+			} else {
+				qCount = algorithm.intersections(q, p, qRoots);
+			}
+			if (cache != null) {
+				cache.put(p, q, algorithm, pairSolve, isolation, refinement, pRoots, pCount, qRoots, qCount);
+			}
+		}
+		
+		Set<BezierIntersection> intersections = match(p, q, pRoots, pCount, qRoots, qCount, maxDistance, m, true);
+		if (validatePairSolve && pairSolve == PairSolve.INVERSION) {
+			int checkCount = algorithm.intersections(q, p, m.checkRoots);
+			Set<BezierIntersection> check = match(p, q, pRoots, pCount, m.checkRoots, checkCount, maxDistance, m, false);
+			if (!agree(intersections, check)) {
+				validationFailures.incrementAndGet();
+			}
+		}
+		return intersections;
+	}
+	
+	private static Set<BezierIntersection> match(BezierCurve p, BezierCurve q, double[] pRoots, int pCount, double[] qRoots, int qCount, double maxDistance, Matching m, boolean count) {
+		Set<BezierIntersection> intersections = new HashSet<BezierIntersection>();
+		if (pCount == 0 || qCount == 0) {
+			return intersections;
+		}
+		
+		for (int i = 0; i < pCount; i++) {
+			m.px[i] = p.pointX(pRoots[i]);
+			m.py[i] = p.pointY(pRoots[i]);
+			m.pUsed[i] = false;
+		}
+		for (int j = 0; j < qCount; j++) {
+			m.qx[j] = q.pointX(qRoots[j]);
+			m.qy[j] = q.pointY(qRoots[j]);
+			m.qUsed[j] = false;
+		}
+		
+		for (int matched = Math.min(pCount, qCount); matched > 0; matched--) {
+			int bestI = -1, bestJ = -1;
+			double best = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < pCount; i++) {
+				if (m.pUsed[i]) {
+					continue;
+				}
+				for (int j = 0; j < qCount; j++) {
+					if (m.qUsed[j]) {
+						continue;
+					}
+					double dx = m.qx[j] - m.px[i];
+					double dy = m.qy[j] - m.py[i];
+					double d = dx*dx + dy*dy;
+					if (d < best) {
+						best = d;
+						bestI = i;
+						bestJ = j;
+					}
+				}
+			}
+			double residual = Math.sqrt(best);
+			if (bestI < 0 || !(residual <= maxDistance)) {
+				if (count && bestI >= 0 && IntersectionMetrics.isCounting()) {
+					IntersectionMetrics.add(IntersectionMetrics.MATCHES_DROPPED, matched);
+				}
+				break;
+			}
+			m.pUsed[bestI] = true;
+			m.qUsed[bestJ] = true;
+			intersections.add(new BezierIntersection(p, q, new BezierPoint(p, pRoots[bestI]), new BezierPoint(q, qRoots[bestJ]), residual));
+		}
+		
+		return intersections;
+	}
+	
+	/*
+	 * Both solves found the same p roots, so they agree if every crossing has
+	 * a partner at the same p parameter whose q parameter is close enough
+	 */
+	private static boolean agree(Set<BezierIntersection> a, Set<BezierIntersection> b) {
+		if (a.size() != b.size()) {
+			return false;
+		}
+		for (BezierIntersection x : a) {
+			boolean found = false;
+			for (BezierIntersection y : b) {
+				if (x.pIntersect.t == y.pIntersect.t && Math.abs(x.qIntersect.t - y.qIntersect.t) <= VALIDATION_TOLERANCE) {
+					found = true;
+					break;
+				}
+			}
+			if (!found) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/*
+	 * Per-thread scratch space for the matching, sized for the most roots
+	 * either engine reports
+	 */
+	private static final class Matching {
+		final double[] pRoots = new double[IntersectionSolver.MAX_ROOTS];
+		final double[] qRoots = new double[IntersectionSolver.MAX_ROOTS];
+		final double[] checkRoots = new double[IntersectionSolver.MAX_ROOTS];
+		final double[] px = new double[IntersectionSolver.MAX_ROOTS];
+		final double[] py = new double[IntersectionSolver.MAX_ROOTS];
+		final double[] qx = new double[IntersectionSolver.MAX_ROOTS];
+		final double[] qy = new double[IntersectionSolver.MAX_ROOTS];
+		final boolean[] pUsed = new boolean[IntersectionSolver.MAX_ROOTS];
+		final boolean[] qUsed = new boolean[IntersectionSolver.MAX_ROOTS];
+		final int[] counts = new int[2];
+	}
+	
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((p == null) ? 0 : p.hashCode());
+		result = prime * result + ((q == null) ? 0 : q.hashCode());
+		result = prime * result + ((pIntersect == null) ? 0 : pIntersect.hashCode());
+		result = prime * result + ((qIntersect == null) ? 0 : qIntersect.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		BezierIntersection other = (BezierIntersection) obj;
+		if (p == null) {
+			if (other.p != null)
+				return false;
+		} else if (!p.equals(other.p))
+			return false;
+		if (q == null) {
+			if (other.q != null)
+				return false;
+		} else if (!q.equals(other.q))
+			return false;
+		if (pIntersect == null) {
+			if (other.pIntersect != null)
+				return false;
+		} else if (!pIntersect.equals(other.pIntersect))
+			return false;
+		if (qIntersect == null) {
+			if (other.qIntersect != null)
+				return false;
+		} else if (!qIntersect.equals(other.qIntersect))
+			return false;
+		return true;
+	}
+	
+	@Override
+	public String toString() {
+		return "[" + pIntersect + "; " + qIntersect + "]";
+	}
+
+}
@@ -1,3 +1,5 @@
+package knoteditor;
+
 
 public class BezierPoint extends Point {
 	
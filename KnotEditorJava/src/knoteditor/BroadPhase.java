@@ -0,0 +1,155 @@
+package knoteditor;
+
+import java.util.List;
+
+
+/*
+ * Strategies for picking which pairs of curves are worth handing to the exact
+ * Sturm-based intersection test. Curves next to each other in the list share
+ * an endpoint and are never paired, matching the original all-pairs loop.
+ */
+public enum BroadPhase {
+
+	/*
+	 * Every pair (i, j) with j >= i + 2. SVGKnotEditor walks these directly
+	 * rather than materializing the quadratic list.
+	 */
+	BRUTE_FORCE {
+		@Override
+		public PairList candidatePairs(List<BezierCurve> curves) {
+			int n = curves.size();
+			PairList pairs = new PairList(n);
+			for (int i = 0; i < n; i++) {
+				for (int j = i + 2; j < n; j++) {
+					pairs.add(i, j);
+				}
+			}
+			return pairs;
+		}
+	},
+
+	/*
+	 * Sort the tight curve boxes on their left edge and sweep across x,
+	 * keeping only the boxes that are still open. Pairs are emitted only if
+	 * their boxes also overlap in y.
+	 */
+	SWEEP_AND_PRUNE {
+		@Override
+		public PairList candidatePairs(List<BezierCurve> curves) {
+			int n = curves.size();
+			double[] xmin = new double[n];
+			double[] ymin = new double[n];
+			double[] xmax = new double[n];
+			double[] ymax = new double[n];
+			for (int i = 0; i < n; i++) {
+				BezierCurve c = curves.get(i);
+				Bounds bounds = c.getBounds();
+				double pad = tolerancePad(c.getControlBounds());
+				xmin[i] = bounds.xmin - pad;
+				ymin[i] = bounds.ymin - pad;
+				xmax[i] = bounds.xmax + pad;
+				ymax[i] = bounds.ymax + pad;
+			}
+			return sweepAndPrune(n, xmin, ymin, xmax, ymax);
+		}
+	};
+
+	public abstract PairList candidatePairs(List<BezierCurve> curves);
+
+	/*
+	 * Pad each box by the distance BezierIntersection tolerates between
+	 * matched points, so that nothing the brute force path would accept can
+	 * be culled
+	 */
+	static double tolerancePad(double width, double height) {
+		return Math.max(width, height) / BezierIntersection.TOLERABILITY_FACTOR;
+	}
+
+	//The tolerance follows the control box, whatever box is being padded
+	static double tolerancePad(Bounds controlBounds) {
+		return tolerancePad(controlBounds.width(), controlBounds.height());
+	}
+
+	static PairList sweepAndPrune(int n, double[] xmin, double[] ymin, double[] xmax, double[] ymax) {
+		return sweepAndPrune(n, xmin, ymin, xmax, ymax, null);
+	}
+
+	/*
+	 * With owner set, box i belongs to curve owner[i], boxes are only paired
+	 * if their curves are at least two apart, and owners must not decrease
+	 * with the box index
+	 */
+	static PairList sweepAndPrune(int n, double[] xmin, double[] ymin, double[] xmax, double[] ymax, int[] owner) {
+		PairList pairs = new PairList(n);
+
+		int[] order = new int[n];
+		for (int i = 0; i < n; i++) {
+			order[i] = i;
+		}
+		sortByKey(order, xmin);
+
+		int[] active = new int[16];
+		int activeCount = 0;
+		for (int k = 0; k < n; k++) {
+			int i = order[k];
+
+			//Drop every open box that ends before this one starts, and test
+			//the rest against it
+			int kept = 0;
+			for (int a = 0; a < activeCount; a++) {
+				int j = active[a];
+				if (xmax[j] < xmin[i]) {
+					continue;
+				}
+				active[kept++] = j;
+				int apart = owner == null ? i - j : owner[i] - owner[j];
+				if (ymin[j] <= ymax[i] && ymin[i] <= ymax[j] && Math.abs(apart) >= 2) {
+					pairs.add(Math.min(i, j), Math.max(i, j));
+				}
+			}
+			activeCount = kept;
+
+			if (activeCount == active.length) {
+				int[] grown = new int[2 * active.length];
+				System.arraycopy(active, 0, grown, 0, activeCount);
+				active = grown;
+			}
+			active[activeCount++] = i;
+		}
+
+		return pairs;
+	}
+
+	/*
+	 * Stable merge sort of indices by a primitive key, so the candidate order
+	 * (and everything downstream of it) is deterministic
+	 */
+	static void sortByKey(int[] indices, double[] key) {
+		int n = indices.length;
+		int[] from = indices;
+		int[] to = new int[n];
+		for (int width = 1; width < n; width *= 2) {
+			for (int lo = 0; lo < n; lo += 2 * width) {
+				int mid = Math.min(lo + width, n);
+				int hi = Math.min(lo + 2 * width, n);
+				int left = lo, right = mid, out = lo;
+				while (left < mid && right < hi) {
+					to[out++] = key[from[right]] < key[from[left]] ? from[right++] : from[left++];
+				}
+				while (left < mid) {
+					to[out++] = from[left++];
+				}
+				while (right < hi) {
+					to[out++] = from[right++];
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		if (from != indices) {
+			System.arraycopy(from, 0, indices, 0, n);
+		}
+	}
+
+}
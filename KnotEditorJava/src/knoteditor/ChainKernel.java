@@ -0,0 +1,56 @@
+package knoteditor;
+
+
+/*
+ * Evaluates Sturm chains at many points in one call and counts, for each
+ * point, how many neighbouring polynomials of its chain agree in sign.
+ *
+ * Chains are stored flat. Coefficient d of polynomial i of chain c, lowest
+ * degree first, is at c * CHAIN + i * ROW + d, and its degree is at
+ * c * ROW + i. Polynomial 0 to chainSizes[c] of each chain are used, and
+ * their coefficients above the degree must be zero.
+ */
+public abstract class ChainKernel {
+
+	//Coefficients per polynomial and per chain
+	public static final int ROW = 10;
+	public static final int CHAIN = ROW * ROW;
+
+	public static final ChainKernel SCALAR = new ScalarChainKernel();
+
+	//Kernel built on jdk.incubator.vector, or null if this runtime cannot load it
+	public static final ChainKernel VECTOR = loadVector();
+
+	private static volatile ChainKernel defaultKernel = "scalar".equals(System.getProperty("knoteditor.kernel")) || VECTOR == null ? SCALAR : VECTOR;
+
+	/*
+	 * The vector kernel is compiled separately and needs the incubator module
+	 * at run time (--add-modules jdk.incubator.vector), so it is only ever
+	 * touched reflectively
+	 */
+	private static ChainKernel loadVector() {
+		try {
+			return (ChainKernel) Class.forName("knoteditor.VectorChainKernel").newInstance();
+		} catch (Exception e) {
+			return null;
+		} catch (LinkageError e) {
+			return null;
+		}
+	}
+
+	public static ChainKernel getDefault() {
+		return defaultKernel;
+	}
+
+	public static void setDefault(ChainKernel kernel) {
+		defaultKernel = kernel;
+	}
+
+	/*
+	 * For each of the first count points, evaluate chain pointChains[k] at
+	 * points[k] and write its sign agreement count to agreements[k]. The
+	 * results must match the scalar kernel bit for bit.
+	 */
+	public abstract void signAgreements(double[] chains, int[] degrees, int[] chainSizes, double[] points, int[] pointChains, int count, int[] agreements);
+
+}
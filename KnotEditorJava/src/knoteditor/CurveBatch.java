@@ -0,0 +1,244 @@
+package knoteditor;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/*
+ * Flat store for large sets of cubic curves. Every quantity is kept in its
+ * own column of doubles, addressed by curve index, instead of one object per
+ * curve. Columns are laid out one after the other in a single DoubleBuffer,
+ * so column c of curve i lives at c * capacity + i.
+ */
+public class CurveBatch {
+
+	//control points
+	public static final int X1 = 0, Y1 = 1, CX1 = 2, CY1 = 3, CX2 = 4, CY2 = 5, X2 = 6, Y2 = 7;
+
+	//coefficients of parametric form
+	public static final int A3 = 8, A2 = 9, A1 = 10, A0 = 11, B3 = 12, B2 = 13, B1 = 14, B0 = 15;
+
+	//control bounds
+	public static final int XMIN = 16, YMIN = 17, XMAX = 18, YMAX = 19;
+
+	public static final int COLUMNS = 20;
+
+	private DoubleBuffer data;
+	private int capacity;
+	private int size;
+
+	//Implicit forms of all curves, ImplicitForm.SIZE coefficients each,
+	//built on the first implicit solve and dropped when a curve is added
+	private volatile double[] implicitForms;
+
+	public CurveBatch() {
+		this(16);
+	}
+
+	public CurveBatch(int capacity) {
+		this.capacity = Math.max(capacity, 1);
+		data = DoubleBuffer.allocate(COLUMNS * this.capacity);
+	}
+
+	/*
+	 * Wrap existing columns holding exactly size curves
+	 */
+	CurveBatch(DoubleBuffer data, int size) {
+		this.data = data;
+		this.capacity = size;
+		this.size = size;
+	}
+
+	public static CurveBatch of(List<BezierCurve> curves) {
+		CurveBatch batch = new CurveBatch(curves.size());
+		for (BezierCurve c : curves) {
+			batch.add(c);
+		}
+		return batch;
+	}
+
+	public int add(BezierCurve c) {
+		return add(c.x1, c.y1, c.cx1, c.cy1, c.cx2, c.cy2, c.x2, c.y2);
+	}
+
+	/*
+	 * Append a curve and return its index. Adding to a batch that is full,
+	 * including one that wraps a mapped file, moves it to a larger heap buffer.
+	 */
+	public int add(double x1, double y1, double cx1, double cy1, double cx2, double cy2, double x2, double y2) {
+		if (size == capacity) {
+			grow(Math.max(2 * capacity, 16));
+		}
+		int i = size++;
+		implicitForms = null;
+		set(X1, i, x1);
+		set(Y1, i, y1);
+		set(CX1, i, cx1);
+		set(CY1, i, cy1);
+		set(CX2, i, cx2);
+		set(CY2, i, cy2);
+		set(X2, i, x2);
+		set(Y2, i, y2);
+		set(A3, i, -x1 + 3.0*cx1 - 3.0*cx2 + x2);
+		set(A2, i, 3.0*x1 - 6.0*cx1 + 3.0*cx2);
+		set(A1, i, -3.0*x1 + 3.0*cx1);
+		set(A0, i, x1);
+		set(B3, i, -y1 + 3.0*cy1 - 3.0*cy2 + y2);
+		set(B2, i, 3.0*y1 - 6.0*cy1 + 3.0*cy2);
+		set(B1, i, -3.0*y1 + 3.0*cy1);
+		set(B0, i, y1);
+		set(XMIN, i, Math.min(Math.min(x1, x2), Math.min(cx1, cx2)));
+		set(YMIN, i, Math.min(Math.min(y1, y2), Math.min(cy1, cy2)));
+		set(XMAX, i, Math.max(Math.max(x1, x2), Math.max(cx1, cx2)));
+		set(YMAX, i, Math.max(Math.max(y1, y2), Math.max(cy1, cy2)));
+		return i;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public double value(int column, int i) {
+		return data.get(column * capacity + i);
+	}
+
+	private void set(int column, int i, double value) {
+		data.put(column * capacity + i, value);
+	}
+
+	private void grow(int newCapacity) {
+		DoubleBuffer grown = DoubleBuffer.allocate(COLUMNS * newCapacity);
+		for (int column = 0; column < COLUMNS; column++) {
+			DoubleBuffer src = data.duplicate();
+			src.limit(column * capacity + size);
+			src.position(column * capacity);
+			grown.position(column * newCapacity);
+			grown.put(src);
+		}
+		grown.clear();
+		data = grown;
+		capacity = newCapacity;
+	}
+
+	/*
+	 * The backing buffer, trimmed so that its capacity equals its size
+	 */
+	DoubleBuffer columns() {
+		if (capacity != size) {
+			grow(size);
+		}
+		return data.duplicate();
+	}
+
+	public BezierCurve get(int i) {
+		return new BezierCurve(value(X1, i), value(Y1, i), value(CX1, i), value(CY1, i), value(CX2, i), value(CY2, i), value(X2, i), value(Y2, i));
+	}
+
+	public List<BezierCurve> toList() {
+		List<BezierCurve> curves = new ArrayList<BezierCurve>(size);
+		for (int i = 0; i < size; i++) {
+			curves.add(get(i));
+		}
+		return curves;
+	}
+
+	public double pointX(int i, double t) {
+		return value(A0, i) + t*(value(A1, i) + t*(value(A2, i) + t*value(A3, i)));
+	}
+
+	public double pointY(int i, double t) {
+		return value(B0, i) + t*(value(B1, i) + t*(value(B2, i) + t*value(B3, i)));
+	}
+
+	/*
+	 * Evaluate every curve in the batch at the same t, one column at a time
+	 */
+	public void pointsAt(double t, double[] x, double[] y) {
+		int a3 = A3 * capacity, a2 = A2 * capacity, a1 = A1 * capacity, a0 = A0 * capacity;
+		int b3 = B3 * capacity, b2 = B2 * capacity, b1 = B1 * capacity, b0 = B0 * capacity;
+		for (int i = 0; i < size; i++) {
+			x[i] = data.get(a0 + i) + t*(data.get(a1 + i) + t*(data.get(a2 + i) + t*data.get(a3 + i)));
+			y[i] = data.get(b0 + i) + t*(data.get(b1 + i) + t*(data.get(b2 + i) + t*data.get(b3 + i)));
+		}
+	}
+
+	public Bounds getControlBounds(int i) {
+		return new Bounds(value(XMIN, i), value(YMIN, i), value(XMAX, i), value(YMAX, i));
+	}
+
+	/*
+	 * The smallest box around curve i, as BezierCurve.getBounds. It is not
+	 * stored, so the file format keeps only the control bounds.
+	 */
+	public Bounds getBounds(int i) {
+		double[] t = new double[2];
+		double x1 = value(X1, i), x2 = value(X2, i);
+		double xmin = Math.min(x1, x2), xmax = Math.max(x1, x2);
+		for (int k = BezierCurve.extrema(value(A3, i), value(A2, i), value(A1, i), t, 0) - 1; k >= 0; k--) {
+			double x = pointX(i, t[k]);
+			xmin = Math.min(xmin, x);
+			xmax = Math.max(xmax, x);
+		}
+		double y1 = value(Y1, i), y2 = value(Y2, i);
+		double ymin = Math.min(y1, y2), ymax = Math.max(y1, y2);
+		for (int k = BezierCurve.extrema(value(B3, i), value(B2, i), value(B1, i), t, 0) - 1; k >= 0; k--) {
+			double y = pointY(i, t[k]);
+			ymin = Math.min(ymin, y);
+			ymax = Math.max(ymax, y);
+		}
+		return new Bounds(xmin, ymin, xmax, ymax);
+	}
+
+	/*
+	 * Sweep and prune with the same boxes, padding and adjacency rules as
+	 * BroadPhase.SWEEP_AND_PRUNE: tight boxes, padded by the tolerance of the
+	 * control bounds columns
+	 */
+	public PairList candidatePairs() {
+		double[] xmin = new double[size];
+		double[] ymin = new double[size];
+		double[] xmax = new double[size];
+		double[] ymax = new double[size];
+		for (int i = 0; i < size; i++) {
+			Bounds bounds = getBounds(i);
+			double pad = BroadPhase.tolerancePad(value(XMAX, i) - value(XMIN, i), value(YMAX, i) - value(YMIN, i));
+			xmin[i] = bounds.xmin - pad;
+			ymin[i] = bounds.ymin - pad;
+			xmax[i] = bounds.xmax + pad;
+			ymax[i] = bounds.ymax + pad;
+		}
+		return BroadPhase.sweepAndPrune(size, xmin, ymin, xmax, ymax);
+	}
+
+	/*
+	 * Substitute curve i into the implicit form of curve j
+	 */
+	void intersectionPolynomial(int i, int j, double[] out) {
+		ImplicitForm.substitute(value(A3, i), value(A2, i), value(A1, i), value(A0, i), value(B3, i), value(B2, i), value(B1, i), value(B0, i), implicitForms(), j * ImplicitForm.SIZE, out);
+	}
+
+	/*
+	 * Every curve is the second curve of many candidate pairs, so its
+	 * implicit form is computed once for the whole batch rather than per
+	 * pair. The first solver to get here builds the table while the others
+	 * wait for it.
+	 */
+	private double[] implicitForms() {
+		double[] u = implicitForms;
+		if (u == null) {
+			synchronized (this) {
+				u = implicitForms;
+				if (u == null) {
+					u = new double[ImplicitForm.SIZE * size];
+					for (int j = 0; j < size; j++) {
+						ImplicitForm.compute(value(A3, j), value(A2, j), value(A1, j), value(A0, j), value(B3, j), value(B2, j), value(B1, j), value(B0, j), u, j * ImplicitForm.SIZE);
+					}
+					implicitForms = u;
+				}
+			}
+		}
+		return u;
+	}
+
+}
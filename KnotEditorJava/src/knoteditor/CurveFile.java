@@ -0,0 +1,224 @@
+package knoteditor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/*
+ * Compact binary file for a curve set, so repeated runs on the same knot
+ * can skip SVG parsing entirely. Everything is little endian:
+ *
+ *   int magic, int version, int flags, int reserved
+ *   long curve count n, long intersection count k
+ *   double[CurveBatch.COLUMNS][n]    the columns of a CurveBatch, in order
+ *   k * (int p, int q, double pt, double qt)
+ *
+ * The columns are already in CurveBatch layout, so open() maps the file and
+ * hands the mapped doubles to a CurveBatch without copying them.
+ */
+public class CurveFile {
+
+	private static final int MAGIC = 0x544f4e4b; //"KNOT"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+
+	//Set when the intersection records hold the full result of a pass, even
+	//if that result is empty
+	private static final int FLAG_INTERSECTIONS = 1;
+	private static final int INTERSECTION_SIZE = 24;
+
+	//Doubles per write when streaming the columns out
+	private static final int WRITE_CHUNK = 8192;
+
+	private final CurveBatch curves;
+	private final boolean hasIntersections;
+	private final ByteBuffer intersections;
+	private final int intersectionCount;
+
+	private CurveFile(CurveBatch curves, boolean hasIntersections, ByteBuffer intersections, int intersectionCount) {
+		this.curves = curves;
+		this.hasIntersections = hasIntersections;
+		this.intersections = intersections;
+		this.intersectionCount = intersectionCount;
+	}
+
+	public CurveBatch getCurves() {
+		return curves;
+	}
+
+	public boolean hasIntersections() {
+		return hasIntersections;
+	}
+
+	public int getIntersectionCount() {
+		return intersectionCount;
+	}
+
+	public int getIntersectionP(int k) {
+		return intersections.getInt(k * INTERSECTION_SIZE);
+	}
+
+	public int getIntersectionQ(int k) {
+		return intersections.getInt(k * INTERSECTION_SIZE + 4);
+	}
+
+	public double getIntersectionPT(int k) {
+		return intersections.getDouble(k * INTERSECTION_SIZE + 8);
+	}
+
+	public double getIntersectionQT(int k) {
+		return intersections.getDouble(k * INTERSECTION_SIZE + 16);
+	}
+
+	/*
+	 * Rebuild the stored intersections against curves, which must be the
+	 * curve list the file was written from, in the same order
+	 */
+	public Set<BezierIntersection> getIntersections(List<BezierCurve> curves) {
+		Set<BezierIntersection> result = new LinkedHashSet<BezierIntersection>();
+		for (int k = 0; k < intersectionCount; k++) {
+			result.add(BezierIntersection.fromParameters(curves.get(getIntersectionP(k)), curves.get(getIntersectionQ(k)), getIntersectionPT(k), getIntersectionQT(k)));
+		}
+		return result;
+	}
+
+	public static CurveFile open(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			//A single mapping and the int positions below stop at 2 GB
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(file + " is too large to map: " + channel.size() + " bytes");
+			}
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			mapped.order(ByteOrder.LITTLE_ENDIAN);
+
+			if (mapped.limit() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+				throw new IOException(file + " is not a curve file");
+			}
+			if (mapped.getInt(4) != VERSION) {
+				throw new IOException(file + " has unsupported version " + mapped.getInt(4));
+			}
+			long n = mapped.getLong(16);
+			long k = mapped.getLong(24);
+			//Counts are checked against the file size before multiplying, so a
+			//corrupt header cannot overflow the end positions
+			if (n < 0 || k < 0 || n > mapped.limit() / (8L * CurveBatch.COLUMNS) || k > mapped.limit() / INTERSECTION_SIZE) {
+				throw new IOException(file + " is truncated or has a corrupt header");
+			}
+			long columnsEnd = HEADER_SIZE + 8L * CurveBatch.COLUMNS * n;
+			if (columnsEnd + INTERSECTION_SIZE * k > mapped.limit()) {
+				throw new IOException(file + " is truncated");
+			}
+
+			mapped.position(HEADER_SIZE);
+			mapped.limit((int) columnsEnd);
+			DoubleBuffer columns = mapped.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+			mapped.limit((int) (columnsEnd + INTERSECTION_SIZE * k));
+			mapped.position((int) columnsEnd);
+			ByteBuffer intersections = mapped.slice().order(ByteOrder.LITTLE_ENDIAN);
+			//Records are checked once here so getIntersections can trust them
+			for (int i = 0; i < k; i++) {
+				int p = intersections.getInt(i * INTERSECTION_SIZE);
+				int q = intersections.getInt(i * INTERSECTION_SIZE + 4);
+				double pt = intersections.getDouble(i * INTERSECTION_SIZE + 8);
+				double qt = intersections.getDouble(i * INTERSECTION_SIZE + 16);
+				if (p < 0 || p >= n || q < 0 || q >= n || !(pt >= 0 && pt <= 1) || !(qt >= 0 && qt <= 1)) {
+					throw new IOException(file + " has a corrupt intersection record " + i);
+				}
+			}
+
+			boolean hasIntersections = (mapped.getInt(8) & FLAG_INTERSECTIONS) != 0;
+			return new CurveFile(new CurveBatch(columns, (int) n), hasIntersections, intersections, (int) k);
+		} finally {
+			raf.close();
+		}
+	}
+
+	public static void write(File file, CurveBatch curves) throws IOException {
+		write(file, curves, 0, new int[0], new int[0], new double[0], new double[0]);
+	}
+
+	public static void write(File file, List<BezierCurve> curves, Set<BezierIntersection> intersections) throws IOException {
+		Map<BezierCurve, Integer> indices = new IdentityHashMap<BezierCurve, Integer>();
+		for (int i = 0; i < curves.size(); i++) {
+			indices.put(curves.get(i), i);
+		}
+		int[] p = new int[intersections.size()];
+		int[] q = new int[intersections.size()];
+		double[] pt = new double[intersections.size()];
+		double[] qt = new double[intersections.size()];
+		int k = 0;
+		for (BezierIntersection intersection : intersections) {
+			p[k] = index(indices, intersection.p, intersection);
+			q[k] = index(indices, intersection.q, intersection);
+			pt[k] = intersection.pIntersect.t;
+			qt[k] = intersection.qIntersect.t;
+			k++;
+		}
+		write(file, CurveBatch.of(curves), FLAG_INTERSECTIONS, p, q, pt, qt);
+	}
+
+	private static int index(Map<BezierCurve, Integer> indices, BezierCurve c, BezierIntersection intersection) {
+		Integer i = indices.get(c);
+		if (i == null) {
+			throw new IllegalArgumentException("intersection of a curve that is not in the list: " + intersection);
+		}
+		return i;
+	}
+
+	private static void write(File file, CurveBatch curves, int flags, int[] p, int[] q, double[] pt, double[] qt) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(0);
+			header.putLong(curves.size()).putLong(p.length);
+			header.flip();
+			writeFully(channel, header);
+
+			DoubleBuffer columns = curves.columns();
+			ByteBuffer chunk = ByteBuffer.allocate(8 * WRITE_CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+			while (columns.hasRemaining()) {
+				chunk.clear();
+				DoubleBuffer doubles = chunk.asDoubleBuffer();
+				DoubleBuffer slice = columns.duplicate();
+				slice.limit(Math.min(columns.limit(), columns.position() + WRITE_CHUNK));
+				doubles.put(slice);
+				columns.position(slice.position());
+				chunk.limit(8 * doubles.position());
+				writeFully(channel, chunk);
+			}
+
+			ByteBuffer records = ByteBuffer.allocate(INTERSECTION_SIZE * p.length).order(ByteOrder.LITTLE_ENDIAN);
+			for (int k = 0; k < p.length; k++) {
+				records.putInt(p[k]).putInt(q[k]).putDouble(pt[k]).putDouble(qt[k]);
+			}
+			records.flip();
+			writeFully(channel, records);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+}
@@ -0,0 +1,286 @@
+package knoteditor;
+
+import java.awt.geom.AffineTransform;
+
+import org.apache.batik.parser.ParseException;
+import org.apache.batik.parser.PathHandler;
+
+
+/*
+ * Turns the commands of an SVG path straight into cubic BezierCurves for a
+ * sink, without building an intermediate Shape. Lines and quadratics are
+ * degree elevated to exact cubics, arcs are approximated by cubics, and
+ * closing a subpath emits the closing line. Every control point is mapped
+ * through the current transform on the way out.
+ */
+public class CurvePathHandler implements PathHandler {
+
+	private final CurveSink sink;
+	private AffineTransform transform = new AffineTransform();
+	private final double[] controlPoints = new double[8];
+
+	//current point, start of the current subpath, and the last control
+	//point of the previous cubic or quadratic for smooth curveto reflection
+	private double currentX, currentY;
+	private double startX, startY;
+	private double controlX, controlY;
+	private boolean lastWasCubic, lastWasQuadratic;
+
+	public CurvePathHandler(CurveSink sink) {
+		this.sink = sink;
+	}
+
+	/*
+	 * Transform from path coordinates to output coordinates, applied to the
+	 * paths parsed from now on
+	 */
+	public void setTransform(AffineTransform transform) {
+		this.transform = transform;
+	}
+
+	@Override
+	public void startPath() throws ParseException {
+		currentX = currentY = 0.0;
+		startX = startY = 0.0;
+		lastWasCubic = lastWasQuadratic = false;
+		sink.startPath();
+	}
+
+	@Override
+	public void endPath() throws ParseException {
+		sink.endPath();
+	}
+
+	@Override
+	public void movetoRel(float x, float y) throws ParseException {
+		moveto(currentX + x, currentY + y);
+	}
+
+	@Override
+	public void movetoAbs(float x, float y) throws ParseException {
+		moveto(x, y);
+	}
+
+	@Override
+	public void closePath() throws ParseException {
+		line(startX, startY);
+	}
+
+	@Override
+	public void linetoRel(float x, float y) throws ParseException {
+		line(currentX + x, currentY + y);
+	}
+
+	@Override
+	public void linetoAbs(float x, float y) throws ParseException {
+		line(x, y);
+	}
+
+	@Override
+	public void linetoHorizontalRel(float x) throws ParseException {
+		line(currentX + x, currentY);
+	}
+
+	@Override
+	public void linetoHorizontalAbs(float x) throws ParseException {
+		line(x, currentY);
+	}
+
+	@Override
+	public void linetoVerticalRel(float y) throws ParseException {
+		line(currentX, currentY + y);
+	}
+
+	@Override
+	public void linetoVerticalAbs(float y) throws ParseException {
+		line(currentX, y);
+	}
+
+	@Override
+	public void curvetoCubicRel(float x1, float y1, float x2, float y2, float x, float y) throws ParseException {
+		cubic(currentX + x1, currentY + y1, currentX + x2, currentY + y2, currentX + x, currentY + y);
+	}
+
+	@Override
+	public void curvetoCubicAbs(float x1, float y1, float x2, float y2, float x, float y) throws ParseException {
+		cubic(x1, y1, x2, y2, x, y);
+	}
+
+	@Override
+	public void curvetoCubicSmoothRel(float x2, float y2, float x, float y) throws ParseException {
+		smoothCubic(currentX + x2, currentY + y2, currentX + x, currentY + y);
+	}
+
+	@Override
+	public void curvetoCubicSmoothAbs(float x2, float y2, float x, float y) throws ParseException {
+		smoothCubic(x2, y2, x, y);
+	}
+
+	@Override
+	public void curvetoQuadraticRel(float x1, float y1, float x, float y) throws ParseException {
+		quadratic(currentX + x1, currentY + y1, currentX + x, currentY + y);
+	}
+
+	@Override
+	public void curvetoQuadraticAbs(float x1, float y1, float x, float y) throws ParseException {
+		quadratic(x1, y1, x, y);
+	}
+
+	@Override
+	public void curvetoQuadraticSmoothRel(float x, float y) throws ParseException {
+		smoothQuadratic(currentX + x, currentY + y);
+	}
+
+	@Override
+	public void curvetoQuadraticSmoothAbs(float x, float y) throws ParseException {
+		smoothQuadratic(x, y);
+	}
+
+	@Override
+	public void arcRel(float rx, float ry, float xAxisRotation, boolean largeArcFlag, boolean sweepFlag, float x, float y) throws ParseException {
+		arc(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, currentX + x, currentY + y);
+	}
+
+	@Override
+	public void arcAbs(float rx, float ry, float xAxisRotation, boolean largeArcFlag, boolean sweepFlag, float x, float y) throws ParseException {
+		arc(rx, ry, xAxisRotation, largeArcFlag, sweepFlag, x, y);
+	}
+
+	private void moveto(double x, double y) {
+		currentX = startX = x;
+		currentY = startY = y;
+		lastWasCubic = lastWasQuadratic = false;
+	}
+
+	/*
+	 * A line as a cubic with its control points at the thirds
+	 */
+	private void line(double x, double y) {
+		if (x == currentX && y == currentY) {
+			lastWasCubic = lastWasQuadratic = false;
+			return;
+		}
+		cubic(currentX + (x - currentX) / 3.0, currentY + (y - currentY) / 3.0, x + (currentX - x) / 3.0, y + (currentY - y) / 3.0, x, y);
+		lastWasCubic = false;
+	}
+
+	/*
+	 * Degree elevation of a quadratic: each cubic control point lies two
+	 * thirds of the way from an end point to the quadratic control point
+	 */
+	private void quadratic(double qx, double qy, double x, double y) {
+		cubic(currentX + 2.0 / 3.0 * (qx - currentX), currentY + 2.0 / 3.0 * (qy - currentY), x + 2.0 / 3.0 * (qx - x), y + 2.0 / 3.0 * (qy - y), x, y);
+		controlX = qx;
+		controlY = qy;
+		lastWasCubic = false;
+		lastWasQuadratic = true;
+	}
+
+	private void smoothQuadratic(double x, double y) {
+		double qx = currentX, qy = currentY;
+		if (lastWasQuadratic) {
+			qx = 2.0*currentX - controlX;
+			qy = 2.0*currentY - controlY;
+		}
+		quadratic(qx, qy, x, y);
+	}
+
+	private void smoothCubic(double cx2, double cy2, double x, double y) {
+		double cx1 = currentX, cy1 = currentY;
+		if (lastWasCubic) {
+			cx1 = 2.0*currentX - controlX;
+			cy1 = 2.0*currentY - controlY;
+		}
+		cubic(cx1, cy1, cx2, cy2, x, y);
+	}
+
+	private void cubic(double cx1, double cy1, double cx2, double cy2, double x, double y) {
+		double[] c = controlPoints;
+		c[0] = currentX;
+		c[1] = currentY;
+		c[2] = cx1;
+		c[3] = cy1;
+		c[4] = cx2;
+		c[5] = cy2;
+		c[6] = x;
+		c[7] = y;
+		transform.transform(c, 0, c, 0, 4);
+		sink.curve(new BezierCurve(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7]));
+		currentX = x;
+		currentY = y;
+		controlX = cx2;
+		controlY = cy2;
+		lastWasCubic = true;
+		lastWasQuadratic = false;
+	}
+
+	/*
+	 * Convert an SVG elliptical arc to cubics of at most a quarter turn each,
+	 * following the endpoint to center conversion in the SVG specification
+	 */
+	private void arc(double rx, double ry, double xAxisRotation, boolean largeArcFlag, boolean sweepFlag, double x, double y) {
+		if (x == currentX && y == currentY) {
+			return;
+		}
+		rx = Math.abs(rx);
+		ry = Math.abs(ry);
+		if (rx == 0.0 || ry == 0.0) {
+			//A zero radius arc is a straight line
+			line(x, y);
+			return;
+		}
+
+		double phi = Math.toRadians(xAxisRotation);
+		double cosPhi = Math.cos(phi), sinPhi = Math.sin(phi);
+		double dx2 = (currentX - x) / 2.0, dy2 = (currentY - y) / 2.0;
+		double x1p = cosPhi*dx2 + sinPhi*dy2;
+		double y1p = -sinPhi*dx2 + cosPhi*dy2;
+
+		//Scale up radii that are too small to reach the end point
+		double lambda = (x1p*x1p) / (rx*rx) + (y1p*y1p) / (ry*ry);
+		if (lambda > 1.0) {
+			rx *= Math.sqrt(lambda);
+			ry *= Math.sqrt(lambda);
+		}
+
+		double num = rx*rx*ry*ry - rx*rx*y1p*y1p - ry*ry*x1p*x1p;
+		double den = rx*rx*y1p*y1p + ry*ry*x1p*x1p;
+		double coef = Math.sqrt(Math.max(0.0, num / den));
+		if (largeArcFlag == sweepFlag) {
+			coef = -coef;
+		}
+		double cxp = coef * rx * y1p / ry;
+		double cyp = -coef * ry * x1p / rx;
+		double cx = cosPhi*cxp - sinPhi*cyp + (currentX + x) / 2.0;
+		double cy = sinPhi*cxp + cosPhi*cyp + (currentY + y) / 2.0;
+
+		double theta = Math.atan2((y1p - cyp) / ry, (x1p - cxp) / rx);
+		double delta = Math.atan2((-y1p - cyp) / ry, (-x1p - cxp) / rx) - theta;
+		if (sweepFlag && delta < 0.0) {
+			delta += 2.0 * Math.PI;
+		} else if (!sweepFlag && delta > 0.0) {
+			delta -= 2.0 * Math.PI;
+		}
+
+		int segments = (int) Math.ceil(Math.abs(delta) / (Math.PI / 2.0) - 1e-9);
+		double step = delta / segments;
+		double k = 4.0 / 3.0 * Math.tan(step / 4.0);
+		for (int i = 0; i < segments; i++) {
+			double a1 = theta + i*step;
+			double a2 = a1 + step;
+			double cos1 = Math.cos(a1), sin1 = Math.sin(a1);
+			double cos2 = Math.cos(a2), sin2 = Math.sin(a2);
+			//Control points on the unit circle, then onto the ellipse
+			double ex1 = cos1 - k*sin1, ey1 = sin1 + k*cos1;
+			double ex2 = cos2 + k*sin2, ey2 = sin2 - k*cos2;
+			double endX = i == segments - 1 ? x : cx + rx*cosPhi*cos2 - ry*sinPhi*sin2;
+			double endY = i == segments - 1 ? y : cy + rx*sinPhi*cos2 + ry*cosPhi*sin2;
+			cubic(cx + rx*cosPhi*ex1 - ry*sinPhi*ey1, cy + rx*sinPhi*ex1 + ry*cosPhi*ey1,
+					cx + rx*cosPhi*ex2 - ry*sinPhi*ey2, cy + rx*sinPhi*ex2 + ry*cosPhi*ey2,
+					endX, endY);
+		}
+		//Arcs do not take part in smooth curveto reflection
+		lastWasCubic = false;
+	}
+
+}
@@ -0,0 +1,14 @@
+package knoteditor;
+
+/*
+ * Receives curves as they are produced by a loader, one path at a time
+ */
+public interface CurveSink {
+
+	void startPath();
+
+	void curve(BezierCurve c);
+
+	void endPath();
+
+}
@@ -0,0 +1,129 @@
+package knoteditor;
+
+/*
+ * Implicit form f(x, y) = 0 of a cubic given by its parametric coefficients
+ * x(t) = a3 t^3 + a2 t^2 + a1 t + a0 and y(t) = b3 t^3 + b2 t^2 + b1 t + b0.
+ * The ten coefficients are stored in the order uxxx, uxxy, uxyy, uyyy, uxx,
+ * uxy, uyy, ux, uy, u0.
+ *
+ * The cubic formula vanishes identically for curves that are really
+ * quadratics or lines, such as degree elevated SVG segments, so those get
+ * the implicit form of their true degree instead.
+ *
+ * See http://www.mare.ee/indrek/misc/2d.pdf for details on math
+ */
+public final class ImplicitForm {
+
+	public static final int SIZE = 10;
+
+	//Leading coefficients this small relative to the rest are rounding noise
+	//from degree elevation
+	private static final double DEGENERACY_TOLERANCE = 1e-12;
+
+	private ImplicitForm() {
+	}
+
+	public static boolean isCubic(double a3, double a2, double a1, double a0, double b3, double b2, double b1, double b0) {
+		double xScale = Math.abs(a3) + Math.abs(a2) + Math.abs(a1) + Math.abs(a0);
+		double yScale = Math.abs(b3) + Math.abs(b2) + Math.abs(b1) + Math.abs(b0);
+		return Math.abs(a3) > DEGENERACY_TOLERANCE * xScale || Math.abs(b3) > DEGENERACY_TOLERANCE * yScale;
+	}
+
+	public static void compute(double a3, double a2, double a1, double a0, double b3, double b2, double b1, double b0, double[] u, int offset) {
+		if (!isCubic(a3, a2, a1, a0, b3, b2, b1, b0)) {
+			computeQuadratic(a2, a1, a0, b2, b1, b0, u, offset);
+			return;
+		}
+
+		double uxxx = b3*b3*b3;
+		double uxxy = -3.0*a3*b3*b3;
+		double uxyy = 3.0*b3*a3*a3;
+		double uyyy = -a3*a3*a3;
+		double uxx = -3.0*a3*b1*b2*b3 + a1*b2*b3*b3 - a2*b3*b2*b2 + 2.0*a2*b1*b3*b3 + 3.0*a3*b0*b3*b3 + a3*b2*b2*b2 - 3.0*a0*b3*b3*b3;
+		double uxy = a1*a3*b2*b3 - a2*a3*b1*b3 - 6.0*b0*b3*a3*a3 - 3.0*a1*a2*b3*b3 - 2.0*a2*a3*b2*b2 + 2.0*b2*b3*a2*a2 + 3.0*b1*b2*a3*a3 + 6.0*a0*a3*b3*b3;
+		double uyy = 3.0*a1*a2*a3*b3 + a3*b2*a2*a2 - a2*b1*a3*a3 - 3.0*a0*b3*a3*a3 - 2.0*a1*b2*a3*a3 - b3*a2*a2*a2 + 3.0*b0*a3*a3*a3;
+		double ux = a2*a3*b0*b1*b3 - a1*a2*b1*b2*b3 - a1*a3*b0*b2*b3 + 6.0*a0*a3*b1*b2*b3 + b1*a1*a1*b3*b3 + b3*a2*a2*b1*b1 + 3.0*b3*a3*a3*b0*b0 + a1*a3*b1*b2*b2 - a2*a3*b2*b1*b1 - 6.0*a0*a3*b0*b3*b3 - 4.0*a0*a2*b1*b3*b3 - 3.0*b0*b1*b2*a3*a3 - 2.0*a0*a1*b2*b3*b3 - 2.0*a1*a3*b3*b1*b1 - 2.0*b0*b2*b3*a2*a2 + 2.0*a0*a2*b3*b2*b2 + 2.0*a2*a3*b0*b2*b2 + 3.0*a1*a2*b0*b3*b3 + a3*a3*b1*b1*b1 + 3.0*a0*a0*b3*b3*b3 - 2.0*a0*a3*b2*b2*b2;
+		double uy = a0*a2*a3*b1*b3 + a1*a2*a3*b1*b2 - a0*a1*a3*b2*b3 - 6.0*a1*a2*a3*b0*b3 - a1*a1*a1*b3*b3 - 3.0*a3*a3*a3*b0*b0 - a1*a3*a3*b1*b1 - a3*a1*a1*b2*b2 - 3.0*a3*a0*a0*b3*b3 + a2*b2*b3*a1*a1 - a1*b1*b3*a2*a2 - 3.0*a0*b1*b2*a3*a3 - 2.0*a0*b2*b3*a2*a2 - 2.0*a3*b0*b2*a2*a2 + 2.0*a0*a2*a3*b2*b2 + 2.0*a2*b0*b1*a3*a3 + 2.0*a3*b1*b3*a1*a1 + 3.0*a0*a1*a2*b3*b3 + 4.0*a1*b0*b2*a3*a3 + 6.0*a0*b0*b3*a3*a3 + 2.0*b0*b3*a2*a2*a2;
+		double u0 = a0*a1*a2*b1*b2*b3 + a0*a1*a3*b0*b2*b3 - a0*a2*a3*b0*b1*b3 - a1*a2*a3*b0*b1*b2 + b0*a1*a1*a1*b3*b3 - b3*a2*a2*a2*b0*b0 + a1*b0*a3*a3*b1*b1 + a1*b2*a0*a0*b3*b3 + a3*b0*a1*a1*b2*b2 + a3*b2*a2*a2*b0*b0 - a0*b1*a1*a1*b3*b3 - a0*b3*a2*a2*b1*b1 - a2*b1*a3*a3*b0*b0 - a2*b3*a0*a0*b2*b2 - 3.0*a0*b3*a3*a3*b0*b0 - 2.0*a1*b2*a3*a3*b0*b0 + 2.0*a2*b1*a0*a0*b3*b3 + 3.0*a3*b0*a0*a0*b3*b3 + a0*a2*a3*b2*b1*b1 + a1*b0*b1*b3*a2*a2 - a0*a1*a3*b1*b2*b2 - a2*b0*b2*b3*a1*a1 - 3.0*a0*a1*a2*b0*b3*b3 - 3.0*a3*b1*b2*b3*a0*a0 - 2.0*a0*a2*a3*b0*b2*b2 - 2.0*a3*b0*b1*b3*a1*a1 + 2.0*a0*a1*a3*b3*b1*b1 + 2.0*a0*b0*b2*b3*a2*a2 + 3.0*a0*b0*b1*b2*a3*a3 + 3.0*a1*a2*a3*b3*b0*b0 + a3*a3*a3*b0*b0*b0 - a0*a0*a0*b3*b3*b3 + a3*a0*a0*b2*b2*b2 - a0*a3*a3*b1*b1*b1;
+
+		//System.out.printf("f(x,y) = %gx^3 + %gx^2y + %gxy^2 + %gy^3 + %gx^2 + %gxy + %gy^2 + %gx + %gy + %g\n", uxxx, uxxy, uxyy, uyyy, uxx, uxy, uyy, ux, uy, u0);
+		u[offset] = uxxx;
+		u[offset + 1] = uxxy;
+		u[offset + 2] = uxyy;
+		u[offset + 3] = uyyy;
+		u[offset + 4] = uxx;
+		u[offset + 5] = uxy;
+		u[offset + 6] = uyy;
+		u[offset + 7] = ux;
+		u[offset + 8] = uy;
+		u[offset + 9] = u0;
+	}
+
+	/*
+	 * For x(t) = a2 t^2 + a1 t + a0 and y(t) = b2 t^2 + b1 t + b0, with
+	 * D = a1 b2 - a2 b1, c = b2 a0 - a2 b0 and e = b1 a0 - a1 b0, eliminating
+	 * t gives (b2 x - a2 y - c)^2 + D (b1 x - a1 y - e) = 0. When D vanishes
+	 * the curve lies on a line.
+	 */
+	private static void computeQuadratic(double a2, double a1, double a0, double b2, double b1, double b0, double[] u, int offset) {
+		for (int i = 0; i < SIZE; i++) {
+			u[offset + i] = 0.0;
+		}
+
+		double d = a1*b2 - a2*b1;
+		if (Math.abs(d) > DEGENERACY_TOLERANCE * (Math.abs(a1) + Math.abs(a2)) * (Math.abs(b1) + Math.abs(b2))) {
+			double c = b2*a0 - a2*b0;
+			double e = b1*a0 - a1*b0;
+			u[offset + 4] = b2*b2;
+			u[offset + 5] = -2.0*a2*b2;
+			u[offset + 6] = a2*a2;
+			u[offset + 7] = -2.0*b2*c + d*b1;
+			u[offset + 8] = 2.0*a2*c - d*a1;
+			u[offset + 9] = c*c - d*e;
+			return;
+		}
+
+		//The line through (a0, b0) along whichever of (a1, b1) and (a2, b2)
+		//is larger; a curve that is a single point keeps an all zero form
+		double dx = a1, dy = b1;
+		if (Math.abs(a2) + Math.abs(b2) > Math.abs(a1) + Math.abs(b1)) {
+			dx = a2;
+			dy = b2;
+		}
+		u[offset + 7] = dy;
+		u[offset + 8] = -dx;
+		u[offset + 9] = dx*b0 - dy*a0;
+	}
+
+	/*
+	 * Substitute a parametric curve into the implicit form stored at offset,
+	 * giving the degree 9 polynomial in t whose roots are the intersections.
+	 * Coefficients are written lowest degree first.
+	 */
+	public static void substitute(double a3, double a2, double a1, double a0, double b3, double b2, double b1, double b0, double[] u, int offset, double[] out) {
+
+		double ouxxx = u[offset];
+		double ouxxy = u[offset + 1];
+		double ouxyy = u[offset + 2];
+		double ouyyy = u[offset + 3];
+		double ouxx = u[offset + 4];
+		double ouxy = u[offset + 5];
+		double ouyy = u[offset + 6];
+		double oux = u[offset + 7];
+		double ouy = u[offset + 8];
+		double ou0 = u[offset + 9];
+		
+		//Set up the initial values of the Sturm chain
+		out[9] = a3*ouxyy*b3*b3 + b3*ouxxy*a3*a3 + ouxxx*a3*a3*a3 + ouyyy*b3*b3*b3;
+		out[8] = 2.0*a2*a3*b3*ouxxy + 2.0*a3*b2*b3*ouxyy + a2*ouxyy*b3*b3 + b2*ouxxy*a3*a3 + 3.0*a2*ouxxx*a3*a3 + 3.0*b2*ouyyy*b3*b3;
+		out[7] = 2.0*a1*a3*b3*ouxxy + 2.0*a2*a3*b2*ouxxy + 2.0*a2*b2*b3*ouxyy + 2.0*a3*b1*b3*ouxyy + a1*ouxyy*b3*b3 + a3*ouxyy*b2*b2 + b1*ouxxy*a3*a3 + b3*ouxxy*a2*a2 + 3.0*a1*ouxxx*a3*a3 + 3.0*a3*ouxxx*a2*a2 + 3.0*b1*ouyyy*b3*b3 + 3.0*b3*ouyyy*b2*b2;
+		out[6] = a3*b3*ouxy + 2.0*a0*a3*b3*ouxxy + 2.0*a1*a2*b3*ouxxy + 2.0*a1*a3*b2*ouxxy + 2.0*a1*b2*b3*ouxyy + 2.0*a2*a3*b1*ouxxy + 2.0*a2*b1*b3*ouxyy + 2.0*a3*b0*b3*ouxyy + 2.0*a3*b1*b2*ouxyy + 6.0*a1*a2*a3*ouxxx + 6.0*b1*b2*b3*ouyyy + ouxx*a3*a3 + ouyy*b3*b3 + a0*ouxyy*b3*b3 + a2*ouxyy*b2*b2 + b0*ouxxy*a3*a3 + b2*ouxxy*a2*a2 + 3.0*a0*ouxxx*a3*a3 + 3.0*b0*ouyyy*b3*b3 + ouxxx*a2*a2*a2 + ouyyy*b2*b2*b2;
+		out[5] = a2*b3*ouxy + a3*b2*ouxy + 2.0*a2*a3*ouxx + 2.0*b2*b3*ouyy + 2.0*a0*a2*b3*ouxxy + 2.0*a0*a3*b2*ouxxy + 2.0*a0*b2*b3*ouxyy + 2.0*a1*a2*b2*ouxxy + 2.0*a1*a3*b1*ouxxy + 2.0*a1*b1*b3*ouxyy + 2.0*a2*a3*b0*ouxxy + 2.0*a2*b0*b3*ouxyy + 2.0*a2*b1*b2*ouxyy + 2.0*a3*b0*b2*ouxyy + 6.0*a0*a2*a3*ouxxx + 6.0*b0*b2*b3*ouyyy + a1*ouxyy*b2*b2 + a3*ouxyy*b1*b1 + b1*ouxxy*a2*a2 + b3*ouxxy*a1*a1 + 3.0*a1*ouxxx*a2*a2 + 3.0*a3*ouxxx*a1*a1 + 3.0*b1*ouyyy*b2*b2 + 3.0*b3*ouyyy*b1*b1;
+		out[4] = a1*b3*ouxy + a2*b2*ouxy + a3*b1*ouxy + 2.0*a1*a3*ouxx + 2.0*b1*b3*ouyy + 2.0*a0*a1*b3*ouxxy + 2.0*a0*a2*b2*ouxxy + 2.0*a0*a3*b1*ouxxy + 2.0*a0*b1*b3*ouxyy + 2.0*a1*a2*b1*ouxxy + 2.0*a1*a3*b0*ouxxy + 2.0*a1*b0*b3*ouxyy + 2.0*a1*b1*b2*ouxyy + 2.0*a2*b0*b2*ouxyy + 2.0*a3*b0*b1*ouxyy + 6.0*a0*a1*a3*ouxxx + 6.0*b0*b1*b3*ouyyy + ouxx*a2*a2 + ouyy*b2*b2 + a0*ouxyy*b2*b2 + a2*ouxyy*b1*b1 + b0*ouxxy*a2*a2 + b2*ouxxy*a1*a1 + 3.0*a0*ouxxx*a2*a2 + 3.0*a2*ouxxx*a1*a1 + 3.0*b0*ouyyy*b2*b2 + 3.0*b2*ouyyy*b1*b1;
+		out[3] = a3*oux + b3*ouy + a0*b3*ouxy + a1*b2*ouxy + a2*b1*ouxy + a3*b0*ouxy + 2.0*a0*a3*ouxx + 2.0*a1*a2*ouxx + 2.0*b0*b3*ouyy + 2.0*b1*b2*ouyy + 2.0*a0*a1*b2*ouxxy + 2.0*a0*a2*b1*ouxxy + 2.0*a0*a3*b0*ouxxy + 2.0*a0*b0*b3*ouxyy + 2.0*a0*b1*b2*ouxyy + 2.0*a1*a2*b0*ouxxy + 2.0*a1*b0*b2*ouxyy + 2.0*a2*b0*b1*ouxyy + 6.0*a0*a1*a2*ouxxx + 6.0*b0*b1*b2*ouyyy + a1*ouxyy*b1*b1 + a3*ouxyy*b0*b0 + b1*ouxxy*a1*a1 + b3*ouxxy*a0*a0 + 3.0*a3*ouxxx*a0*a0 + 3.0*b3*ouyyy*b0*b0 + ouxxx*a1*a1*a1 + ouyyy*b1*b1*b1;
+		out[2] = a2*oux + b2*ouy + a0*b2*ouxy + a1*b1*ouxy + a2*b0*ouxy + 2.0*a0*a2*ouxx + 2.0*b0*b2*ouyy + 2.0*a0*a1*b1*ouxxy + 2.0*a0*a2*b0*ouxxy + 2.0*a0*b0*b2*ouxyy + 2.0*a1*b0*b1*ouxyy + ouxx*a1*a1 + ouyy*b1*b1 + a0*ouxyy*b1*b1 + a2*ouxyy*b0*b0 + b0*ouxxy*a1*a1 + b2*ouxxy*a0*a0 + 3.0*a0*ouxxx*a1*a1 + 3.0*a2*ouxxx*a0*a0 + 3.0*b0*ouyyy*b1*b1 + 3.0*b2*ouyyy*b0*b0;
+		out[1] = a1*oux + b1*ouy + a0*b1*ouxy + a1*b0*ouxy + 2.0*a0*a1*ouxx + 2.0*b0*b1*ouyy + 2.0*a0*a1*b0*ouxxy + 2.0*a0*b0*b1*ouxyy + a1*ouxyy*b0*b0 + b1*ouxxy*a0*a0 + 3.0*a1*ouxxx*a0*a0 + 3.0*b1*ouyyy*b0*b0;
+		out[0] = ou0 + a0*oux + b0*ouy + a0*b0*ouxy + ouxx*a0*a0 + ouyy*b0*b0 + a0*ouxyy*b0*b0 + b0*ouxxy*a0*a0 + ouxxx*a0*a0*a0 + ouyyy*b0*b0*b0;
+	}
+
+}
@@ -0,0 +1,15 @@
+package knoteditor;
+
+public class ImplicitIntersection implements IntersectionAlgorithm {
+
+	@Override
+	public int intersections(BezierCurve p, BezierCurve q, double[] roots) {
+		return IntersectionSolver.get().intersections(p, q, roots);
+	}
+
+	@Override
+	public String toString() {
+		return "IMPLICIT";
+	}
+
+}
@@ -0,0 +1,25 @@
+package knoteditor;
+
+/*
+ * A pairwise intersection engine. Implementations must be safe to share
+ * between threads.
+ */
+public interface IntersectionAlgorithm {
+
+	//Implicit form of q substituted into p, roots isolated on a Sturm chain
+	IntersectionAlgorithm IMPLICIT = new ImplicitIntersection();
+
+	//The same on curves scaled into a unit box, with error-bounded signs
+	IntersectionAlgorithm NORMALIZED = new NormalizedImplicitIntersection();
+
+	//Recursive subdivision of both curves with bounding box culling
+	IntersectionAlgorithm SUBDIVISION = new SubdivisionIntersection();
+
+	/*
+	 * Find the parameters on p at which it meets q. Roots are written to the
+	 * front of the buffer in increasing order, and the number of roots is
+	 * returned.
+	 */
+	int intersections(BezierCurve p, BezierCurve q, double[] roots);
+
+}
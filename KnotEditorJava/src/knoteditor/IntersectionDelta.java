@@ -0,0 +1,50 @@
+package knoteditor;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+
+/*
+ * The crossings that appeared and disappeared in one edit of an
+ * IntersectionIndex. A crossing that was removed and then found again in the
+ * same edit shows up in neither set.
+ */
+public class IntersectionDelta {
+
+	private final Set<BezierIntersection> added = new LinkedHashSet<BezierIntersection>();
+	private final Set<BezierIntersection> removed = new LinkedHashSet<BezierIntersection>();
+
+	IntersectionDelta() {
+	}
+
+	void add(BezierIntersection intersection) {
+		if (!removed.remove(intersection)) {
+			added.add(intersection);
+		}
+	}
+
+	void remove(BezierIntersection intersection) {
+		if (!added.remove(intersection)) {
+			removed.add(intersection);
+		}
+	}
+
+	public Set<BezierIntersection> getAdded() {
+		return Collections.unmodifiableSet(added);
+	}
+
+	public Set<BezierIntersection> getRemoved() {
+		return Collections.unmodifiableSet(removed);
+	}
+
+	public boolean isEmpty() {
+		return added.isEmpty() && removed.isEmpty();
+	}
+
+	@Override
+	public String toString() {
+		return "+" + added + " -" + removed;
+	}
+
+}
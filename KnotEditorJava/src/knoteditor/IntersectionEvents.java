@@ -0,0 +1,46 @@
+package knoteditor;
+
+
+/*
+ * Hook for flight recorder events around whole intersection passes. The
+ * events need jdk.jfr, which the main classes cannot see while they target
+ * Java 8, so they are compiled separately and loaded reflectively. Where
+ * they cannot be loaded every call is a no-op.
+ */
+abstract class IntersectionEvents {
+
+	private static final IntersectionEvents NONE = new IntersectionEvents() {
+		@Override
+		Object beginPass() {
+			return null;
+		}
+
+		@Override
+		void endPass(Object pass, String broadPhase, int curves, long pairsConsidered, long candidatePairs, int intersections) {
+		}
+	};
+
+	private static final IntersectionEvents INSTANCE = load();
+
+	private static IntersectionEvents load() {
+		try {
+			return (IntersectionEvents) Class.forName("knoteditor.FlightRecorderEvents").newInstance();
+		} catch (Exception e) {
+			return NONE;
+		} catch (LinkageError e) {
+			return NONE;
+		}
+	}
+
+	static IntersectionEvents get() {
+		return INSTANCE;
+	}
+
+	/*
+	 * Start timing a pass, or return null if nobody is recording passes
+	 */
+	abstract Object beginPass();
+
+	abstract void endPass(Object pass, String broadPhase, int curves, long pairsConsidered, long candidatePairs, int intersections);
+
+}
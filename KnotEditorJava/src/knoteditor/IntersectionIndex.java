@@ -0,0 +1,380 @@
+package knoteditor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+
+/*
+ * Keeps the crossings of a curve list up to date while it is being edited.
+ * Every curve is filed in a uniform grid under its tight bounds, padded by
+ * the same tolerance as the broad phase, so an edit only re-tests the curves
+ * sharing a cell with the changed one and the cost of a drag depends on how
+ * crowded that part of the drawing is, not on how many curves there are.
+ *
+ * Pairs follow the same rules as SVGKnotEditor.findIntersections: curves next
+ * to each other in the list are never paired, and the earlier curve of a pair
+ * is always p. The index is not thread safe.
+ *
+ * Crossings come out ordered by curve index and then by parameter along p,
+ * so the same drawing always lists them in the same order.
+ */
+public class IntersectionIndex {
+
+	//Curves whose box covers more cells than this skip the grid and are
+	//tested against every edit instead
+	private static final int MAX_CELLS_PER_CURVE = 64;
+
+	//Inserting or removing a curve shifts the indices after it together, so
+	//the order of the entries already in a map never changes
+	private static final Comparator<Entry> BY_INDEX = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry o1, Entry o2) {
+			return o1.index < o2.index ? -1 : o1.index == o2.index ? 0 : 1;
+		}
+	};
+
+	private static final Comparator<BezierIntersection> BY_PARAMETER = new Comparator<BezierIntersection>() {
+		@Override
+		public int compare(BezierIntersection o1, BezierIntersection o2) {
+			return Double.compare(o1.pIntersect.t, o2.pIntersect.t);
+		}
+	};
+
+	private static final class Entry {
+		BezierCurve curve;
+		int index;
+		double xmin, ymin, xmax, ymax;
+		int cx0, cy0, cx1, cy1;
+		boolean oversized;
+		BezierIntersection self;
+		//Crossings with every partner by index, the same set is held by both ends
+		final Map<Entry, Set<BezierIntersection>> crossings = new TreeMap<Entry, Set<BezierIntersection>>(BY_INDEX);
+		int visit;
+	}
+
+	private final double cellSize;
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private final Map<Long, List<Entry>> grid = new LinkedHashMap<Long, List<Entry>>();
+	private final List<Entry> oversized = new ArrayList<Entry>();
+	private final List<IntersectionListener> listeners = new ArrayList<IntersectionListener>();
+	private int visit;
+
+	/*
+	 * Size the grid cells after the average curve in the initial list
+	 */
+	public IntersectionIndex(List<BezierCurve> curves) {
+		this(curves, defaultCellSize(curves));
+	}
+
+	public IntersectionIndex(List<BezierCurve> curves, double cellSize) {
+		if (!(cellSize > 0) || Double.isInfinite(cellSize)) {
+			throw new IllegalArgumentException("cell size must be positive: " + cellSize);
+		}
+		this.cellSize = cellSize;
+
+		for (int i = 0; i < curves.size(); i++) {
+			Entry e = new Entry();
+			e.curve = curves.get(i);
+			e.index = i;
+			entries.add(e);
+			file(e);
+			e.self = BezierIntersection.createSelfIntersection(e.curve);
+		}
+
+		//The initial pairs come from the same sweep as a full recomputation
+		PairList pairs = BroadPhase.SWEEP_AND_PRUNE.candidatePairs(curves);
+		for (int k = 0; k < pairs.size(); k++) {
+			link(entries.get(pairs.p(k)), entries.get(pairs.q(k)), null);
+		}
+	}
+
+	private static double defaultCellSize(List<BezierCurve> curves) {
+		double sum = 0;
+		for (BezierCurve c : curves) {
+			Bounds bounds = c.getBounds();
+			sum += Math.max(bounds.width(), bounds.height());
+		}
+		double size = 2 * sum / curves.size();
+		return size > 0 && !Double.isInfinite(size) ? size : 1;
+	}
+
+	public void addListener(IntersectionListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(IntersectionListener listener) {
+		listeners.remove(listener);
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public BezierCurve getCurve(int i) {
+		return entries.get(i).curve;
+	}
+
+	public List<BezierCurve> getCurves() {
+		List<BezierCurve> curves = new ArrayList<BezierCurve>(entries.size());
+		for (Entry e : entries) {
+			curves.add(e.curve);
+		}
+		return curves;
+	}
+
+	/*
+	 * All current crossings, self-intersections first as in findIntersections
+	 */
+	public Set<BezierIntersection> getIntersections() {
+		Set<BezierIntersection> intersections = new LinkedHashSet<BezierIntersection>();
+		for (Entry e : entries) {
+			if (e.self != null) {
+				intersections.add(e.self);
+			}
+		}
+		for (Entry e : entries) {
+			for (Map.Entry<Entry, Set<BezierIntersection>> crossing : e.crossings.entrySet()) {
+				if (crossing.getKey().index > e.index) {
+					intersections.addAll(crossing.getValue());
+				}
+			}
+		}
+		return intersections;
+	}
+
+	/*
+	 * The crossings curve i takes part in, including its self-intersection
+	 */
+	public Set<BezierIntersection> getIntersections(int i) {
+		Entry e = entries.get(i);
+		Set<BezierIntersection> intersections = new LinkedHashSet<BezierIntersection>();
+		if (e.self != null) {
+			intersections.add(e.self);
+		}
+		for (Set<BezierIntersection> crossing : e.crossings.values()) {
+			intersections.addAll(crossing);
+		}
+		return intersections;
+	}
+
+	public IntersectionDelta replaceCurve(int i, BezierCurve curve) {
+		IntersectionDelta delta = new IntersectionDelta();
+		Entry e = entries.get(i);
+		unlinkAll(e, delta);
+		unfile(e);
+		e.curve = curve;
+		file(e);
+		e.self = BezierIntersection.createSelfIntersection(curve);
+		if (e.self != null) {
+			delta.add(e.self);
+		}
+		linkAll(e, delta);
+		return publish(delta);
+	}
+
+	public IntersectionDelta insertCurve(int i, BezierCurve curve) {
+		IntersectionDelta delta = new IntersectionDelta();
+		Entry e = new Entry();
+		e.curve = curve;
+		entries.add(i, e);
+		renumber(i);
+		file(e);
+		e.self = BezierIntersection.createSelfIntersection(curve);
+		if (e.self != null) {
+			delta.add(e.self);
+		}
+
+		//The former neighbours are now two apart and may be paired
+		if (i > 0 && i + 1 < entries.size()) {
+			Entry before = entries.get(i - 1);
+			Entry after = entries.get(i + 1);
+			if (overlaps(before, after)) {
+				link(before, after, delta);
+			}
+		}
+		linkAll(e, delta);
+		return publish(delta);
+	}
+
+	public IntersectionDelta addCurve(BezierCurve curve) {
+		return insertCurve(entries.size(), curve);
+	}
+
+	public IntersectionDelta removeCurve(int i) {
+		IntersectionDelta delta = new IntersectionDelta();
+		Entry e = entries.remove(i);
+		unlinkAll(e, delta);
+		unfile(e);
+		renumber(i);
+
+		//The curves on either side are now neighbours and no longer paired
+		if (i > 0 && i < entries.size()) {
+			unlink(entries.get(i - 1), entries.get(i), delta);
+		}
+		return publish(delta);
+	}
+
+	private IntersectionDelta publish(IntersectionDelta delta) {
+		if (!delta.isEmpty()) {
+			for (IntersectionListener listener : listeners) {
+				listener.intersectionsChanged(this, delta);
+			}
+		}
+		return delta;
+	}
+
+	private void renumber(int from) {
+		for (int i = from; i < entries.size(); i++) {
+			entries.get(i).index = i;
+		}
+	}
+
+	/*
+	 * Test e against everything filed in the cells its box touches
+	 */
+	private void linkAll(Entry e, IntersectionDelta delta) {
+		visit++;
+		e.visit = visit;
+		if (e.oversized) {
+			for (Entry other : entries) {
+				consider(e, other, delta);
+			}
+			return;
+		}
+		for (int cx = e.cx0; cx <= e.cx1; cx++) {
+			for (int cy = e.cy0; cy <= e.cy1; cy++) {
+				List<Entry> cell = grid.get(cell(cx, cy));
+				if (cell != null) {
+					for (Entry other : cell) {
+						consider(e, other, delta);
+					}
+				}
+			}
+		}
+		for (Entry other : oversized) {
+			consider(e, other, delta);
+		}
+	}
+
+	private void consider(Entry e, Entry other, IntersectionDelta delta) {
+		if (other.visit == visit) {
+			return;
+		}
+		other.visit = visit;
+		if (Math.abs(e.index - other.index) >= 2 && overlaps(e, other)) {
+			link(e, other, delta);
+		}
+	}
+
+	private void link(Entry a, Entry b, IntersectionDelta delta) {
+		Entry p = a.index < b.index ? a : b;
+		Entry q = a.index < b.index ? b : a;
+		Set<BezierIntersection> found = BezierIntersection.createIntersections(p.curve, q.curve);
+		if (found.isEmpty()) {
+			return;
+		}
+		BezierIntersection[] sorted = found.toArray(new BezierIntersection[found.size()]);
+		Arrays.sort(sorted, BY_PARAMETER);
+		Set<BezierIntersection> crossings = new LinkedHashSet<BezierIntersection>(Arrays.asList(sorted));
+		p.crossings.put(q, crossings);
+		q.crossings.put(p, crossings);
+		if (delta != null) {
+			for (BezierIntersection crossing : crossings) {
+				delta.add(crossing);
+			}
+		}
+	}
+
+	private void unlinkAll(Entry e, IntersectionDelta delta) {
+		if (e.self != null) {
+			delta.remove(e.self);
+			e.self = null;
+		}
+		for (Map.Entry<Entry, Set<BezierIntersection>> crossing : e.crossings.entrySet()) {
+			crossing.getKey().crossings.remove(e);
+			for (BezierIntersection intersection : crossing.getValue()) {
+				delta.remove(intersection);
+			}
+		}
+		e.crossings.clear();
+	}
+
+	private void unlink(Entry a, Entry b, IntersectionDelta delta) {
+		Set<BezierIntersection> crossings = a.crossings.remove(b);
+		if (crossings != null) {
+			b.crossings.remove(a);
+			for (BezierIntersection crossing : crossings) {
+				delta.remove(crossing);
+			}
+		}
+	}
+
+	private static boolean overlaps(Entry a, Entry b) {
+		return a.xmin <= b.xmax && b.xmin <= a.xmax && a.ymin <= b.ymax && b.ymin <= a.ymax;
+	}
+
+	/*
+	 * Pad the curve box like the sweep does and file the entry under every
+	 * cell it touches
+	 */
+	private void file(Entry e) {
+		Bounds bounds = e.curve.getBounds();
+		double pad = BroadPhase.tolerancePad(e.curve.getControlBounds());
+		e.xmin = bounds.xmin - pad;
+		e.ymin = bounds.ymin - pad;
+		e.xmax = bounds.xmax + pad;
+		e.ymax = bounds.ymax + pad;
+
+		double cx0 = Math.floor(e.xmin / cellSize), cy0 = Math.floor(e.ymin / cellSize);
+		double cx1 = Math.floor(e.xmax / cellSize), cy1 = Math.floor(e.ymax / cellSize);
+		e.oversized = !((cx1 - cx0 + 1) * (cy1 - cy0 + 1) <= MAX_CELLS_PER_CURVE);
+		if (e.oversized) {
+			oversized.add(e);
+			return;
+		}
+		e.cx0 = (int) cx0;
+		e.cy0 = (int) cy0;
+		e.cx1 = (int) cx1;
+		e.cy1 = (int) cy1;
+		for (int cx = e.cx0; cx <= e.cx1; cx++) {
+			for (int cy = e.cy0; cy <= e.cy1; cy++) {
+				Long key = cell(cx, cy);
+				List<Entry> cell = grid.get(key);
+				if (cell == null) {
+					cell = new ArrayList<Entry>(4);
+					grid.put(key, cell);
+				}
+				cell.add(e);
+			}
+		}
+	}
+
+	private void unfile(Entry e) {
+		if (e.oversized) {
+			oversized.remove(e);
+			return;
+		}
+		for (int cx = e.cx0; cx <= e.cx1; cx++) {
+			for (int cy = e.cy0; cy <= e.cy1; cy++) {
+				Long key = cell(cx, cy);
+				List<Entry> cell = grid.get(key);
+				cell.remove(e);
+				if (cell.isEmpty()) {
+					grid.remove(key);
+				}
+			}
+		}
+	}
+
+	private static Long cell(int cx, int cy) {
+		return Long.valueOf(((long) cx << 32) | (cy & 0xffffffffL));
+	}
+
+}
@@ -0,0 +1,10 @@
+package knoteditor;
+
+/*
+ * Told about every edit of an IntersectionIndex that changed its crossings
+ */
+public interface IntersectionListener {
+
+	void intersectionsChanged(IntersectionIndex index, IntersectionDelta delta);
+
+}
@@ -0,0 +1,258 @@
+package knoteditor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/*
+ * Counters along the intersection pipeline, from the broad phase down to
+ * root refinement and matching, and a snapshot of them.
+ *
+ * Counting is off unless knoteditor.metrics is set, setEnabled(true) is
+ * called, or a flight recording with the knoteditor.IntersectionMetrics
+ * event is running. While it is off, every probe on the hot paths is a read
+ * of one boolean. While it is on, solvers tally into their own workspace and
+ * add the tally to shared striped counters once per call, so threads rarely
+ * touch the same cache line.
+ *
+ * Counts from different threads are added without a common lock, so a
+ * snapshot taken while solves are running may be a few calls behind.
+ */
+public class IntersectionMetrics {
+
+	//Counter slots
+	static final int PAIRS_CONSIDERED = 0;
+	static final int CANDIDATE_PAIRS = 1;
+	static final int CHAINS_BUILT = 2;
+	static final int BISECTIONS = 3;
+	static final int REFINEMENT_STEPS = 4;
+	static final int ROOTS_FOUND = 5;
+	static final int MATCHES_DROPPED = 6;
+	static final int SELF_INTERSECTION_TESTS = 7;
+	static final int SELF_INTERSECTIONS_FOUND = 8;
+	static final int SUBDIVISIONS_TRUNCATED = 9;
+	static final int COMPENSATED_EVALUATIONS = 10;
+	static final int EXACT_EVALUATIONS = 11;
+	static final int CHAIN_DEGREES = 12;
+	static final int SIZE = CHAIN_DEGREES + ChainKernel.ROW;
+
+	//Stripes are padded apart so neighbouring stripes never share a cache line
+	private static final int STRIDE = SIZE + 8;
+	private static final int STRIPES = stripeCount();
+	private static final AtomicLongArray counters = new AtomicLongArray(STRIPES * STRIDE);
+
+	private static volatile boolean enabled = Boolean.getBoolean("knoteditor.metrics");
+	private static volatile boolean recording;
+	private static volatile boolean counting = enabled;
+
+	private final long[] values;
+
+	private IntersectionMetrics(long[] values) {
+		this.values = values;
+	}
+
+	private static int stripeCount() {
+		int stripes = 1;
+		while (stripes < 2 * Runtime.getRuntime().availableProcessors()) {
+			stripes *= 2;
+		}
+		return stripes;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+		counting = enable || recording;
+	}
+
+	/*
+	 * Set while a flight recording wants the counters
+	 */
+	static void setRecording(boolean record) {
+		recording = record;
+		counting = enabled || record;
+	}
+
+	/*
+	 * True if the probes should count right now
+	 */
+	public static boolean isCounting() {
+		return counting;
+	}
+
+	static void add(int slot, long n) {
+		counters.getAndAdd(stripe() + slot, n);
+	}
+
+	/*
+	 * Add a tally of SIZE counters to the shared counters and clear it
+	 */
+	static void flush(long[] tally) {
+		int base = stripe();
+		for (int slot = 0; slot < SIZE; slot++) {
+			if (tally[slot] != 0) {
+				counters.getAndAdd(base + slot, tally[slot]);
+				tally[slot] = 0;
+			}
+		}
+	}
+
+	private static int stripe() {
+		long id = Thread.currentThread().getId();
+		return (int) ((id ^ (id >>> 16)) & (STRIPES - 1)) * STRIDE;
+	}
+
+	/*
+	 * The counters summed over all threads since start up or the last reset
+	 */
+	public static IntersectionMetrics snapshot() {
+		long[] values = new long[SIZE];
+		for (int stripe = 0; stripe < STRIPES; stripe++) {
+			for (int slot = 0; slot < SIZE; slot++) {
+				values[slot] += counters.get(stripe * STRIDE + slot);
+			}
+		}
+		return new IntersectionMetrics(values);
+	}
+
+	public static void reset() {
+		for (int i = 0; i < counters.length(); i++) {
+			counters.set(i, 0);
+		}
+	}
+
+	/*
+	 * The counts that went up between an earlier snapshot and this one
+	 */
+	public IntersectionMetrics minus(IntersectionMetrics earlier) {
+		long[] delta = new long[SIZE];
+		for (int slot = 0; slot < SIZE; slot++) {
+			delta[slot] = values[slot] - earlier.values[slot];
+		}
+		return new IntersectionMetrics(delta);
+	}
+
+	/*
+	 * Pairs of curves the broad phase had to decide on, which excludes the
+	 * neighbours in the curve list
+	 */
+	public long getPairsConsidered() {
+		return values[PAIRS_CONSIDERED];
+	}
+
+	/*
+	 * Pairs of curves the broad phase let through to the narrow phase
+	 */
+	public long getCandidatePairs() {
+		return values[CANDIDATE_PAIRS];
+	}
+
+	public long getPairsCulled() {
+		return values[PAIRS_CONSIDERED] - values[CANDIDATE_PAIRS];
+	}
+
+	public long getChainsBuilt() {
+		return values[CHAINS_BUILT];
+	}
+
+	/*
+	 * Sturm chains built for an intersection polynomial of the given degree
+	 */
+	public long getChainsBuilt(int degree) {
+		return values[CHAIN_DEGREES + degree];
+	}
+
+	/*
+	 * Ranges split in half while isolating roots
+	 */
+	public long getBisections() {
+		return values[BISECTIONS];
+	}
+
+	/*
+	 * Iterations of the safeguarded Newton refinement
+	 */
+	public long getRefinementSteps() {
+		return values[REFINEMENT_STEPS];
+	}
+
+	public long getRootsFound() {
+		return values[ROOTS_FOUND];
+	}
+
+	/*
+	 * Bisections and refinement steps spent per root found
+	 */
+	public double getStepsPerRoot() {
+		long roots = values[ROOTS_FOUND];
+		return roots == 0 ? 0 : (double) (values[BISECTIONS] + values[REFINEMENT_STEPS]) / roots;
+	}
+
+	/*
+	 * Roots left unmatched because the closest partner on the other curve
+	 * was further away than the tolerance
+	 */
+	public long getMatchesDropped() {
+		return values[MATCHES_DROPPED];
+	}
+
+	public long getSelfIntersectionTests() {
+		return values[SELF_INTERSECTION_TESTS];
+	}
+
+	public long getSelfIntersectionsFound() {
+		return values[SELF_INTERSECTIONS_FOUND];
+	}
+
+	/*
+	 * Subdivision solves that stopped at their piece limit and may have
+	 * missed crossings
+	 */
+	public long getSubdivisionsTruncated() {
+		return values[SUBDIVISIONS_TRUNCATED];
+	}
+
+	/*
+	 * Chain evaluations of normalized solves that needed compensated Horner,
+	 * and those that needed exact arithmetic on top
+	 */
+	public long getCompensatedEvaluations() {
+		return values[COMPENSATED_EVALUATIONS];
+	}
+
+	public long getExactEvaluations() {
+		return values[EXACT_EVALUATIONS];
+	}
+
+	/*
+	 * The chain degree counts as "degree:count" entries, lowest degree first,
+	 * leaving out degrees that never came up
+	 */
+	public String getChainDegreeHistogram() {
+		StringBuilder s = new StringBuilder();
+		for (int degree = 0; degree < ChainKernel.ROW; degree++) {
+			if (values[CHAIN_DEGREES + degree] != 0) {
+				if (s.length() > 0) {
+					s.append(' ');
+				}
+				s.append(degree).append(':').append(values[CHAIN_DEGREES + degree]);
+			}
+		}
+		return s.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "pairs considered " + getPairsConsidered() + ", culled " + getPairsCulled() + ", candidates " + getCandidatePairs()
+				+ "; chains " + getChainsBuilt() + " [" + getChainDegreeHistogram() + "]"
+				+ "; bisections " + getBisections() + ", refinement steps " + getRefinementSteps() + ", roots " + getRootsFound()
+				+ String.format(" (%.1f steps per root)", getStepsPerRoot())
+				+ "; matches dropped " + getMatchesDropped()
+				+ "; self-intersection tests " + getSelfIntersectionTests() + ", found " + getSelfIntersectionsFound()
+				+ "; subdivisions truncated " + getSubdivisionsTruncated()
+				+ "; compensated evaluations " + getCompensatedEvaluations() + ", exact " + getExactEvaluations();
+	}
+
+}
@@ -0,0 +1,847 @@
+package knoteditor;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+
+/*
+ * Reusable workspace for the Sturm chain root isolation behind
+ * BezierCurve.intersections. A solver holds all of its scratch space in
+ * primitive arrays, so once it exists, solving a pair allocates nothing.
+ * Solvers are not thread safe; use get() for one bound to the current thread.
+ */
+public class IntersectionSolver {
+
+	//The intersection polynomial of two cubics has degree at most 9
+	public static final int MAX_ROOTS = 9;
+
+	//Safety net for Newton refinement; bisection alone needs about 37 steps
+	private static final int MAX_NEWTON_ITERATIONS = 64;
+
+	private static final ThreadLocal<IntersectionSolver> LOCAL = new ThreadLocal<IntersectionSolver>() {
+		@Override
+		protected IntersectionSolver initialValue() {
+			return new IntersectionSolver();
+		}
+	};
+
+	private static volatile RootRefinement defaultRootRefinement = RootRefinement.NEWTON;
+
+	private static volatile RootIsolation defaultRootIsolation = RootIsolation.valueOf(System.getProperty("knoteditor.rootisolation", RootIsolation.STURM.name()));
+
+	//Pairs solved together by the batch entry points
+	private static final int BATCH_SIZE = 64;
+
+	//Roots kept per chain before sorting and removing duplicates
+	private static final int ROOT_CAPACITY = 2 * MAX_ROOTS;
+
+	//Ranges of the Descartes search hold both ends and the Bernstein
+	//coefficients of the polynomial on the range
+	private static final int BERNSTEIN_ENTRY = 2 + ChainKernel.ROW;
+
+	//Power to Bernstein basis on [0, 1] for every degree: the Bernstein
+	//coefficient b_i of a degree n polynomial is the sum over j up to i of
+	//C(i, j) / C(n, j) a_j
+	private static final double[][][] BERNSTEIN_BASIS = new double[ChainKernel.ROW][ChainKernel.ROW][ChainKernel.ROW];
+	static {
+		double[][] binomials = new double[ChainKernel.ROW][ChainKernel.ROW];
+		for (int n = 0; n < ChainKernel.ROW; n++) {
+			binomials[n][0] = 1;
+			for (int k = 1; k <= n; k++) {
+				binomials[n][k] = binomials[n - 1][k - 1] + (k < n ? binomials[n - 1][k] : 0);
+			}
+		}
+		for (int n = 0; n < ChainKernel.ROW; n++) {
+			for (int i = 0; i <= n; i++) {
+				for (int j = 0; j <= i; j++) {
+					BERNSTEIN_BASIS[n][i][j] = binomials[i][j] / binomials[n][j];
+				}
+			}
+		}
+	}
+
+	//Unit roundoff of double and the splitting constant for exact products
+	private static final double UNIT_ROUNDOFF = 0x1p-53;
+	private static final double SPLITTER = 0x1p27 + 1;
+
+	//Sturm chains, one per pair being solved, laid out as ChainKernel expects
+	private double[] chains = new double[ChainKernel.CHAIN];
+	private int[] degrees = new int[ChainKernel.ROW];
+	private int[] chainSizes = new int[1];
+	private final double[] polynomial = new double[ChainKernel.ROW];
+	private final double[] implicit = new double[ImplicitForm.SIZE];
+
+	//Power basis coefficients a3..a0, b3..b0 of a curve in the unit box
+	private final double[] normalized = new double[8];
+
+	//Pending ranges of the Descartes search, and the two halves of a split
+	private double[] bernstein = new double[BERNSTEIN_ENTRY * 64];
+	private final double[] left = new double[ChainKernel.ROW];
+	private final double[] right = new double[ChainKernel.ROW];
+
+	//Set while a normalized solve checks every sign against an error bound
+	private boolean guarded;
+
+	//Roots found so far for each chain, in the order they were found
+	private double[] found = new double[ROOT_CAPACITY];
+	private int[] foundCounts = new int[1];
+
+	//Pending ranges of the depth-first search, four entries each: start,
+	//end, and the sign agreement counts of the chain at start and end
+	private double[] stack = new double[4 * 64];
+
+	//Ranges still to be split at the current and the next level, five
+	//entries each: chain, start, end, and the sign agreement counts of the
+	//chain at start and end
+	private double[] ranges = new double[5 * 16];
+	private double[] nextRanges = new double[5 * 16];
+
+	//Points handed to the kernel in one call, and the results
+	private double[] points = new double[16];
+	private int[] pointChains = new int[16];
+	private int[] pointRanges = new int[16];
+	private int[] agreements = new int[16];
+
+	//Refinement used by this solver, or null to follow the default
+	private RootRefinement rootRefinement;
+
+	//Isolation used by this solver, or null to follow the default
+	private RootIsolation rootIsolation;
+
+	//Kernel used by this solver, or null to follow the default
+	private ChainKernel chainKernel;
+
+	//Metrics tallied during one call, added to IntersectionMetrics at its end
+	private final long[] tally = new long[IntersectionMetrics.SIZE];
+	private boolean counting;
+
+	public static IntersectionSolver get() {
+		return LOCAL.get();
+	}
+
+	public static RootRefinement getDefaultRootRefinement() {
+		return defaultRootRefinement;
+	}
+
+	public static void setDefaultRootRefinement(RootRefinement refinement) {
+		defaultRootRefinement = refinement;
+	}
+
+	public RootRefinement getRootRefinement() {
+		return rootRefinement != null ? rootRefinement : defaultRootRefinement;
+	}
+
+	public void setRootRefinement(RootRefinement refinement) {
+		rootRefinement = refinement;
+	}
+
+	public static RootIsolation getDefaultRootIsolation() {
+		return defaultRootIsolation;
+	}
+
+	public static void setDefaultRootIsolation(RootIsolation isolation) {
+		defaultRootIsolation = isolation;
+	}
+
+	public RootIsolation getRootIsolation() {
+		return rootIsolation != null ? rootIsolation : defaultRootIsolation;
+	}
+
+	public void setRootIsolation(RootIsolation isolation) {
+		rootIsolation = isolation;
+	}
+
+	public ChainKernel getChainKernel() {
+		return chainKernel != null ? chainKernel : ChainKernel.getDefault();
+	}
+
+	public void setChainKernel(ChainKernel kernel) {
+		chainKernel = kernel;
+	}
+
+	/*
+	 * Find the parameters on p at which it meets q, using the implicit form of
+	 * q and the parametric form of p. Roots are written to the front of the
+	 * buffer in increasing order, and the number of roots is returned.
+	 */
+	public int intersections(BezierCurve p, BezierCurve q, double[] roots) {
+		//The polynomial is the first row of chain 0
+		p.intersectionPolynomial(q, chains);
+		return solveOne(roots);
+	}
+
+	/*
+	 * Same as above, but both curves are first moved and scaled into the box
+	 * [-1, 1] x [-1, 1] around their common control box, so the implicit
+	 * coefficients no longer grow with the sixth power of the coordinates.
+	 * The scale is a power of two and the parameters are unchanged by it.
+	 *
+	 * Every sign on the Sturm chain is checked against a bound on the Horner
+	 * rounding error. Signs the bound cannot settle are computed again with
+	 * compensated Horner, and those still in doubt exactly, so the extra cost
+	 * only falls on the few points close to a root of some chain member.
+	 * Bernstein coefficients carry no such bound, so this solve always
+	 * isolates on the Sturm chain, whatever the root isolation setting.
+	 */
+	public int normalizedIntersections(BezierCurve p, BezierCurve q, double[] roots) {
+		double xmin = Math.min(Math.min(Math.min(p.x1, p.cx1), Math.min(p.cx2, p.x2)), Math.min(Math.min(q.x1, q.cx1), Math.min(q.cx2, q.x2)));
+		double xmax = Math.max(Math.max(Math.max(p.x1, p.cx1), Math.max(p.cx2, p.x2)), Math.max(Math.max(q.x1, q.cx1), Math.max(q.cx2, q.x2)));
+		double ymin = Math.min(Math.min(Math.min(p.y1, p.cy1), Math.min(p.cy2, p.y2)), Math.min(Math.min(q.y1, q.cy1), Math.min(q.cy2, q.y2)));
+		double ymax = Math.max(Math.max(Math.max(p.y1, p.cy1), Math.max(p.cy2, p.y2)), Math.max(Math.max(q.y1, q.cy1), Math.max(q.cy2, q.y2)));
+		double extent = Math.max(xmax - xmin, ymax - ymin) / 2;
+		if (!(extent > 0) || Double.isInfinite(extent)) {
+			//Two coincident points, or coordinates that do not fit a double
+			return intersections(p, q, roots);
+		}
+		double scale = Math.scalb(1.0, Math.getExponent(extent) + 1);
+		double cx = xmin / 2 + xmax / 2;
+		double cy = ymin / 2 + ymax / 2;
+
+		double[] c = normalized;
+		normalize(q, cx, cy, scale, c);
+		ImplicitForm.compute(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7], implicit, 0);
+		normalize(p, cx, cy, scale, c);
+		ImplicitForm.substitute(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7], implicit, 0, chains);
+
+		guarded = true;
+		try {
+			return solveOne(roots);
+		} finally {
+			guarded = false;
+		}
+	}
+
+	private static void normalize(BezierCurve curve, double cx, double cy, double scale, double[] out) {
+		double x1 = (curve.x1 - cx) / scale, cx1 = (curve.cx1 - cx) / scale, cx2 = (curve.cx2 - cx) / scale, x2 = (curve.x2 - cx) / scale;
+		double y1 = (curve.y1 - cy) / scale, cy1 = (curve.cy1 - cy) / scale, cy2 = (curve.cy2 - cy) / scale, y2 = (curve.y2 - cy) / scale;
+		out[0] = -x1 + 3.0*cx1 - 3.0*cx2 + x2;
+		out[1] = 3.0*x1 - 6.0*cx1 + 3.0*cx2;
+		out[2] = -3.0*x1 + 3.0*cx1;
+		out[3] = x1;
+		out[4] = -y1 + 3.0*cy1 - 3.0*cy2 + y2;
+		out[5] = 3.0*y1 - 6.0*cy1 + 3.0*cy2;
+		out[6] = -3.0*y1 + 3.0*cy1;
+		out[7] = y1;
+	}
+
+	/*
+	 * Same as intersections(p, q, roots) for curves i and j of a batch, read
+	 * straight from its columns
+	 */
+	public int intersections(CurveBatch batch, int i, int j, double[] roots) {
+		batch.intersectionPolynomial(i, j, chains);
+		return solveOne(roots);
+	}
+
+	/*
+	 * Solve candidate pairs from to to - 1 of the list, the roots on p of
+	 * pair k against q of pair k going to roots[(k - from) * MAX_ROOTS] on
+	 * and their number to counts[k - from]. The chains of a whole block of
+	 * pairs are bisected together, so every kernel call sees the midpoints
+	 * of many pairs at once. Descartes isolation has no chains to share and
+	 * solves the pairs one by one.
+	 */
+	public void intersections(List<BezierCurve> curves, PairList pairs, int from, int to, double[] roots, int[] counts) {
+		counting = IntersectionMetrics.isCounting();
+		if (getRootIsolation() == RootIsolation.DESCARTES) {
+			for (int k = from; k < to; k++) {
+				curves.get(pairs.p(k)).intersectionPolynomial(curves.get(pairs.q(k)), chains);
+				counts[k - from] = isolateDescartes(roots, (k - from) * MAX_ROOTS);
+			}
+		} else {
+			for (int blockStart = from; blockStart < to; blockStart += BATCH_SIZE) {
+				int blockSize = Math.min(BATCH_SIZE, to - blockStart);
+				ensureChains(blockSize);
+				for (int c = 0; c < blockSize; c++) {
+					curves.get(pairs.p(blockStart + c)).intersectionPolynomial(curves.get(pairs.q(blockStart + c)), polynomial);
+					System.arraycopy(polynomial, 0, chains, c * ChainKernel.CHAIN, ChainKernel.ROW);
+				}
+				solveBlock(blockSize, roots, (blockStart - from) * MAX_ROOTS, counts, blockStart - from);
+			}
+		}
+		flushMetrics(counts, to - from);
+	}
+
+	public void intersections(CurveBatch batch, PairList pairs, int from, int to, double[] roots, int[] counts) {
+		counting = IntersectionMetrics.isCounting();
+		if (getRootIsolation() == RootIsolation.DESCARTES) {
+			for (int k = from; k < to; k++) {
+				batch.intersectionPolynomial(pairs.p(k), pairs.q(k), chains);
+				counts[k - from] = isolateDescartes(roots, (k - from) * MAX_ROOTS);
+			}
+		} else {
+			for (int blockStart = from; blockStart < to; blockStart += BATCH_SIZE) {
+				int blockSize = Math.min(BATCH_SIZE, to - blockStart);
+				ensureChains(blockSize);
+				for (int c = 0; c < blockSize; c++) {
+					batch.intersectionPolynomial(pairs.p(blockStart + c), pairs.q(blockStart + c), polynomial);
+					System.arraycopy(polynomial, 0, chains, c * ChainKernel.CHAIN, ChainKernel.ROW);
+				}
+				solveBlock(blockSize, roots, (blockStart - from) * MAX_ROOTS, counts, blockStart - from);
+			}
+		}
+		flushMetrics(counts, to - from);
+	}
+
+	private void flushMetrics(int[] counts, int n) {
+		if (counting) {
+			for (int k = 0; k < n; k++) {
+				tally[IntersectionMetrics.ROOTS_FOUND] += counts[k];
+			}
+			IntersectionMetrics.flush(tally);
+		}
+	}
+
+	/*
+	 * A single pair has too few ranges per level to be worth a kernel call,
+	 * so it is bisected depth first on chain 0
+	 */
+	private int solveOne(double[] roots) {
+		counting = IntersectionMetrics.isCounting();
+		int count;
+		if (getRootIsolation() == RootIsolation.DESCARTES && !guarded) {
+			count = isolateDescartes(roots, 0);
+		} else {
+			buildChain(0);
+			count = chainSizes[0] < 0 ? 0 : isolateRoots(roots);
+		}
+		if (counting) {
+			tally[IntersectionMetrics.ROOTS_FOUND] += count;
+			IntersectionMetrics.flush(tally);
+		}
+		return count;
+	}
+
+	private void solveBlock(int chainCount, double[] roots, int rootOffset, int[] counts, int countOffset) {
+		for (int c = 0; c < chainCount; c++) {
+			buildChain(c);
+			foundCounts[c] = 0;
+		}
+		isolateRoots(chainCount);
+		if (roots != null) {
+			for (int c = 0; c < chainCount; c++) {
+				counts[countOffset + c] = collectRoots(c, roots, rootOffset + c * MAX_ROOTS, MAX_ROOTS);
+			}
+		}
+	}
+
+	private void ensureChains(int chainCount) {
+		if (chainSizes.length < chainCount) {
+			chains = new double[chainCount * ChainKernel.CHAIN];
+			degrees = new int[chainCount * ChainKernel.ROW];
+			chainSizes = new int[chainCount];
+			found = new double[chainCount * ROOT_CAPACITY];
+			foundCounts = new int[chainCount];
+		}
+	}
+
+	/*
+	 * Build the Sturm chain of the polynomial in the first row of chain c.
+	 * A polynomial that vanishes identically has nothing to isolate and gets
+	 * a chain size of -1.
+	 */
+	private void buildChain(int c) {
+		int base = c * ChainKernel.CHAIN;
+		int degreeBase = c * ChainKernel.ROW;
+		int initialDegree;
+		for (initialDegree = 9; initialDegree >= 0 && chains[base + initialDegree] == 0.0; initialDegree--) ;
+		if (initialDegree < 0) {
+			chainSizes[c] = -1;
+			return;
+		}
+		degrees[degreeBase] = initialDegree;
+		if (counting) {
+			tally[IntersectionMetrics.CHAINS_BUILT]++;
+			tally[IntersectionMetrics.CHAIN_DEGREES + initialDegree]++;
+		}
+
+		//Compute the derivative of the initial function
+		int derivative = base + ChainKernel.ROW;
+		Arrays.fill(chains, derivative, derivative + ChainKernel.ROW, 0.0);
+		for (int i = 0; i < degrees[degreeBase]; i++) {
+			chains[derivative + i] = (double) (i + 1) * chains[base + i + 1];
+		}
+		degrees[degreeBase + 1] = Math.max(0, degrees[degreeBase] - 1);
+
+		//Then iteratively compute the next polynomial in the chain
+		int chainSize;
+		for (chainSize = 1; degrees[degreeBase + chainSize] > 0; chainSize++) {
+			int current = base + chainSize * ChainKernel.ROW;
+			int prev = current - ChainKernel.ROW;
+			int next = current + ChainKernel.ROW;
+			int currentDegree = degrees[degreeBase + chainSize];
+			int prevDegree = degrees[degreeBase + chainSize - 1];
+			Arrays.fill(chains, next, next + ChainKernel.ROW, 0.0);
+			double divisor = chains[current + currentDegree];
+			double prev_degree = chains[prev + prevDegree];
+			double term1const = (prev_degree*chains[current + currentDegree - 1]) / (divisor*divisor);
+			double term2const = prev_degree / divisor;
+			double term3const = chains[prev + prevDegree - 1] / divisor;
+			chains[next] = -chains[prev] - term1const*chains[current] + term3const*chains[current];
+			for (int i = 1; i < currentDegree; i++) {
+				chains[next + i] = -chains[prev + i] - term1const*chains[current + i] + term2const*chains[current + i - 1] + term3const*chains[current + i];
+			}
+			int degree;
+			for (degree = currentDegree; degree >= 0 && chains[next + degree] == 0.0; degree--) ;
+			if (degree < 0) {
+				//The remainder vanished, so the current polynomial is the last
+				//in the chain
+				break;
+			}
+			degrees[degreeBase + chainSize + 1] = degree;
+		}
+		chainSizes[c] = chainSize;
+	}
+
+	private int isolateRoots(double[] roots) {
+		boolean newton = getRootRefinement() == RootRefinement.NEWTON;
+		int count = 0;
+
+		//Valid roots are only those in the t range [0, 1], so we start our
+		//search range as that
+		int top = push(0, 0.0, 1.0, signAgreements(0.0), signAgreements(1.0));
+		while (top > 0) {
+			top -= 4;
+			double start = stack[top];
+			double end = stack[top + 1];
+			int startAgreements = (int) stack[top + 2];
+			int endAgreements = (int) stack[top + 3];
+
+			//The number of roots in the range is the difference between the
+			//sign change counts
+			if (startAgreements == endAgreements) {
+				continue;
+			}
+			if (newton && Math.abs(startAgreements - endAgreements) == 1) {
+				double root = refine(0, start, end);
+				if (!Double.isNaN(root)) {
+					if (count < roots.length && (count == 0 || roots[count - 1] != root)) {
+						roots[count++] = root;
+					}
+					continue;
+				}
+			}
+			double mid = (start + end) / 2.0;
+			if (Math.abs(start - end) < BezierCurve.EPSILON) {
+				if (count < roots.length && (count == 0 || roots[count - 1] != mid)) {
+					roots[count++] = mid;
+				}
+				continue;
+			}
+
+			//Only the midpoint is new; the counts at the ends are carried
+			//down from the parent range. The upper half goes on first so the
+			//roots come out in increasing order.
+			if (counting) {
+				tally[IntersectionMetrics.BISECTIONS]++;
+			}
+			int midAgreements = signAgreements(mid);
+			top = push(top, mid, end, midAgreements, endAgreements);
+			top = push(top, start, mid, startAgreements, midAgreements);
+		}
+
+		return count;
+	}
+
+	private int signAgreements(double t) {
+		if (!guarded) {
+			return ScalarChainKernel.signAgreements(chains, degrees, chainSizes, t, 0);
+		}
+		int agreements = 0;
+		boolean prevPositive = false;
+		for (int i = 0; i <= chainSizes[0]; i++) {
+			//Zero counts as positive, as in the plain kernel
+			boolean positive = guardedSign(i * ChainKernel.ROW, degrees[i], t) >= 0;
+			if (i > 0 && positive == prevPositive) {
+				agreements++;
+			}
+			prevPositive = positive;
+		}
+		return agreements;
+	}
+
+	/*
+	 * The sign of the chain member at offset. Horner's rounding error is
+	 * at most gamma(2n) times the polynomial in absolute values, and
+	 * compensated Horner's at most u |result| + gamma(2n)^2 times the same,
+	 * doubled here to cover the rounding of the bounds themselves.
+	 */
+	private int guardedSign(int offset, int degree, double t) {
+		double at = Math.abs(t);
+		double value = chains[offset + degree];
+		double magnitude = Math.abs(value);
+		for (int i = degree - 1; i >= 0; i--) {
+			value = value * t + chains[offset + i];
+			magnitude = magnitude * at + Math.abs(chains[offset + i]);
+		}
+		double gamma = 2 * degree * UNIT_ROUNDOFF / (1 - 2 * degree * UNIT_ROUNDOFF);
+		if (Math.abs(value) > 2 * gamma * magnitude) {
+			return value > 0 ? 1 : -1;
+		}
+
+		if (counting) {
+			tally[IntersectionMetrics.COMPENSATED_EVALUATIONS]++;
+		}
+		double compensated = compensatedHorner(offset, degree, t);
+		if (Math.abs(compensated) > 2 * (UNIT_ROUNDOFF * Math.abs(compensated) + gamma * gamma * magnitude)) {
+			return compensated > 0 ? 1 : -1;
+		}
+
+		if (counting) {
+			tally[IntersectionMetrics.EXACT_EVALUATIONS]++;
+		}
+		BigDecimal x = new BigDecimal(t);
+		BigDecimal exact = new BigDecimal(chains[offset + degree]);
+		for (int i = degree - 1; i >= 0; i--) {
+			exact = exact.multiply(x).add(new BigDecimal(chains[offset + i]));
+		}
+		return exact.signum();
+	}
+
+	/*
+	 * Horner's scheme with the rounding errors of every product and sum
+	 * recovered exactly and summed in a second Horner pass, which gives about
+	 * twice the working precision
+	 */
+	private double compensatedHorner(int offset, int degree, double t) {
+		double tHigh = SPLITTER * t;
+		tHigh = tHigh - (tHigh - t);
+		double tLow = t - tHigh;
+
+		double s = chains[offset + degree];
+		double error = 0.0;
+		for (int i = degree - 1; i >= 0; i--) {
+			//Two product, with s split into halves that multiply exactly
+			double product = s * t;
+			double sHigh = SPLITTER * s;
+			sHigh = sHigh - (sHigh - s);
+			double sLow = s - sHigh;
+			double productError = sLow * tLow - (((product - sHigh * tHigh) - sLow * tHigh) - sHigh * tLow);
+
+			//Two sum
+			double a = chains[offset + i];
+			s = product + a;
+			double z = s - product;
+			double sumError = (product - (s - z)) + (a - z);
+
+			error = error * t + (productError + sumError);
+		}
+		return s + error;
+	}
+
+	private int push(int top, double start, double end, int startAgreements, int endAgreements) {
+		if (top == stack.length) {
+			stack = Arrays.copyOf(stack, 2 * stack.length);
+		}
+		stack[top] = start;
+		stack[top + 1] = end;
+		stack[top + 2] = startAgreements;
+		stack[top + 3] = endAgreements;
+		return top + 4;
+	}
+
+	/*
+	 * Bisect the ranges of all chains one level at a time. Every range is
+	 * handled exactly as the depth-first search above would, but the midpoints
+	 * of a whole level go to the kernel in a single call.
+	 */
+	private void isolateRoots(int chainCount) {
+		boolean newton = getRootRefinement() == RootRefinement.NEWTON;
+		ChainKernel kernel = getChainKernel();
+
+		//Valid roots are only those in the t range [0, 1], so we start our
+		//search range as that
+		int pointCount = 0;
+		for (int c = 0; c < chainCount; c++) {
+			if (chainSizes[c] >= 0) {
+				ensurePoints(pointCount + 2);
+				points[pointCount] = 0.0;
+				pointChains[pointCount++] = c;
+				points[pointCount] = 1.0;
+				pointChains[pointCount++] = c;
+			}
+		}
+		kernel.signAgreements(chains, degrees, chainSizes, points, pointChains, pointCount, agreements);
+		int rangeCount = 0;
+		for (int k = 0; k < pointCount; k += 2) {
+			rangeCount = pushRange(rangeCount, pointChains[k], 0.0, 1.0, agreements[k], agreements[k + 1]);
+		}
+
+		while (rangeCount > 0) {
+			//Settle what can be settled and queue the midpoints of the rest
+			pointCount = 0;
+			for (int r = 0; r < rangeCount; r++) {
+				int c = (int) ranges[5 * r];
+				double start = ranges[5 * r + 1];
+				double end = ranges[5 * r + 2];
+				int startAgreements = (int) ranges[5 * r + 3];
+				int endAgreements = (int) ranges[5 * r + 4];
+
+				//The number of roots in the range is the difference between
+				//the sign change counts
+				if (startAgreements == endAgreements) {
+					continue;
+				}
+				if (newton && Math.abs(startAgreements - endAgreements) == 1) {
+					double root = refine(c, start, end);
+					if (!Double.isNaN(root)) {
+						addRoot(c, root);
+						continue;
+					}
+				}
+				double mid = (start + end) / 2.0;
+				if (Math.abs(start - end) < BezierCurve.EPSILON) {
+					addRoot(c, mid);
+					continue;
+				}
+				ensurePoints(pointCount + 1);
+				points[pointCount] = mid;
+				pointChains[pointCount] = c;
+				pointRanges[pointCount] = r;
+				pointCount++;
+			}
+			if (pointCount == 0) {
+				break;
+			}
+			if (counting) {
+				tally[IntersectionMetrics.BISECTIONS] += pointCount;
+			}
+
+			kernel.signAgreements(chains, degrees, chainSizes, points, pointChains, pointCount, agreements);
+			int nextCount = 0;
+			for (int k = 0; k < pointCount; k++) {
+				int r = pointRanges[k];
+				nextCount = pushNext(nextCount, pointChains[k], ranges[5 * r + 1], points[k], (int) ranges[5 * r + 3], agreements[k]);
+				nextCount = pushNext(nextCount, pointChains[k], points[k], ranges[5 * r + 2], agreements[k], (int) ranges[5 * r + 4]);
+			}
+			double[] swap = ranges;
+			ranges = nextRanges;
+			nextRanges = swap;
+			rangeCount = nextCount;
+		}
+	}
+
+	/*
+	 * Vincent-Collins-Akritas isolation on the polynomial in the first row of
+	 * chain 0. The number of sign changes in the Bernstein coefficients on a
+	 * range bounds the number of roots in it from above and has the same
+	 * parity, so ranges without a change are dropped, ranges with one hold
+	 * exactly one root, and the rest are split in half. The second row is
+	 * overwritten with the derivative for Newton refinement.
+	 */
+	private int isolateDescartes(double[] roots, int offset) {
+		int n;
+		for (n = 9; n >= 0 && chains[n] == 0.0; n--) ;
+		if (n <= 0) {
+			//Vanishes identically or nowhere
+			return 0;
+		}
+		degrees[0] = n;
+		degrees[1] = n - 1;
+		for (int i = 0; i < n; i++) {
+			chains[ChainKernel.ROW + i] = (double) (i + 1) * chains[i + 1];
+		}
+		foundCounts[0] = 0;
+
+		bernstein[0] = 0.0;
+		bernstein[1] = 1.0;
+		double[][] basis = BERNSTEIN_BASIS[n];
+		boolean positive = false, negative = false;
+		for (int i = 0; i <= n; i++) {
+			double b = 0.0;
+			for (int j = 0; j <= i; j++) {
+				b += basis[i][j] * chains[j];
+			}
+			bernstein[2 + i] = b;
+			positive |= b > 0.0;
+			negative |= b < 0.0;
+		}
+		//The end coefficients are the values at the ends
+		if (bernstein[2] == 0.0) {
+			addRoot(0, 0.0);
+		}
+		if (bernstein[2 + n] == 0.0) {
+			addRoot(0, 1.0);
+		}
+
+		boolean newton = getRootRefinement() == RootRefinement.NEWTON;
+		//Coefficients that all share a sign leave nothing inside to isolate
+		int top = positive && negative ? BERNSTEIN_ENTRY : 0;
+		while (top > 0) {
+			top -= BERNSTEIN_ENTRY;
+			double start = bernstein[top];
+			double end = bernstein[top + 1];
+
+			int changes = 0;
+			double last = 0.0;
+			for (int i = 0; i <= n && changes < 2; i++) {
+				double b = bernstein[top + 2 + i];
+				if (b != 0.0) {
+					if (last != 0.0 && (b > 0.0) != (last > 0.0)) {
+						changes++;
+					}
+					last = b;
+				}
+			}
+			if (changes == 0) {
+				continue;
+			}
+			if (newton && changes == 1) {
+				double root = refine(0, start, end);
+				if (!Double.isNaN(root)) {
+					addRoot(0, root);
+					continue;
+				}
+			}
+			double mid = (start + end) / 2.0;
+			if (Math.abs(start - end) < BezierCurve.EPSILON) {
+				addRoot(0, mid);
+				continue;
+			}
+
+			if (counting) {
+				tally[IntersectionMetrics.BISECTIONS]++;
+			}
+			//de Casteljau at the midpoint, in place on the popped range. The
+			//left half takes the first coefficient of every level and the
+			//right half the last.
+			int w = top + 2;
+			for (int level = 0; level <= n; level++) {
+				left[level] = bernstein[w];
+				right[n - level] = bernstein[w + n - level];
+				for (int i = 0; i < n - level; i++) {
+					bernstein[w + i] = (bernstein[w + i] + bernstein[w + i + 1]) / 2.0;
+				}
+			}
+			//Both halves share the value at the midpoint
+			if (left[n] == 0.0) {
+				addRoot(0, mid);
+			}
+			top = pushBernstein(top, mid, end, right, n);
+			top = pushBernstein(top, start, mid, left, n);
+		}
+
+		return collectRoots(0, roots, offset, Math.min(MAX_ROOTS, roots.length - offset));
+	}
+
+	/*
+	 * Newton's method on the isolated range, safeguarded by bisection. Returns
+	 * NaN if the polynomial has the same sign at both ends, in which case the
+	 * range has to be bisected on the chain instead.
+	 */
+	private double refine(int c, double start, double end) {
+		double startval = evaluate(c, 0, start);
+		double endval = evaluate(c, 0, end);
+		if (startval == 0.0 || endval == 0.0 || (startval > 0.0) == (endval > 0.0)) {
+			return Double.NaN;
+		}
+		boolean startPositive = startval > 0.0;
+
+		double lo = start, hi = end;
+		double t = (start + end) / 2.0;
+		for (int i = 0; i < MAX_NEWTON_ITERATIONS && hi - lo >= BezierCurve.EPSILON; i++) {
+			if (counting) {
+				tally[IntersectionMetrics.REFINEMENT_STEPS]++;
+			}
+			double val = evaluate(c, 0, t);
+			if (val == 0.0) {
+				return t;
+			}
+			//Shrink the bracket to the side that still changes sign
+			if ((val > 0.0) == startPositive) {
+				lo = t;
+			} else {
+				hi = t;
+			}
+			double next = t - val / evaluate(c, 1, t);
+			if (!(next > lo && next < hi)) {
+				next = (lo + hi) / 2.0;
+			}
+			if (Math.abs(next - t) < BezierCurve.EPSILON) {
+				return next;
+			}
+			t = next;
+		}
+		return t;
+	}
+
+	private double evaluate(int c, int i, double t) {
+		return ScalarChainKernel.evaluate(chains, c * ChainKernel.CHAIN + i * ChainKernel.ROW, degrees[c * ChainKernel.ROW + i], t);
+	}
+
+	private void addRoot(int c, double root) {
+		if (foundCounts[c] < ROOT_CAPACITY) {
+			found[c * ROOT_CAPACITY + foundCounts[c]++] = root;
+		}
+	}
+
+	/*
+	 * Sort the roots found for chain c and copy them to the output without
+	 * duplicates, at most limit of them
+	 */
+	private int collectRoots(int c, double[] roots, int offset, int limit) {
+		int base = c * ROOT_CAPACITY;
+		int n = foundCounts[c];
+		for (int i = 1; i < n; i++) {
+			double root = found[base + i];
+			int j = i - 1;
+			for (; j >= 0 && found[base + j] > root; j--) {
+				found[base + j + 1] = found[base + j];
+			}
+			found[base + j + 1] = root;
+		}
+		int count = 0;
+		for (int i = 0; i < n && count < limit; i++) {
+			if (count == 0 || roots[offset + count - 1] != found[base + i]) {
+				roots[offset + count++] = found[base + i];
+			}
+		}
+		return count;
+	}
+
+	private int pushBernstein(int top, double start, double end, double[] coefficients, int n) {
+		if (top + BERNSTEIN_ENTRY > bernstein.length) {
+			bernstein = Arrays.copyOf(bernstein, 2 * bernstein.length);
+		}
+		bernstein[top] = start;
+		bernstein[top + 1] = end;
+		System.arraycopy(coefficients, 0, bernstein, top + 2, n + 1);
+		return top + BERNSTEIN_ENTRY;
+	}
+
+	private int pushRange(int top, int c, double start, double end, int startAgreements, int endAgreements) {
+		if (5 * top == ranges.length) {
+			ranges = Arrays.copyOf(ranges, 2 * ranges.length);
+		}
+		ranges[5 * top] = c;
+		ranges[5 * top + 1] = start;
+		ranges[5 * top + 2] = end;
+		ranges[5 * top + 3] = startAgreements;
+		ranges[5 * top + 4] = endAgreements;
+		return top + 1;
+	}
+
+	private int pushNext(int top, int c, double start, double end, int startAgreements, int endAgreements) {
+		if (5 * top == nextRanges.length) {
+			nextRanges = Arrays.copyOf(nextRanges, 2 * nextRanges.length);
+		}
+		nextRanges[5 * top] = c;
+		nextRanges[5 * top + 1] = start;
+		nextRanges[5 * top + 2] = end;
+		nextRanges[5 * top + 3] = startAgreements;
+		nextRanges[5 * top + 4] = endAgreements;
+		return top + 1;
+	}
+
+	private void ensurePoints(int count) {
+		if (count > points.length) {
+			int length = Math.max(count, 2 * points.length);
+			points = Arrays.copyOf(points, length);
+			pointChains = Arrays.copyOf(pointChains, length);
+			pointRanges = Arrays.copyOf(pointRanges, length);
+			agreements = Arrays.copyOf(agreements, length);
+		}
+	}
+
+}
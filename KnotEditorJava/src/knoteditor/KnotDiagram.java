@@ -0,0 +1,607 @@
+package knoteditor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/*
+ * The crossing graph of a curve list: every component of the knot or link as
+ * the sequence of crossings met along it, every crossing linked to the two
+ * places its strands pass through it, and the Gauss and PD codes read off
+ * that graph.
+ *
+ * Curves run in list order, a curve continues the one before it when it
+ * starts exactly where that one ends, and a run closes into a loop when its
+ * last curve ends where its first begins. Intersections where both curves are at an end are
+ * joints, not crossings. Along a component, crossings are ordered by curve
+ * and then by the parameter of the crossing on that curve.
+ *
+ * The crossings of every curve are kept sorted, so adding or removing one
+ * crossing only inserts into or removes from the lists of its two curves.
+ * Crossing numbers, arc labels and signs are derived on the next read in a
+ * single walk over curves and crossings, so building or updating the codes
+ * is O(n + k log k) for n curves and k crossings. KnotRenderer draws from
+ * the same graph, so both always agree on the strands and on which strand
+ * passes over. The diagram is not thread safe.
+ */
+public class KnotDiagram {
+
+	private static final double ENDPOINT_TOLERANCE = 1e-9;
+
+	static final class Crossing {
+		final BezierIntersection intersection;
+		final int p, q;
+		boolean pOver;
+		//Number from 1 in the order crossings are first met, and the arcs
+		//going in and out on both strands, all set by the walk
+		int label;
+		int pIn, pOut, qIn, qOut;
+
+		Crossing(BezierIntersection intersection, int p, int q) {
+			this.intersection = intersection;
+			this.p = p;
+			this.q = q;
+		}
+
+		/*
+		 * +1 for a right handed crossing, -1 for a left handed one, as the
+		 * diagram is drawn on screen with y pointing down
+		 */
+		int sign() {
+			BezierCurve over = pOver ? intersection.p : intersection.q;
+			BezierCurve under = pOver ? intersection.q : intersection.p;
+			double to = pOver ? intersection.pIntersect.t : intersection.qIntersect.t;
+			double tu = pOver ? intersection.qIntersect.t : intersection.pIntersect.t;
+			double cross = over.tangentX(to) * under.tangentY(tu) - over.tangentY(to) * under.tangentX(tu);
+			return cross > 0 ? -1 : 1;
+		}
+	}
+
+	static final class Visit {
+		final Crossing crossing;
+		final boolean onP;
+		final double t;
+
+		Visit(Crossing crossing, boolean onP, double t) {
+			this.crossing = crossing;
+			this.onP = onP;
+			this.t = t;
+		}
+
+		boolean isOver() {
+			return onP == crossing.pOver;
+		}
+	}
+
+	private static final Comparator<Visit> BY_PARAMETER = new Comparator<Visit>() {
+		@Override
+		public int compare(Visit o1, Visit o2) {
+			return Double.compare(o1.t, o2.t);
+		}
+	};
+
+	private final List<BezierCurve> curves;
+	private final Map<BezierCurve, Integer> indices = new IdentityHashMap<BezierCurve, Integer>();
+	//Index of the curve a strand continues into or comes from, -1 at an open end
+	private final int[] next, previous;
+	//First curve of every component, open strands first, and the component of every curve
+	private final int[] componentStart, componentOf;
+	private final boolean[] closed;
+	//Crossings on every curve, sorted by parameter
+	private final List<List<Visit>> visits;
+	private final Map<BezierIntersection, Crossing> crossings = new LinkedHashMap<BezierIntersection, Crossing>();
+
+	//Crossings along every component, and whether the labels and arcs are current
+	private List<List<Visit>> order;
+	private boolean walked;
+	//Goes up with every change to the crossings or to who passes over
+	private int modifications;
+
+	/*
+	 * Crossings start out alternating along every strand
+	 */
+	public KnotDiagram(List<BezierCurve> curves, Collection<BezierIntersection> intersections) {
+		this.curves = new ArrayList<BezierCurve>(curves);
+		int n = curves.size();
+		for (int i = 0; i < n; i++) {
+			indices.put(curves.get(i), i);
+		}
+		next = new int[n];
+		previous = new int[n];
+		componentOf = new int[n];
+		closed = new boolean[n];
+		connect();
+		componentStart = components();
+
+		visits = new ArrayList<List<Visit>>(n);
+		for (int i = 0; i < n; i++) {
+			visits.add(new ArrayList<Visit>(2));
+		}
+		for (BezierIntersection intersection : intersections) {
+			Crossing crossing = newCrossing(intersection);
+			if (crossing != null) {
+				visits.get(crossing.p).add(new Visit(crossing, true, intersection.pIntersect.t));
+				visits.get(crossing.q).add(new Visit(crossing, false, intersection.qIntersect.t));
+			}
+		}
+		for (List<Visit> curveVisits : visits) {
+			Collections.sort(curveVisits, BY_PARAMETER);
+		}
+		assignAlternating();
+	}
+
+	private static boolean atEnd(double t) {
+		return t <= ENDPOINT_TOLERANCE || t >= 1 - ENDPOINT_TOLERANCE;
+	}
+
+	private boolean joins(int a, int b) {
+		BezierCurve c = curves.get(a), d = curves.get(b);
+		return c.x2 == d.x1 && c.y2 == d.y1;
+	}
+
+	private void connect() {
+		int n = curves.size();
+		for (int i = 0; i < n; i++) {
+			next[i] = -1;
+			previous[i] = -1;
+		}
+		int start = 0;
+		for (int i = 0; i < n; i++) {
+			if (i + 1 < n && joins(i, i + 1)) {
+				next[i] = i + 1;
+				previous[i + 1] = i;
+			} else {
+				if (joins(i, start)) {
+					next[i] = start;
+					previous[start] = i;
+				}
+				start = i + 1;
+			}
+		}
+	}
+
+	/*
+	 * Number the components, open strands first and then the closed loops
+	 * left over, and return the first curve of each
+	 */
+	private int[] components() {
+		int n = curves.size();
+		int[] starts = new int[n];
+		int count = 0;
+		boolean[] seen = new boolean[n];
+		for (int pass = 0; pass < 2; pass++) {
+			for (int start = 0; start < n; start++) {
+				if (seen[start] || (pass == 0 && previous[start] >= 0)) {
+					continue;
+				}
+				closed[count] = pass == 1;
+				int i = start;
+				do {
+					seen[i] = true;
+					componentOf[i] = count;
+					i = next[i];
+				} while (i >= 0 && i != start);
+				starts[count++] = start;
+			}
+		}
+		int[] trimmed = new int[count];
+		System.arraycopy(starts, 0, trimmed, 0, count);
+		return trimmed;
+	}
+
+	/*
+	 * Position a visit at parameter t goes to, after any visit at the same t
+	 */
+	private static int insertionPoint(List<Visit> curveVisits, double t) {
+		int lo = 0, hi = curveVisits.size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (curveVisits.get(mid).t <= t) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	private int index(BezierCurve c, BezierIntersection intersection) {
+		Integer i = indices.get(c);
+		if (i == null) {
+			throw new IllegalArgumentException("intersection of a curve that is not in the list: " + intersection);
+		}
+		return i;
+	}
+
+	/*
+	 * A crossing for the intersection, registered, or null for a joint or an
+	 * intersection the diagram already has
+	 */
+	private Crossing newCrossing(BezierIntersection intersection) {
+		int p = index(intersection.p, intersection);
+		int q = index(intersection.q, intersection);
+		if (atEnd(intersection.pIntersect.t) && atEnd(intersection.qIntersect.t)) {
+			return null;
+		}
+		if (crossings.containsKey(intersection)) {
+			return null;
+		}
+		Crossing crossing = new Crossing(intersection, p, q);
+		crossings.put(intersection, crossing);
+		return crossing;
+	}
+
+	//Curve a strand continues into or comes from, -1 at an open end
+	int next(int i) {
+		return next[i];
+	}
+
+	int previous(int i) {
+		return previous[i];
+	}
+
+	/*
+	 * Crossings on curve i, sorted by parameter
+	 */
+	List<Visit> visits(int i) {
+		return visits.get(i);
+	}
+
+	int getModificationCount() {
+		return modifications;
+	}
+
+	public List<BezierCurve> getCurves() {
+		return Collections.unmodifiableList(curves);
+	}
+
+	public int getCrossingCount() {
+		return crossings.size();
+	}
+
+	public Set<BezierIntersection> getCrossings() {
+		return Collections.unmodifiableSet(crossings.keySet());
+	}
+
+	public int getComponentCount() {
+		return componentStart.length;
+	}
+
+	/*
+	 * Component the curve at index i belongs to
+	 */
+	public int getComponent(int i) {
+		return componentOf[i];
+	}
+
+	/*
+	 * Whether a component closes into a loop rather than ending open
+	 */
+	public boolean isClosed(int component) {
+		return closed[component];
+	}
+
+	/*
+	 * Index of the curve a component starts with. Loops start at their lowest
+	 * curve index.
+	 */
+	public int getComponentStart(int component) {
+		return componentStart[component];
+	}
+
+	Crossing crossing(BezierIntersection intersection) {
+		Crossing crossing = crossings.get(intersection);
+		if (crossing == null) {
+			throw new IllegalArgumentException("not a crossing of this diagram: " + intersection);
+		}
+		return crossing;
+	}
+
+	/*
+	 * Whether the p curve of the intersection passes over the q curve
+	 */
+	public boolean isOver(BezierIntersection intersection) {
+		return crossing(intersection).pOver;
+	}
+
+	public void setOver(BezierIntersection intersection, boolean pOver) {
+		crossing(intersection).pOver = pOver;
+		modifications++;
+	}
+
+	/*
+	 * Components of the over and the under strand of a crossing, which are
+	 * the same for a crossing of a component with itself
+	 */
+	public int getOverComponent(BezierIntersection intersection) {
+		Crossing crossing = crossing(intersection);
+		return componentOf[crossing.pOver ? crossing.p : crossing.q];
+	}
+
+	public int getUnderComponent(BezierIntersection intersection) {
+		Crossing crossing = crossing(intersection);
+		return componentOf[crossing.pOver ? crossing.q : crossing.p];
+	}
+
+	/*
+	 * Number of a crossing in the codes, counting from 1 in the order the
+	 * crossings are first met walking the components
+	 */
+	public int getLabel(BezierIntersection intersection) {
+		Crossing crossing = crossing(intersection);
+		walk();
+		return crossing.label;
+	}
+
+	/*
+	 * +1 for a right handed crossing and -1 for a left handed one, with the
+	 * strands oriented the way the curves run and the diagram seen the way
+	 * it is drawn, with y pointing down
+	 */
+	public int getSign(BezierIntersection intersection) {
+		return crossing(intersection).sign();
+	}
+
+	/*
+	 * Crossings in the order they are met along a component. A crossing of
+	 * the component with itself is met twice.
+	 */
+	public List<BezierIntersection> getCrossings(int component) {
+		walk();
+		List<Visit> along = order.get(component);
+		List<BezierIntersection> result = new ArrayList<BezierIntersection>(along.size());
+		for (Visit visit : along) {
+			result.add(visit.crossing.intersection);
+		}
+		return result;
+	}
+
+	/*
+	 * Add a crossing and keep the diagram otherwise as it is. Returns false
+	 * for a joint or a crossing the diagram already has.
+	 */
+	public boolean addCrossing(BezierIntersection intersection, boolean pOver) {
+		Crossing crossing = newCrossing(intersection);
+		if (crossing == null) {
+			return false;
+		}
+		crossing.pOver = pOver;
+		List<Visit> pVisits = visits.get(crossing.p);
+		double pt = intersection.pIntersect.t;
+		pVisits.add(insertionPoint(pVisits, pt), new Visit(crossing, true, pt));
+		List<Visit> qVisits = visits.get(crossing.q);
+		double qt = intersection.qIntersect.t;
+		qVisits.add(insertionPoint(qVisits, qt), new Visit(crossing, false, qt));
+		walked = false;
+		modifications++;
+		return true;
+	}
+
+	/*
+	 * Add a crossing with the p curve passing over unless the crossing before
+	 * it on that curve has the p curve passing over too
+	 */
+	public boolean addCrossing(BezierIntersection intersection) {
+		Integer p = indices.get(intersection.p);
+		boolean pOver = true;
+		if (p != null) {
+			List<Visit> pVisits = visits.get(p);
+			int k = insertionPoint(pVisits, intersection.pIntersect.t);
+			pOver = k == 0 || !pVisits.get(k - 1).isOver();
+		}
+		return addCrossing(intersection, pOver);
+	}
+
+	/*
+	 * Remove a crossing, as when its curves were moved apart. Returns false
+	 * if the diagram does not have it.
+	 */
+	public boolean removeCrossing(BezierIntersection intersection) {
+		Crossing crossing = crossings.remove(intersection);
+		if (crossing == null) {
+			return false;
+		}
+		remove(visits.get(crossing.p), crossing, true, intersection.pIntersect.t);
+		remove(visits.get(crossing.q), crossing, false, intersection.qIntersect.t);
+		walked = false;
+		modifications++;
+		return true;
+	}
+
+	private static void remove(List<Visit> curveVisits, Crossing crossing, boolean onP, double t) {
+		//Visits at t end just before the insertion point
+		for (int k = insertionPoint(curveVisits, t) - 1; k >= 0; k--) {
+			Visit visit = curveVisits.get(k);
+			if (visit.crossing == crossing && visit.onP == onP) {
+				curveVisits.remove(k);
+				return;
+			}
+		}
+	}
+
+	/*
+	 * Added and removed crossings of an index update. Crossings of curves
+	 * that are not in this diagram are left out.
+	 */
+	public void update(IntersectionDelta delta) {
+		for (BezierIntersection intersection : delta.getRemoved()) {
+			removeCrossing(intersection);
+		}
+		for (BezierIntersection intersection : delta.getAdded()) {
+			if (indices.containsKey(intersection.p) && indices.containsKey(intersection.q)) {
+				addCrossing(intersection);
+			}
+		}
+	}
+
+	/*
+	 * Make over and under alternate along every strand, following the open
+	 * strands first and then the closed loops
+	 */
+	public void assignAlternating() {
+		Set<Crossing> seen = new HashSet<Crossing>();
+		for (int start : componentStart) {
+			boolean over = true;
+			int i = start;
+			do {
+				for (Visit visit : visits.get(i)) {
+					Crossing crossing = visit.crossing;
+					if (seen.add(crossing)) {
+						crossing.pOver = visit.onP == over;
+					} else {
+						over = visit.isOver();
+					}
+					over = !over;
+				}
+				i = next[i];
+			} while (i >= 0 && i != start);
+		}
+		modifications++;
+	}
+
+	/*
+	 * Walk every component once, numbering crossings as they are first met
+	 * and arcs as they are passed. Arcs run from one crossing to the next,
+	 * counting from 1 across all components. A loop's last arc is its
+	 * first; an open strand has one more arc than it has crossings.
+	 */
+	private void walk() {
+		if (walked) {
+			return;
+		}
+		order = new ArrayList<List<Visit>>(componentStart.length);
+		for (Crossing crossing : crossings.values()) {
+			crossing.label = 0;
+		}
+		int label = 0;
+		int arc = 1;
+		for (int component = 0; component < componentStart.length; component++) {
+			List<Visit> along = new ArrayList<Visit>();
+			int start = componentStart[component];
+			int i = start;
+			do {
+				along.addAll(visits.get(i));
+				i = next[i];
+			} while (i >= 0 && i != start);
+			order.add(along);
+
+			int first = arc;
+			for (int k = 0; k < along.size(); k++) {
+				Visit visit = along.get(k);
+				Crossing crossing = visit.crossing;
+				if (crossing.label == 0) {
+					crossing.label = ++label;
+				}
+				int in = arc;
+				int out = closed[component] && k == along.size() - 1 ? first : ++arc;
+				if (visit.onP) {
+					crossing.pIn = in;
+					crossing.pOut = out;
+				} else {
+					crossing.qIn = in;
+					crossing.qOut = out;
+				}
+			}
+			if (!closed[component] || !along.isEmpty()) {
+				arc++;
+			}
+		}
+		walked = true;
+	}
+
+	/*
+	 * Gauss code of every component: the numbers of the crossings met along
+	 * it, positive where the component passes over and negative where it
+	 * passes under
+	 */
+	public int[][] getGaussCode() {
+		walk();
+		int[][] code = new int[order.size()][];
+		for (int component = 0; component < code.length; component++) {
+			List<Visit> along = order.get(component);
+			code[component] = new int[along.size()];
+			for (int k = 0; k < along.size(); k++) {
+				Visit visit = along.get(k);
+				code[component][k] = visit.isOver() ? visit.crossing.label : -visit.crossing.label;
+			}
+		}
+		return code;
+	}
+
+	/*
+	 * Signs of the crossings by number, the first crossing at index 0
+	 */
+	public int[] getSigns() {
+		walk();
+		int[] signs = new int[crossings.size()];
+		for (Crossing crossing : crossings.values()) {
+			signs[crossing.label - 1] = crossing.sign();
+		}
+		return signs;
+	}
+
+	/*
+	 * PD code with one X[a, b, c, d] entry per crossing, by crossing number.
+	 * a is the arc coming in on the under strand and the others follow
+	 * counterclockwise as drawn, so c is the arc leaving on the under strand.
+	 */
+	public int[][] getPDCode() {
+		walk();
+		int[][] code = new int[crossings.size()][];
+		for (Crossing crossing : crossings.values()) {
+			int underIn = crossing.pOver ? crossing.qIn : crossing.pIn;
+			int underOut = crossing.pOver ? crossing.qOut : crossing.pOut;
+			int overIn = crossing.pOver ? crossing.pIn : crossing.qIn;
+			int overOut = crossing.pOver ? crossing.pOut : crossing.qOut;
+			code[crossing.label - 1] = crossing.sign() > 0
+					? new int[] { underIn, overOut, underOut, overIn }
+					: new int[] { underIn, overIn, underOut, overOut };
+		}
+		return code;
+	}
+
+	/*
+	 * The Gauss code as text, crossings as O or U and their number,
+	 * components separated by " | "
+	 */
+	public String toGaussString() {
+		StringBuilder s = new StringBuilder();
+		for (int[] component : getGaussCode()) {
+			if (s.length() > 0) {
+				s.append(" | ");
+			}
+			for (int k = 0; k < component.length; k++) {
+				if (k > 0) {
+					s.append(' ');
+				}
+				s.append(component[k] > 0 ? 'O' : 'U').append(Math.abs(component[k]));
+			}
+		}
+		return s.toString();
+	}
+
+	/*
+	 * The PD code as text in the PD[X[...], ...] notation
+	 */
+	public String toPDString() {
+		StringBuilder s = new StringBuilder("PD[");
+		int[][] code = getPDCode();
+		for (int k = 0; k < code.length; k++) {
+			if (k > 0) {
+				s.append(", ");
+			}
+			s.append("X[").append(code[k][0]).append(", ").append(code[k][1]).append(", ")
+					.append(code[k][2]).append(", ").append(code[k][3]).append(']');
+		}
+		return s.append(']').toString();
+	}
+
+}
@@ -0,0 +1,385 @@
+package knoteditor;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import knoteditor.KnotDiagram.Crossing;
+import knoteditor.KnotDiagram.Visit;
+
+
+/*
+ * Draws a KnotDiagram. At every crossing one strand passes over and the
+ * other is cut open for a short gap around the crossing point, measured
+ * along the curve and carried over into the neighbouring curve when the
+ * crossing sits close to a joint. The strands, the crossings and which
+ * strand passes over all come from the diagram, so the drawing and the codes
+ * read off the diagram always agree.
+ *
+ * The gap of every crossing and the visible pieces of every curve are cached.
+ * Changing a crossing through the renderer only drops the pieces of the
+ * curves its gap touches, so the next output regenerates those and reuses
+ * the rest. A change made on the diagram directly drops everything. The
+ * renderer is not thread safe.
+ */
+public class KnotRenderer {
+
+	private static volatile double defaultGap = Double.parseDouble(System.getProperty("knoteditor.knotgap", "10"));
+
+	public static double getDefaultGap() {
+		return defaultGap;
+	}
+
+	public static void setDefaultGap(double gap) {
+		defaultGap = gap;
+	}
+
+	/*
+	 * Parameter ranges cut from the under strand of a crossing, as curve
+	 * indices and start/end pairs
+	 */
+	private static final class Gap {
+		final int[] curves;
+		final double[] ranges;
+
+		Gap(int[] curves, double[] ranges) {
+			this.curves = curves;
+			this.ranges = ranges;
+		}
+	}
+
+	private final KnotDiagram diagram;
+	private final List<BezierCurve> curves;
+	private final Map<Crossing, Gap> gaps = new HashMap<Crossing, Gap>();
+	//Modification count of the diagram the caches were built against
+	private int modifications;
+
+	//Visible pieces of every curve and their parameter ranges, null when stale
+	private final BezierCurve[][] pieces;
+	private final double[][] pieceRanges;
+
+	private double gap = defaultGap;
+	private double strokeWidth = 1;
+
+	/*
+	 * Crossings start out alternating along every strand
+	 */
+	public KnotRenderer(List<BezierCurve> curves, Collection<BezierIntersection> intersections) {
+		this(new KnotDiagram(curves, intersections));
+	}
+
+	public KnotRenderer(KnotDiagram diagram) {
+		this.diagram = diagram;
+		curves = diagram.getCurves();
+		pieces = new BezierCurve[curves.size()][];
+		pieceRanges = new double[curves.size()][];
+		modifications = diagram.getModificationCount();
+	}
+
+	public KnotDiagram getDiagram() {
+		return diagram;
+	}
+
+	public int getCrossingCount() {
+		return diagram.getCrossingCount();
+	}
+
+	public Set<BezierIntersection> getCrossings() {
+		return diagram.getCrossings();
+	}
+
+	/*
+	 * Whether the p curve of the intersection passes over the q curve
+	 */
+	public boolean isOver(BezierIntersection intersection) {
+		return diagram.isOver(intersection);
+	}
+
+	public void setOver(BezierIntersection intersection, boolean pOver) {
+		Crossing crossing = diagram.crossing(intersection);
+		if (crossing.pOver != pOver) {
+			sync();
+			invalidate(crossing);
+			diagram.setOver(intersection, pOver);
+			modifications = diagram.getModificationCount();
+			invalidate(crossing);
+		}
+	}
+
+	public void flip(BezierIntersection intersection) {
+		setOver(intersection, !diagram.isOver(intersection));
+	}
+
+	/*
+	 * Let over and under alternate along every strand again, see
+	 * KnotDiagram.assignAlternating
+	 */
+	public void assignAlternating() {
+		diagram.assignAlternating();
+		sync();
+	}
+
+	/*
+	 * Length of the gap cut into the under strand, in curve coordinates
+	 */
+	public double getGap() {
+		return gap;
+	}
+
+	public void setGap(double gap) {
+		if (!(gap >= 0)) {
+			throw new IllegalArgumentException("gap must not be negative: " + gap);
+		}
+		this.gap = gap;
+		clear();
+	}
+
+	public double getStrokeWidth() {
+		return strokeWidth;
+	}
+
+	public void setStrokeWidth(double strokeWidth) {
+		this.strokeWidth = strokeWidth;
+	}
+
+	private void clear() {
+		gaps.clear();
+		Arrays.fill(pieces, null);
+		Arrays.fill(pieceRanges, null);
+	}
+
+	//Drop every cache if the diagram was changed behind the renderer's back
+	private void sync() {
+		if (modifications != diagram.getModificationCount()) {
+			modifications = diagram.getModificationCount();
+			clear();
+		}
+	}
+
+	//Drop the cached pieces of every curve the gap of the crossing touches
+	private void invalidate(Crossing crossing) {
+		for (int i : gapOf(crossing).curves) {
+			pieces[i] = null;
+			pieceRanges[i] = null;
+		}
+		gaps.remove(crossing);
+	}
+
+	/*
+	 * Cut half the gap either side of the crossing, stepping along the curve
+	 * at the speed found at the crossing, and carry what does not fit into
+	 * the neighbouring curve at the speed found at its end
+	 */
+	private Gap gapOf(Crossing crossing) {
+		Gap cached = gaps.get(crossing);
+		if (cached != null) {
+			return cached;
+		}
+		int u = crossing.pOver ? crossing.q : crossing.p;
+		double t = crossing.pOver ? crossing.intersection.qIntersect.t : crossing.intersection.pIntersect.t;
+		BezierCurve c = curves.get(u);
+		double half = gap / 2;
+		double speed = c.speed(t);
+		double dt = speed > 0 ? half / speed : 1;
+
+		int[] gapCurves = new int[3];
+		double[] gapRanges = new double[6];
+		int count = 0;
+		gapCurves[count] = u;
+		gapRanges[2 * count] = Math.max(0, t - dt);
+		gapRanges[2 * count + 1] = Math.min(1, t + dt);
+		count++;
+
+		double before = half - t * speed;
+		int previous = diagram.previous(u);
+		if (t - dt < 0 && before > 0 && previous >= 0) {
+			double end = curves.get(previous).speed(1);
+			gapCurves[count] = previous;
+			gapRanges[2 * count] = Math.max(0, end > 0 ? 1 - before / end : 0);
+			gapRanges[2 * count + 1] = 1;
+			count++;
+		}
+		double after = half - (1 - t) * speed;
+		int next = diagram.next(u);
+		if (t + dt > 1 && after > 0 && next >= 0) {
+			double start = curves.get(next).speed(0);
+			gapCurves[count] = next;
+			gapRanges[2 * count] = 0;
+			gapRanges[2 * count + 1] = Math.min(1, start > 0 ? after / start : 1);
+			count++;
+		}
+		Gap computed = new Gap(Arrays.copyOf(gapCurves, count), Arrays.copyOf(gapRanges, 2 * count));
+		gaps.put(crossing, computed);
+		return computed;
+	}
+
+	/*
+	 * Split curve i around every gap that reaches it. Gaps only spill into
+	 * the next curve along, so only crossings on the curve and its two
+	 * neighbours can cut it.
+	 */
+	private void split(int i) {
+		double[] cuts = new double[8];
+		int count = 0;
+		int[] sources = { diagram.previous(i), i, diagram.next(i) };
+		for (int s = 0; s < sources.length; s++) {
+			int source = sources[s];
+			if (source < 0 || (s == 2 && source == sources[0]) || (s != 1 && source == i)) {
+				continue;
+			}
+			for (Visit visit : diagram.visits(source)) {
+				Crossing crossing = visit.crossing;
+				//Self-intersections visit a curve twice but cut it once
+				if (!visit.onP && crossing.p == crossing.q) {
+					continue;
+				}
+				Gap cut = gapOf(crossing);
+				for (int k = 0; k < cut.curves.length; k++) {
+					if (cut.curves[k] == i) {
+						if (2 * count == cuts.length) {
+							cuts = Arrays.copyOf(cuts, 2 * cuts.length);
+						}
+						cuts[2 * count] = cut.ranges[2 * k];
+						cuts[2 * count + 1] = cut.ranges[2 * k + 1];
+						count++;
+					}
+				}
+			}
+		}
+
+		//Sort the cuts by start and keep what lies between them
+		double[][] sorted = new double[count][];
+		for (int k = 0; k < count; k++) {
+			sorted[k] = new double[] { cuts[2 * k], cuts[2 * k + 1] };
+		}
+		Arrays.sort(sorted, new Comparator<double[]>() {
+			@Override
+			public int compare(double[] o1, double[] o2) {
+				return Double.compare(o1[0], o2[0]);
+			}
+		});
+		List<BezierCurve> visible = new ArrayList<BezierCurve>(count + 1);
+		double[] ranges = new double[2 * (count + 1)];
+		int pieceCount = 0;
+		double from = 0;
+		BezierCurve c = curves.get(i);
+		for (int k = 0; k <= count; k++) {
+			double to = k < count ? sorted[k][0] : 1;
+			if (to > from) {
+				visible.add(from == 0 && to == 1 ? c : c.subCurve(from, to));
+				ranges[2 * pieceCount] = from;
+				ranges[2 * pieceCount + 1] = to;
+				pieceCount++;
+			}
+			if (k < count) {
+				from = Math.max(from, sorted[k][1]);
+			}
+		}
+		pieces[i] = visible.toArray(new BezierCurve[pieceCount]);
+		pieceRanges[i] = Arrays.copyOf(ranges, 2 * pieceCount);
+	}
+
+	private BezierCurve[] pieces(int i) {
+		sync();
+		if (pieces[i] == null) {
+			split(i);
+		}
+		return pieces[i];
+	}
+
+	/*
+	 * The cached pieces of curve i, or null if they have to be regenerated
+	 */
+	BezierCurve[] cachedPieces(int i) {
+		sync();
+		return pieces[i];
+	}
+
+	/*
+	 * Every visible piece in curve order, for drawing the diagram with
+	 * TileRenderer or anything else that takes plain curves
+	 */
+	public List<BezierCurve> getPieces() {
+		List<BezierCurve> all = new ArrayList<BezierCurve>();
+		for (int i = 0; i < curves.size(); i++) {
+			all.addAll(Arrays.asList(pieces(i)));
+		}
+		return all;
+	}
+
+	/*
+	 * Writes the diagram as SVG paths. A piece continues the path of the one
+	 * before it when it picks up at the joint where that one stopped.
+	 */
+	public void writeSVG(Writer out) throws IOException {
+		//The view box covers the curves wherever they lie, with room for the
+		//stroke on every side
+		double xmin = Double.POSITIVE_INFINITY, ymin = Double.POSITIVE_INFINITY;
+		double xmax = Double.NEGATIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+		for (BezierCurve c : curves) {
+			Bounds bounds = c.getBounds();
+			xmin = Math.min(xmin, bounds.xmin);
+			ymin = Math.min(ymin, bounds.ymin);
+			xmax = Math.max(xmax, bounds.xmax);
+			ymax = Math.max(ymax, bounds.ymax);
+		}
+		if (curves.isEmpty()) {
+			xmin = ymin = xmax = ymax = 0;
+		}
+		double pad = strokeWidth / 2;
+		xmin = Math.floor(xmin - pad);
+		ymin = Math.floor(ymin - pad);
+		double width = Math.ceil(xmax + pad) - xmin;
+		double height = Math.ceil(ymax + pad) - ymin;
+
+		out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height + "\" viewBox=\"" + xmin + " " + ymin + " " + width + " " + height + "\">\n");
+		out.write("<g fill=\"none\" stroke=\"black\" stroke-width=\"" + strokeWidth + "\">\n");
+		boolean open = false;
+		int last = -1;
+		double lastEnd = 0;
+		for (int i = 0; i < curves.size(); i++) {
+			BezierCurve[] visible = pieces(i);
+			double[] ranges = pieceRanges[i];
+			for (int k = 0; k < visible.length; k++) {
+				BezierCurve c = visible[k];
+				boolean continues = open && ranges[2 * k] == 0 && last == diagram.previous(i) && last >= 0 && lastEnd == 1;
+				if (!continues) {
+					if (open) {
+						out.write("\"/>\n");
+					}
+					out.write("<path d=\"M" + c.x1 + "," + c.y1);
+					open = true;
+				}
+				out.write(" C" + c.cx1 + "," + c.cy1 + " " + c.cx2 + "," + c.cy2 + " " + c.x2 + "," + c.y2);
+				last = i;
+				lastEnd = ranges[2 * k + 1];
+			}
+		}
+		if (open) {
+			out.write("\"/>\n");
+		}
+		out.write("</g>\n</svg>\n");
+	}
+
+	public void writeSVG(File file) throws IOException {
+		Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+		try {
+			writeSVG(out);
+		} finally {
+			out.close();
+		}
+	}
+
+}
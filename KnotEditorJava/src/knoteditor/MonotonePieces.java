@@ -0,0 +1,172 @@
+package knoteditor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/*
+ * Curves cut at the points where x or y turns around, so that every piece is
+ * monotone in both coordinates. The box of a monotone piece is just the box
+ * of its ends and hugs it closely, so far fewer pieces than whole curves
+ * survive the sweep, and the narrow phase works on shorter, flatter arcs.
+ *
+ * Every piece remembers its curve and the parameter range it covers there,
+ * and the intersections found between pieces are reported on the original
+ * curves. Pieces of the same curve are never paired, since crossings of a
+ * curve with itself come from its own self-intersection test.
+ */
+public class MonotonePieces {
+
+	//A crossing this close to the start of a piece that continues an
+	//earlier piece of the same curve is left to that earlier piece, so a
+	//crossing right at a cut is only reported once
+	static final double JOINT_TOLERANCE = 1e-9;
+
+	private final List<BezierCurve> curves;
+	private final List<BezierCurve> pieces;
+	private int[] owner;
+	private double[] start, end;
+
+	public MonotonePieces(List<BezierCurve> curves) {
+		this.curves = curves;
+		pieces = new ArrayList<BezierCurve>(2 * curves.size());
+		owner = new int[2 * curves.size() + 1];
+		start = new double[owner.length];
+		end = new double[owner.length];
+
+		double[] splits = new double[4];
+		for (int i = 0; i < curves.size(); i++) {
+			BezierCurve c = curves.get(i);
+			int n = c.monotoneSplits(splits);
+			if (n == 0) {
+				add(c, i, 0, 1);
+				continue;
+			}
+			double t0 = 0;
+			for (int k = 0; k <= n; k++) {
+				double t1 = k < n ? splits[k] : 1;
+				add(c.subCurve(t0, t1), i, t0, t1);
+				t0 = t1;
+			}
+		}
+	}
+
+	private void add(BezierCurve piece, int curve, double t0, double t1) {
+		int k = pieces.size();
+		if (k == owner.length) {
+			int capacity = 2 * owner.length;
+			int[] grownOwner = new int[capacity];
+			double[] grownStart = new double[capacity];
+			double[] grownEnd = new double[capacity];
+			System.arraycopy(owner, 0, grownOwner, 0, k);
+			System.arraycopy(start, 0, grownStart, 0, k);
+			System.arraycopy(end, 0, grownEnd, 0, k);
+			owner = grownOwner;
+			start = grownStart;
+			end = grownEnd;
+		}
+		pieces.add(piece);
+		owner[k] = curve;
+		start[k] = t0;
+		end[k] = t1;
+	}
+
+	public List<BezierCurve> getCurves() {
+		return Collections.unmodifiableList(curves);
+	}
+
+	public List<BezierCurve> getPieces() {
+		return Collections.unmodifiableList(pieces);
+	}
+
+	public int size() {
+		return pieces.size();
+	}
+
+	/*
+	 * Index of the curve piece k was cut from
+	 */
+	public int getCurveIndex(int k) {
+		return owner[k];
+	}
+
+	public double getStart(int k) {
+		return start[k];
+	}
+
+	public double getEnd(int k) {
+		return end[k];
+	}
+
+	/*
+	 * The parameter on the original curve of parameter t on piece k. The
+	 * ends map exactly onto the cut parameters.
+	 */
+	public double toCurveParameter(int k, double t) {
+		if (t >= 1) {
+			return end[k];
+		}
+		return start[k] + t * (end[k] - start[k]);
+	}
+
+	/*
+	 * Sweep and prune over the tight piece boxes. Each box is padded by the
+	 * tolerance of its whole curve, so no pair the whole curves would match
+	 * is lost.
+	 */
+	public PairList candidatePairs() {
+		int n = pieces.size();
+		double[] xmin = new double[n];
+		double[] ymin = new double[n];
+		double[] xmax = new double[n];
+		double[] ymax = new double[n];
+		for (int k = 0; k < n; k++) {
+			Bounds bounds = pieces.get(k).getBounds();
+			double pad = BroadPhase.tolerancePad(curves.get(owner[k]).getControlBounds());
+			xmin[k] = bounds.xmin - pad;
+			ymin[k] = bounds.ymin - pad;
+			xmax[k] = bounds.xmax + pad;
+			ymax[k] = bounds.ymax + pad;
+		}
+		return BroadPhase.sweepAndPrune(n, xmin, ymin, xmax, ymax, owner);
+	}
+
+	/*
+	 * Number of distinct pairs of curves among pairs of pieces
+	 */
+	int curvePairs(PairList pairs) {
+		Set<Long> distinct = new HashSet<Long>();
+		for (int k = 0; k < pairs.size(); k++) {
+			distinct.add(((long) owner[pairs.p(k)] << 32) | owner[pairs.q(k)]);
+		}
+		return distinct.size();
+	}
+
+	/*
+	 * Intersect pieces i and j with the tolerance of their whole curves and
+	 * report the crossings on those curves
+	 */
+	public Set<BezierIntersection> createIntersections(int i, int j) {
+		BezierCurve p = curves.get(owner[i]), q = curves.get(owner[j]);
+		Set<BezierIntersection> found = BezierIntersection.createIntersections(pieces.get(i), pieces.get(j), BezierIntersection.tolerance(p, q));
+		if (found.isEmpty()) {
+			return found;
+		}
+		Set<BezierIntersection> intersections = new HashSet<BezierIntersection>();
+		for (BezierIntersection x : found) {
+			if (atJoint(i, x.pIntersect.t) || atJoint(j, x.qIntersect.t)) {
+				continue;
+			}
+			intersections.add(BezierIntersection.fromParameters(p, q, toCurveParameter(i, x.pIntersect.t), toCurveParameter(j, x.qIntersect.t)));
+		}
+		return intersections;
+	}
+
+	private boolean atJoint(int k, double t) {
+		return t < JOINT_TOLERANCE && k > 0 && owner[k - 1] == owner[k];
+	}
+
+}
@@ -0,0 +1,20 @@
+package knoteditor;
+
+/*
+ * The implicit solve on curves moved and scaled into a unit box, with every
+ * Sturm sign checked against an error bound. It uses Sturm isolation even
+ * when the solver is set to DESCARTES.
+ */
+public class NormalizedImplicitIntersection implements IntersectionAlgorithm {
+
+	@Override
+	public int intersections(BezierCurve p, BezierCurve q, double[] roots) {
+		return IntersectionSolver.get().normalizedIntersections(p, q, roots);
+	}
+
+	@Override
+	public String toString() {
+		return "NORMALIZED";
+	}
+
+}
@@ -0,0 +1,226 @@
+package knoteditor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/*
+ * Bounded cache of pairwise solve results, keyed on the unordered pair of
+ * curve geometries and every setting that shapes the roots: the engine, the
+ * pair solve and the solver's root isolation and refinement. A hit for
+ * (q, p) reuses the solve of (p, q) with the two root lists swapped.
+ *
+ * The entries are spread over lock-striped LinkedHashMaps in access order,
+ * each evicting its least recently used entry once it holds its share of the
+ * maximum size. Lookups probe with a per-thread key, so a miss allocates
+ * nothing and a put stores one array for both root lists.
+ */
+public class PairCache {
+
+	private static final int STRIPES = 16;
+
+	private static final ThreadLocal<Key> PROBE = new ThreadLocal<Key>() {
+		@Override
+		protected Key initialValue() {
+			return new Key();
+		}
+	};
+
+	private static final class Key {
+		BezierCurve a, b;
+		IntersectionAlgorithm algorithm;
+		PairSolve pairSolve;
+		RootIsolation isolation;
+		RootRefinement refinement;
+		int hash;
+
+		Key set(BezierCurve a, BezierCurve b, IntersectionAlgorithm algorithm, PairSolve pairSolve, RootIsolation isolation, RootRefinement refinement) {
+			this.a = a;
+			this.b = b;
+			this.algorithm = algorithm;
+			this.pairSolve = pairSolve;
+			this.isolation = isolation;
+			this.refinement = refinement;
+			//Symmetric in a and b so that both orders land in the same bucket
+			int h = 31 * (a.hashCode() + b.hashCode()) + algorithm.hashCode();
+			h = 31 * h + pairSolve.hashCode();
+			h = 31 * h + isolation.hashCode();
+			hash = 31 * h + refinement.hashCode();
+			return this;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			if (hash != other.hash || algorithm != other.algorithm || pairSolve != other.pairSolve || isolation != other.isolation || refinement != other.refinement) {
+				return false;
+			}
+			return (a.equals(other.a) && b.equals(other.b)) || (a.equals(other.b) && b.equals(other.a));
+		}
+	}
+
+	private static final class Value {
+		//Roots on key.a against key.b followed by roots on key.b against key.a
+		final BezierCurve a;
+		final double[] roots;
+		final int aCount;
+
+		Value(BezierCurve a, double[] roots, int aCount) {
+			this.a = a;
+			this.roots = roots;
+			this.aCount = aCount;
+		}
+	}
+
+	private final class Stripe extends LinkedHashMap<Key, Value> {
+		private static final long serialVersionUID = 1L;
+
+		private final int maximumSize;
+
+		Stripe(int maximumSize) {
+			super(16, 0.75f, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, Value> eldest) {
+			if (size() > maximumSize) {
+				evictions.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private final int maximumSize;
+	private final Stripe[] stripes;
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	public PairCache(int maximumSize) {
+		if (maximumSize <= 0) {
+			throw new IllegalArgumentException("maximum size must be positive: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		int stripeSize = (maximumSize + STRIPES - 1) / STRIPES;
+		stripes = new Stripe[STRIPES];
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Stripe(stripeSize);
+		}
+	}
+
+	private Stripe stripe(Key key) {
+		int h = key.hash;
+		h ^= (h >>> 16);
+		return stripes[h & (STRIPES - 1)];
+	}
+
+	/*
+	 * Copy the cached roots into pRoots and qRoots and their numbers into
+	 * counts, returning false on a miss
+	 */
+	boolean get(BezierCurve p, BezierCurve q, IntersectionAlgorithm algorithm, PairSolve pairSolve, RootIsolation isolation, RootRefinement refinement, double[] pRoots, double[] qRoots, int[] counts) {
+		Key key = PROBE.get().set(p, q, algorithm, pairSolve, isolation, refinement);
+		Stripe stripe = stripe(key);
+		Value value;
+		synchronized (stripe) {
+			value = stripe.get(key);
+		}
+		//Let go of the curves so the probe does not keep them alive
+		key.a = key.b = null;
+		if (value == null) {
+			misses.incrementAndGet();
+			return false;
+		}
+		hits.incrementAndGet();
+		int bCount = value.roots.length - value.aCount;
+		if (value.a.equals(p)) {
+			System.arraycopy(value.roots, 0, pRoots, 0, value.aCount);
+			System.arraycopy(value.roots, value.aCount, qRoots, 0, bCount);
+			counts[0] = value.aCount;
+			counts[1] = bCount;
+		} else {
+			System.arraycopy(value.roots, value.aCount, pRoots, 0, bCount);
+			System.arraycopy(value.roots, 0, qRoots, 0, value.aCount);
+			counts[0] = bCount;
+			counts[1] = value.aCount;
+		}
+		return true;
+	}
+
+	void put(BezierCurve p, BezierCurve q, IntersectionAlgorithm algorithm, PairSolve pairSolve, RootIsolation isolation, RootRefinement refinement, double[] pRoots, int pCount, double[] qRoots, int qCount) {
+		double[] roots = new double[pCount + qCount];
+		System.arraycopy(pRoots, 0, roots, 0, pCount);
+		System.arraycopy(qRoots, 0, roots, pCount, qCount);
+		Key key = new Key().set(p, q, algorithm, pairSolve, isolation, refinement);
+		Stripe stripe = stripe(key);
+		synchronized (stripe) {
+			stripe.put(key, new Value(p, roots, pCount));
+		}
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public int size() {
+		int size = 0;
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	public void clear() {
+		for (Stripe stripe : stripes) {
+			synchronized (stripe) {
+				stripe.clear();
+			}
+		}
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	public double getHitRate() {
+		long hits = getHitCount();
+		long total = hits + getMissCount();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	public void resetStats() {
+		hits.set(0);
+		misses.set(0);
+		evictions.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return "PairCache[size=" + size() + "/" + maximumSize + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+}
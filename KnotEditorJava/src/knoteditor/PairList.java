@@ -0,0 +1,44 @@
+package knoteditor;
+
+public class PairList {
+
+	//Pairs are stored interleaved as (p0, q0, p1, q1, ...)
+	private int[] pairs;
+	private int size;
+
+	public PairList() {
+		this(16);
+	}
+
+	public PairList(int capacity) {
+		pairs = new int[2 * Math.max(capacity, 1)];
+	}
+
+	public void add(int p, int q) {
+		if (2 * size == pairs.length) {
+			int[] grown = new int[2 * pairs.length];
+			System.arraycopy(pairs, 0, grown, 0, pairs.length);
+			pairs = grown;
+		}
+		pairs[2 * size] = p;
+		pairs[2 * size + 1] = q;
+		size++;
+	}
+
+	public int p(int i) {
+		return pairs[2 * i];
+	}
+
+	public int q(int i) {
+		return pairs[2 * i + 1];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+}
@@ -0,0 +1,22 @@
+package knoteditor;
+
+/*
+ * How BezierIntersection.createIntersections finds the parameters on the
+ * second curve of a pair
+ */
+public enum PairSolve {
+
+	/*
+	 * Run the intersection engine in both directions and match the two root
+	 * lists against each other
+	 */
+	DOUBLE_SOLVE,
+
+	/*
+	 * Run the engine only for the first curve and find the parameter on the
+	 * second by inverting its parametric form at each point found, which
+	 * halves the cost of every candidate pair
+	 */
+	INVERSION
+
+}
@@ -0,0 +1,25 @@
+package knoteditor;
+
+/*
+ * How IntersectionSolver splits [0, 1] into ranges holding one root each
+ */
+public enum RootIsolation {
+
+	/*
+	 * Build the Sturm chain of the intersection polynomial and bisect while
+	 * counting sign changes along it. The batch entry points bisect many
+	 * chains together through a ChainKernel.
+	 */
+	STURM,
+
+	/*
+	 * Convert the polynomial to Bernstein form on [0, 1] and split it by de
+	 * Casteljau at the midpoint, discarding every range whose coefficients
+	 * have no sign change and refining those with exactly one. No chain is
+	 * built, and a pair whose coefficients all share a sign is rejected
+	 * straight away. The normalized solve ignores this setting and keeps to
+	 * STURM, whose signs it can check against an error bound.
+	 */
+	DESCARTES
+
+}
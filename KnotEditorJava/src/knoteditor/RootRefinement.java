@@ -0,0 +1,23 @@
+package knoteditor;
+
+/*
+ * How IntersectionSolver narrows a range down to a single root once the
+ * Sturm chain has shown that the range holds exactly one
+ */
+public enum RootRefinement {
+
+	/*
+	 * Keep halving and recounting sign changes over the whole chain until the
+	 * range is narrower than BezierCurve.EPSILON
+	 */
+	BISECTION,
+
+	/*
+	 * Newton's method on the first polynomial of the chain, using the second
+	 * as its derivative. Steps that would leave the bracket fall back to
+	 * bisection, and ranges whose ends do not differ in sign are bisected
+	 * as before.
+	 */
+	NEWTON
+
+}
@@ -0,0 +1,442 @@
+package knoteditor;
+
+import java.awt.geom.AffineTransform;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+
+public class SVGKnotEditor {
+	
+	//Number of self-intersection tests or candidate pairs per parallel task
+	private static final int PARALLEL_CHUNK_SIZE = 256;
+	
+	private static volatile BroadPhase defaultBroadPhase = BroadPhase.valueOf(System.getProperty("knoteditor.broadphase", BroadPhase.SWEEP_AND_PRUNE.name()));
+	
+	public static BroadPhase getDefaultBroadPhase() {
+		return defaultBroadPhase;
+	}
+	
+	public static void setDefaultBroadPhase(BroadPhase broadPhase) {
+		defaultBroadPhase = broadPhase;
+	}
+	
+	//With knoteditor.monotonesplit set, the sweep runs over monotone pieces
+	//of the curves instead of the whole curves
+	private static volatile boolean monotoneSplit = Boolean.getBoolean("knoteditor.monotonesplit");
+	
+	public static boolean isMonotoneSplit() {
+		return monotoneSplit;
+	}
+	
+	/*
+	 * The pieces are always culled by sweep and prune, since they are not
+	 * curves of their own that a broad phase could be handed. Brute force
+	 * is the one broad phase that still applies, and it pairs whole curves,
+	 * since it is the reference the culling is checked against.
+	 *
+	 * Pieces are solved on their own, so the result is not always the same
+	 * as with whole curves: crossings come out at slightly different points,
+	 * pieces find some crossings that the whole curves miss, and a crossing
+	 * near a tangency, at the edge of the tolerance, may be lost. On random
+	 * paths of a few hundred curves the two modes often differ this way.
+	 */
+	public static void setMonotoneSplit(boolean split) {
+		monotoneSplit = split;
+	}
+	
+	public static Set<BezierIntersection> findIntersections(List<BezierCurve> curves) {
+		return findIntersections(curves, defaultBroadPhase);
+	}
+	
+	public static Set<BezierIntersection> findIntersections(List<BezierCurve> curves, BroadPhase broadPhase) {
+		Object pass = IntersectionEvents.get().beginPass();
+		long candidates;
+		Set<BezierIntersection> intersections = new HashSet<BezierIntersection>();
+
+		for (int i = 0; i < curves.size(); i++) {
+			BezierIntersection selfIntersect = BezierIntersection.createSelfIntersection(curves.get(i));
+			if (selfIntersect != null) {
+				intersections.add(selfIntersect);
+			}
+		}
+		
+		if (broadPhase == BroadPhase.BRUTE_FORCE) {
+			for (int i = 0; i < curves.size(); i++) {
+				BezierCurve p = curves.get(i);
+				for (int j = i + 2; j < curves.size(); j++) {
+					intersections.addAll(BezierIntersection.createIntersections(p, curves.get(j)));
+				}
+			}
+			candidates = pairsConsidered(curves.size());
+		} else if (monotoneSplit) {
+			MonotonePieces pieces = new MonotonePieces(curves);
+			PairList pairs = pieces.candidatePairs();
+			for (int k = 0; k < pairs.size(); k++) {
+				intersections.addAll(pieces.createIntersections(pairs.p(k), pairs.q(k)));
+			}
+			candidates = curvePairs(pass, pieces, pairs);
+		} else {
+			PairList pairs = broadPhase.candidatePairs(curves);
+			for (int k = 0; k < pairs.size(); k++) {
+				intersections.addAll(BezierIntersection.createIntersections(curves.get(pairs.p(k)), curves.get(pairs.q(k))));
+			}
+			candidates = pairs.size();
+		}
+		
+		endPass(pass, broadPhase, curves.size(), candidates, intersections.size());
+		return intersections;
+	}
+	
+	//Pairs (i, j) with j >= i + 2
+	private static long pairsConsidered(int curveCount) {
+		return curveCount < 2 ? 0 : (long) (curveCount - 1) * (curveCount - 2) / 2;
+	}
+	
+	//Counting distinct curve pairs takes a set, so it only happens when wanted
+	private static long curvePairs(Object pass, MonotonePieces pieces, PairList pairs) {
+		return pass != null || IntersectionMetrics.isCounting() ? pieces.curvePairs(pairs) : 0;
+	}
+	
+	private static void endPass(Object pass, BroadPhase broadPhase, int curveCount, long candidates, int found) {
+		long considered = pairsConsidered(curveCount);
+		if (IntersectionMetrics.isCounting()) {
+			IntersectionMetrics.add(IntersectionMetrics.PAIRS_CONSIDERED, considered);
+			IntersectionMetrics.add(IntersectionMetrics.CANDIDATE_PAIRS, candidates);
+		}
+		if (pass != null) {
+			String name = monotoneSplit && broadPhase != BroadPhase.BRUTE_FORCE ? broadPhase + " on monotone pieces" : broadPhase.toString();
+			IntersectionEvents.get().endPass(pass, name, curveCount, considered, candidates, found);
+		}
+	}
+	
+	public static Set<BezierIntersection> findIntersections(List<BezierCurve> curves, ExecutorService executor) throws InterruptedException {
+		return findIntersections(curves, defaultBroadPhase, executor);
+	}
+	
+	/*
+	 * Split the self-intersection tests and the candidate pairs into chunks
+	 * of a fixed size and run them on the executor. Each chunk collects into
+	 * its own buffer and the buffers are merged in chunk order, so the result
+	 * does not depend on how many threads the executor has.
+	 */
+	public static Set<BezierIntersection> findIntersections(List<BezierCurve> curves, BroadPhase broadPhase, ExecutorService executor) throws InterruptedException {
+		try {
+			return findIntersections(curves, broadPhase, executor, -1);
+		} catch (TimeoutException e) {
+			throw new AssertionError(e);
+		}
+	}
+	
+	/*
+	 * Same as above, but within a time budget that starts with the call, so
+	 * the broad phase counts against it too. Chunks check the deadline before
+	 * every pair and stop once it has passed, and chunks not yet started are
+	 * cancelled, so the call overruns by about one pair solve, or by the
+	 * broad phase if that alone takes longer than the budget.
+	 */
+	public static Set<BezierIntersection> findIntersections(List<BezierCurve> curves, BroadPhase broadPhase, ExecutorService executor, long timeout, TimeUnit unit) throws InterruptedException, TimeoutException {
+		return findIntersections(curves, broadPhase, executor, Math.max(0, unit.toNanos(timeout)));
+	}
+	
+	//A negative timeout waits for as long as it takes
+	private static Set<BezierIntersection> findIntersections(final List<BezierCurve> curves, BroadPhase broadPhase, ExecutorService executor, long timeoutNanos) throws InterruptedException, TimeoutException {
+		final Budget budget = new Budget(timeoutNanos);
+		Object pass = IntersectionEvents.get().beginPass();
+		long candidates;
+		List<Callable<List<BezierIntersection>>> chunks = new ArrayList<Callable<List<BezierIntersection>>>();
+		
+		for (int chunkStart = 0; chunkStart < curves.size(); chunkStart += PARALLEL_CHUNK_SIZE) {
+			final int from = chunkStart;
+			final int to = Math.min(chunkStart + PARALLEL_CHUNK_SIZE, curves.size());
+			chunks.add(new Callable<List<BezierIntersection>>() {
+				@Override
+				public List<BezierIntersection> call() {
+					List<BezierIntersection> buffer = new ArrayList<BezierIntersection>();
+					for (int i = from; i < to; i++) {
+						budget.check();
+						BezierIntersection selfIntersect = BezierIntersection.createSelfIntersection(curves.get(i));
+						if (selfIntersect != null) {
+							buffer.add(selfIntersect);
+						}
+					}
+					return buffer;
+				}
+			});
+		}
+		
+		if (broadPhase == BroadPhase.BRUTE_FORCE) {
+			//Group whole rows of the pair triangle until each chunk holds
+			//roughly the same number of pairs
+			int rowStart = 0;
+			int pairCount = 0;
+			for (int i = 0; i < curves.size(); i++) {
+				pairCount += Math.max(0, curves.size() - i - 2);
+				if (pairCount >= PARALLEL_CHUNK_SIZE || i == curves.size() - 1) {
+					final int from = rowStart;
+					final int to = i + 1;
+					chunks.add(new Callable<List<BezierIntersection>>() {
+						@Override
+						public List<BezierIntersection> call() {
+							List<BezierIntersection> buffer = new ArrayList<BezierIntersection>();
+							for (int i = from; i < to; i++) {
+								BezierCurve p = curves.get(i);
+								for (int j = i + 2; j < curves.size(); j++) {
+									budget.check();
+									buffer.addAll(BezierIntersection.createIntersections(p, curves.get(j)));
+								}
+							}
+							return buffer;
+						}
+					});
+					rowStart = i + 1;
+					pairCount = 0;
+				}
+			}
+			candidates = pairsConsidered(curves.size());
+		} else if (monotoneSplit) {
+			final MonotonePieces pieces = new MonotonePieces(curves);
+			final PairList pairs = pieces.candidatePairs();
+			for (int chunkStart = 0; chunkStart < pairs.size(); chunkStart += PARALLEL_CHUNK_SIZE) {
+				final int from = chunkStart;
+				final int to = Math.min(chunkStart + PARALLEL_CHUNK_SIZE, pairs.size());
+				chunks.add(new Callable<List<BezierIntersection>>() {
+					@Override
+					public List<BezierIntersection> call() {
+						List<BezierIntersection> buffer = new ArrayList<BezierIntersection>();
+						for (int k = from; k < to; k++) {
+							budget.check();
+							buffer.addAll(pieces.createIntersections(pairs.p(k), pairs.q(k)));
+						}
+						return buffer;
+					}
+				});
+			}
+			candidates = curvePairs(pass, pieces, pairs);
+		} else {
+			final PairList pairs = broadPhase.candidatePairs(curves);
+			for (int chunkStart = 0; chunkStart < pairs.size(); chunkStart += PARALLEL_CHUNK_SIZE) {
+				final int from = chunkStart;
+				final int to = Math.min(chunkStart + PARALLEL_CHUNK_SIZE, pairs.size());
+				chunks.add(new Callable<List<BezierIntersection>>() {
+					@Override
+					public List<BezierIntersection> call() {
+						List<BezierIntersection> buffer = new ArrayList<BezierIntersection>();
+						for (int k = from; k < to; k++) {
+							budget.check();
+							buffer.addAll(BezierIntersection.createIntersections(curves.get(pairs.p(k)), curves.get(pairs.q(k))));
+						}
+						return buffer;
+					}
+				});
+			}
+			candidates = pairs.size();
+		}
+		
+		if (budget.expired()) {
+			throw budget.timeout(curves.size());
+		}
+		Set<BezierIntersection> intersections = new LinkedHashSet<BezierIntersection>();
+		for (List<BezierIntersection> buffer : runChunks(chunks, executor, budget, curves.size())) {
+			intersections.addAll(buffer);
+		}
+		
+		endPass(pass, broadPhase, curves.size(), candidates, intersections.size());
+		return intersections;
+	}
+	
+	/*
+	 * Run the chunks with no more than twice as many queued or running as the
+	 * executor has threads, submitting the next one as each finishes. Calls
+	 * sharing an executor then take turns on it, instead of a later call
+	 * waiting behind every chunk of the calls before it. The buffers come
+	 * back in chunk order. On a failure or timeout the chunks still running
+	 * see the budget cancelled and stop.
+	 */
+	private static List<List<BezierIntersection>> runChunks(List<Callable<List<BezierIntersection>>> chunks, ExecutorService executor, Budget budget, int curveCount) throws InterruptedException, TimeoutException {
+		CompletionService<List<BezierIntersection>> completion = new ExecutorCompletionService<List<BezierIntersection>>(executor);
+		List<Future<List<BezierIntersection>>> results = new ArrayList<Future<List<BezierIntersection>>>(chunks.size());
+		int limit = 2 * parallelism(executor);
+		boolean finished = false;
+		try {
+			for (int done = 0; done < chunks.size(); done++) {
+				while (results.size() < chunks.size() && results.size() - done < limit) {
+					results.add(completion.submit(chunks.get(results.size())));
+				}
+				long remaining = budget.remaining();
+				Future<List<BezierIntersection>> result = remaining < 0 ? completion.take() : completion.poll(remaining, TimeUnit.NANOSECONDS);
+				if (result == null) {
+					throw budget.timeout(curveCount);
+				}
+				//Fail as soon as any chunk does
+				result.get();
+			}
+			List<List<BezierIntersection>> buffers = new ArrayList<List<BezierIntersection>>(results.size());
+			for (Future<List<BezierIntersection>> result : results) {
+				buffers.add(result.get());
+			}
+			finished = true;
+			return buffers;
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof CancellationException) {
+				throw budget.timeout(curveCount);
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		} finally {
+			if (!finished) {
+				budget.cancel();
+				for (Future<List<BezierIntersection>> result : results) {
+					result.cancel(false);
+				}
+			}
+		}
+	}
+	
+	//Pools that grow on demand count as one thread per processor
+	private static int parallelism(ExecutorService executor) {
+		if (executor instanceof ThreadPoolExecutor && ((ThreadPoolExecutor) executor).getCorePoolSize() > 0) {
+			return ((ThreadPoolExecutor) executor).getCorePoolSize();
+		}
+		if (executor instanceof ForkJoinPool) {
+			return ((ForkJoinPool) executor).getParallelism();
+		}
+		return Runtime.getRuntime().availableProcessors();
+	}
+	
+	/*
+	 * Deadline of one findIntersections call, shared with its chunks. A
+	 * negative timeout never runs out, but the budget can still be cancelled.
+	 */
+	private static final class Budget {
+		private final long timeoutNanos;
+		private final long deadline;
+		private volatile boolean cancelled;
+		
+		Budget(long timeoutNanos) {
+			this.timeoutNanos = timeoutNanos;
+			deadline = System.nanoTime() + timeoutNanos;
+		}
+		
+		//Nanoseconds left, or -1 without a timeout
+		long remaining() {
+			return timeoutNanos < 0 ? -1 : Math.max(0, deadline - System.nanoTime());
+		}
+		
+		boolean expired() {
+			return cancelled || timeoutNanos >= 0 && deadline - System.nanoTime() <= 0;
+		}
+		
+		void cancel() {
+			cancelled = true;
+		}
+		
+		/*
+		 * Stop the calling chunk once the budget is spent or cancelled
+		 */
+		void check() {
+			if (expired()) {
+				cancelled = true;
+				throw new CancellationException();
+			}
+		}
+		
+		TimeoutException timeout(int curveCount) {
+			return new TimeoutException("intersections of " + curveCount + " curves took longer than " + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " ms");
+		}
+	}
+	
+	public static void main(String[] args) throws Exception {
+		List<BezierCurve> curves = new ArrayList<BezierCurve>();
+		/*BezierCurve p = new BezierCurve(0, 1000, 1500, 0, -500, 0, 1000, 1000);
+		BezierCurve q = new BezierCurve(0, 0, 1500, 1000, -500, 1000, 1000, 0);
+		BezierCurve r = new BezierCurve(20, 1000, 333, -2000, 666, 3000, 980, 0);
+		BezierCurve s = new BezierCurve(0, 20, 3000, 333, -2000, 666, 1000, 980);
+		BezierCurve t = new BezierCurve(10, 0, 333, 1500, 666, -500, 990, 1000);
+		BezierCurve u = new BezierCurve(10, 1000, 333, -500, 666, 1500, 990, 0);
+		curves.add(p);
+		curves.add(q);
+		curves.add(r);
+		curves.add(s);
+		curves.add(t);
+		curves.add(u);*/
+		
+		//Warm runs read the curves and intersections back from a binary
+		//cache written next to the SVG on the first run
+		File input = new File("..\\..\\..\\Downloads\\curvetest2.svg");
+		File cache = new File(input.getPath() + ".knot");
+		Set<BezierIntersection> intersections = null;
+		if (cache.exists() && cache.lastModified() >= input.lastModified()) {
+			CurveFile curveFile = CurveFile.open(cache);
+			curves.addAll(curveFile.getCurves().toList());
+			if (curveFile.hasIntersections()) {
+				intersections = curveFile.getIntersections(curves);
+			}
+			System.out.println("Loaded " + curves.size() + " curves from " + cache);
+		} else {
+			curves.addAll(StreamingSVGLoader.load(input));
+			System.out.println("Loaded " + curves.size() + " curves");
+		}
+		
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			if (intersections == null) {
+				long start = System.currentTimeMillis();
+				intersections = findIntersections(curves, executor);
+				System.out.println("Computed all " + intersections.size() + " intersections in " + (System.currentTimeMillis() - start) + " ms");
+				if (BezierIntersection.getPairCache() != null) {
+					System.out.println(BezierIntersection.getPairCache());
+				}
+				if (BezierIntersection.isValidatePairSolve()) {
+					System.out.println("Inverted pair solves disagreeing with a second solve: " + BezierIntersection.getValidationFailures());
+				}
+				if (IntersectionMetrics.isCounting()) {
+					System.out.println(IntersectionMetrics.snapshot());
+				}
+				CurveFile.write(cache, curves, intersections);
+			}
+			
+			try {
+				new KnotRenderer(curves, intersections).writeSVG(new File("knot.svg"));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			
+			List<Point> markers = new ArrayList<Point>(intersections.size());
+			for (BezierIntersection intersect : intersections) {
+				markers.add(intersect.pIntersect);
+			}
+			TileRenderer renderer = new TileRenderer(1000, 1000);
+			renderer.setTransform(AffineTransform.getScaleInstance(1.5, 1.5));
+			try {
+				renderer.render(curves, markers, new File("test.png"), executor);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+package knoteditor;
+
+
+/*
+ * One Horner evaluation at a time, exactly as the solver always did it
+ */
+public class ScalarChainKernel extends ChainKernel {
+
+	@Override
+	public void signAgreements(double[] chains, int[] degrees, int[] chainSizes, double[] points, int[] pointChains, int count, int[] agreements) {
+		for (int k = 0; k < count; k++) {
+			agreements[k] = signAgreements(chains, degrees, chainSizes, points[k], pointChains[k]);
+		}
+	}
+
+	static int signAgreements(double[] chains, int[] degrees, int[] chainSizes, double t, int c) {
+		int agreements = 0;
+		boolean prevPositive = false;
+		for (int i = 0; i <= chainSizes[c]; i++) {
+			boolean positive = evaluate(chains, c * CHAIN + i * ROW, degrees[c * ROW + i], t) >= 0.0;
+			if (i > 0 && positive == prevPositive) {
+				agreements++;
+			}
+			prevPositive = positive;
+		}
+		return agreements;
+	}
+
+	static double evaluate(double[] chains, int offset, int degree, double t) {
+		double val = 0.0;
+		for (int deg = degree; deg > 0; deg--) {
+			val += chains[offset + deg];
+			val *= t;
+		}
+		return val + chains[offset];
+	}
+
+	@Override
+	public String toString() {
+		return "SCALAR";
+	}
+
+}
@@ -0,0 +1,116 @@
+package knoteditor;
+
+import java.awt.geom.AffineTransform;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.batik.parser.AWTTransformProducer;
+import org.apache.batik.parser.PathParser;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+
+/*
+ * Reads the d attribute of every <path> element in a single SAX pass and
+ * feeds it through Batik's PathParser to a CurvePathHandler. No DOM and no
+ * Shapes are built, so memory stays bounded by the largest single path.
+ * The transform attributes of the path and its enclosing elements are
+ * applied to the curves.
+ */
+public class StreamingSVGLoader extends DefaultHandler {
+
+	private final PathParser pathParser = new PathParser();
+	private final CurvePathHandler pathHandler;
+
+	//Combined transform of every element currently open
+	private final List<AffineTransform> transforms = new ArrayList<AffineTransform>();
+
+	private StreamingSVGLoader(CurveSink sink) {
+		pathHandler = new CurvePathHandler(sink);
+		pathParser.setPathHandler(pathHandler);
+		transforms.add(new AffineTransform());
+	}
+
+	public static List<BezierCurve> load(File file) throws IOException, SAXException {
+		final List<BezierCurve> curves = new ArrayList<BezierCurve>();
+		load(file, new CurveSink() {
+			@Override
+			public void startPath() {
+			}
+
+			@Override
+			public void curve(BezierCurve c) {
+				curves.add(c);
+			}
+
+			@Override
+			public void endPath() {
+			}
+		});
+		return curves;
+	}
+
+	public static void load(File file, CurveSink sink) throws IOException, SAXException {
+		newParser().parse(file, new StreamingSVGLoader(sink));
+	}
+
+	public static void load(InputStream in, CurveSink sink) throws IOException, SAXException {
+		newParser().parse(in, new StreamingSVGLoader(sink));
+	}
+
+	private static SAXParser newParser() throws SAXException {
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		try {
+			return factory.newSAXParser();
+		} catch (ParserConfigurationException e) {
+			throw new SAXException(e);
+		}
+	}
+
+	@Override
+	public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+		AffineTransform transform = transforms.get(transforms.size() - 1);
+		String transformAttribute = attributes.getValue("transform");
+		if (transformAttribute != null) {
+			transform = new AffineTransform(transform);
+			transform.concatenate(AWTTransformProducer.createAffineTransform(transformAttribute));
+		}
+		transforms.add(transform);
+
+		String name = localName.length() > 0 ? localName : qName;
+		if (!name.equals("path")) {
+			return;
+		}
+		String d = attributes.getValue("d");
+		if (d != null) {
+			pathHandler.setTransform(transform);
+			pathParser.parse(d);
+		}
+	}
+
+	@Override
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		transforms.remove(transforms.size() - 1);
+	}
+
+	/*
+	 * SVG files usually name the external SVG DTD, which we neither need nor
+	 * want to fetch
+	 */
+	@Override
+	public InputSource resolveEntity(String publicId, String systemId) {
+		return new InputSource(new StringReader(""));
+	}
+
+}
@@ -0,0 +1,205 @@
+package knoteditor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+
+/*
+ * Writes an 8-bit RGB PNG a strip of rows at a time, so the whole image never
+ * has to be in memory. Rows are deflated as they arrive and the compressed
+ * data goes out in IDAT chunks of a fixed size. Every row uses filter type
+ * None, which costs a little compression on photographs but next to nothing
+ * on line art.
+ *
+ * Closing the writer checks that every row was written, finishes the IEND
+ * chunk and closes the underlying stream.
+ */
+public class StripedPNGWriter implements Closeable {
+
+	private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final OutputStream out;
+	private final int width, height;
+	private final Deflater deflater;
+	private final DeflaterOutputStream data;
+	private final byte[] row;
+	private int rowsWritten;
+	private boolean closed;
+
+	public StripedPNGWriter(OutputStream out, int width, int height) throws IOException {
+		this(out, width, height, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public StripedPNGWriter(OutputStream out, int width, int height, int compressionLevel) throws IOException {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("image size must be positive: " + width + "x" + height);
+		}
+		if ((long) width * 3 + 1 > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("image too wide: " + width);
+		}
+		this.out = out;
+		this.width = width;
+		this.height = height;
+		row = new byte[1 + 3 * width];
+
+		out.write(SIGNATURE);
+		byte[] header = new byte[13];
+		putInt(header, 0, width);
+		putInt(header, 4, height);
+		header[8] = 8; //Bit depth
+		header[9] = 2; //Truecolour
+		//Compression, filter and interlace methods stay 0
+		writeChunk(out, "IHDR", header, 0, header.length);
+
+		deflater = new Deflater(compressionLevel);
+		data = new DeflaterOutputStream(new ChunkOutputStream(), deflater, CHUNK_SIZE);
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public int getRowsWritten() {
+		return rowsWritten;
+	}
+
+	/*
+	 * Append rows of packed RGB pixels, the layout of a TYPE_INT_RGB raster.
+	 * Row r starts at offset + r * scanline and holds width pixels.
+	 */
+	public void writeRows(int[] rgb, int offset, int scanline, int rows) throws IOException {
+		if (closed) {
+			throw new IOException("writer is closed");
+		}
+		if (rows > height - rowsWritten) {
+			throw new IllegalArgumentException(rows + " rows do not fit, " + (height - rowsWritten) + " left");
+		}
+		for (int r = 0; r < rows; r++) {
+			int pixel = offset + r * scanline;
+			//Filter type None
+			row[0] = 0;
+			for (int x = 0, b = 1; x < width; x++, b += 3) {
+				int value = rgb[pixel + x];
+				row[b] = (byte) (value >>> 16);
+				row[b + 1] = (byte) (value >>> 8);
+				row[b + 2] = (byte) value;
+			}
+			data.write(row, 0, row.length);
+		}
+		rowsWritten += rows;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (rowsWritten != height) {
+				throw new IOException("only " + rowsWritten + " of " + height + " rows written");
+			}
+			//Flushes the last IDAT chunk
+			data.close();
+			writeChunk(out, "IEND", new byte[0], 0, 0);
+		} finally {
+			deflater.end();
+			out.close();
+		}
+	}
+
+	/*
+	 * Give up on the image and close the underlying stream without checking
+	 * the row count, for when rendering failed part way
+	 */
+	public void abort() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			deflater.end();
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void writeChunk(OutputStream out, String type, byte[] data, int offset, int length) throws IOException {
+		byte[] header = new byte[8];
+		putInt(header, 0, length);
+		for (int i = 0; i < 4; i++) {
+			header[4 + i] = (byte) type.charAt(i);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(header, 4, 4);
+		crc.update(data, offset, length);
+		byte[] trailer = new byte[4];
+		putInt(trailer, 0, (int) crc.getValue());
+
+		out.write(header);
+		out.write(data, offset, length);
+		out.write(trailer);
+	}
+
+	private static void putInt(byte[] b, int offset, int value) {
+		b[offset] = (byte) (value >>> 24);
+		b[offset + 1] = (byte) (value >>> 16);
+		b[offset + 2] = (byte) (value >>> 8);
+		b[offset + 3] = (byte) value;
+	}
+
+	/*
+	 * Collects compressed bytes and writes them as IDAT chunks. Flushing is
+	 * left to close, since an empty chunk after every deflater flush would
+	 * only waste space.
+	 */
+	private class ChunkOutputStream extends OutputStream {
+
+		private final byte[] buffer = new byte[CHUNK_SIZE];
+		private int count;
+
+		@Override
+		public void write(int b) throws IOException {
+			if (count == buffer.length) {
+				writeBuffer();
+			}
+			buffer[count++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int offset, int length) throws IOException {
+			while (length > 0) {
+				if (count == buffer.length) {
+					writeBuffer();
+				}
+				int n = Math.min(length, buffer.length - count);
+				System.arraycopy(b, offset, buffer, count, n);
+				count += n;
+				offset += n;
+				length -= n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (count > 0) {
+				writeBuffer();
+			}
+		}
+
+		private void writeBuffer() throws IOException {
+			writeChunk(out, "IDAT", buffer, 0, count);
+			count = 0;
+		}
+	}
+
+}
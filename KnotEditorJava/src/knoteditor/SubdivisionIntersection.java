@@ -0,0 +1,295 @@
+package knoteditor;
+
+import java.util.Arrays;
+
+
+/*
+ * Intersects two curves by repeatedly splitting both in half and throwing
+ * away the pieces whose control boxes do not overlap. Once the surviving
+ * pieces are small, Newton's method on p(t) = q(s) polishes the parameters
+ * against the original curves. Disjoint curves are rejected by the very
+ * first box test.
+ *
+ * Overlapping curves and some tangencies keep too many pieces alive to
+ * finish. The search then stops at MAX_PIECES, and wasTruncated() tells the
+ * caller that crossings may be missing.
+ */
+public class SubdivisionIntersection implements IntersectionAlgorithm {
+
+	//Pieces smaller than this fraction of the curves' extent go to Newton
+	private static final double LEAF_TOLERANCE = 1e-4;
+
+	//Newton stops once its steps in t and s are below this
+	private static final double STEP_TOLERANCE = 1e-14;
+
+	//A converged Newton result is only accepted if the two points are this
+	//close, relative to extent
+	private static final double RESIDUAL_TOLERANCE = 1e-9;
+
+	//Roots closer than this are the same crossing reached from different
+	//pieces. Along a tangency Newton converges slowly and stops at slightly
+	//different parameters from every piece, a few 1e-9 apart.
+	private static final double ROOT_TOLERANCE = 1e-7;
+
+	private static final int MAX_DEPTH = 48;
+	private static final int MAX_NEWTON_ITERATIONS = 32;
+
+	//Caps the work on overlapping or tangent curves, where the number of
+	//surviving pieces stops shrinking
+	private static final int MAX_PIECES = 1 << 16;
+
+	//Stack entries hold both sets of control points, both parameter ranges
+	//and the depth
+	private static final int ENTRY = 21;
+
+	private static final ThreadLocal<Workspace> LOCAL = new ThreadLocal<Workspace>() {
+		@Override
+		protected Workspace initialValue() {
+			return new Workspace();
+		}
+	};
+
+	private static class Workspace {
+		double[] stack = new double[ENTRY * 64];
+		final double[] left = new double[8];
+		final double[] right = new double[8];
+		final double[] qLeft = new double[8];
+		final double[] qRight = new double[8];
+		final double[] p = new double[8];
+		final double[] q = new double[8];
+		//Roots found from every piece, before merging
+		double[] found = new double[16];
+		int foundCount;
+		boolean truncated;
+	}
+
+	/*
+	 * Whether the last call on this thread stopped at MAX_PIECES with pieces
+	 * left over, so that crossings may be missing from its roots
+	 */
+	public static boolean wasTruncated() {
+		return LOCAL.get().truncated;
+	}
+
+	@Override
+	public int intersections(BezierCurve p, BezierCurve q, double[] roots) {
+		Workspace w = LOCAL.get();
+		double[] pc = w.p;
+		double[] qc = w.q;
+		controlPoints(p, pc);
+		controlPoints(q, qc);
+		w.foundCount = 0;
+		w.truncated = false;
+
+		double scale = Math.max(extent(pc), extent(qc));
+		if (scale == 0.0) {
+			return 0;
+		}
+		double leafSize = scale * LEAF_TOLERANCE;
+		double residual = scale * RESIDUAL_TOLERANCE;
+
+		int pieces = 0;
+		int top = push(w, 0, pc, 0.0, 1.0, qc, 0.0, 1.0, 0);
+		while (top > 0 && pieces++ < MAX_PIECES) {
+			top -= ENTRY;
+			double[] stack = w.stack;
+			double t0 = stack[top + 16], t1 = stack[top + 17];
+			double s0 = stack[top + 18], s1 = stack[top + 19];
+			int depth = (int) stack[top + 20];
+
+			if (!boxesOverlap(stack, top, top + 8)) {
+				continue;
+			}
+
+			boolean small = boxSize(stack, top) < leafSize && boxSize(stack, top + 8) < leafSize;
+			if (small || depth >= MAX_DEPTH) {
+				double t = newton(pc, qc, (t0 + t1) / 2.0, (s0 + s1) / 2.0, residual);
+				if (Double.isNaN(t) && depth >= MAX_DEPTH) {
+					//Newton gives up on tangencies; at this size the piece
+					//itself is as good an answer as we will get, once it is
+					//merged with its neighbours along the tangency
+					t = (t0 + t1) / 2.0;
+				}
+				if (!Double.isNaN(t)) {
+					addRoot(w, t);
+					continue;
+				}
+			}
+
+			//Split both pieces in half and queue the four combinations
+			split(stack, top, w.left, w.right);
+			split(stack, top + 8, w.qLeft, w.qRight);
+			double tm = (t0 + t1) / 2.0;
+			double sm = (s0 + s1) / 2.0;
+			top = push(w, top, w.right, tm, t1, w.qRight, sm, s1, depth + 1);
+			top = push(w, top, w.right, tm, t1, w.qLeft, s0, sm, depth + 1);
+			top = push(w, top, w.left, t0, tm, w.qRight, sm, s1, depth + 1);
+			top = push(w, top, w.left, t0, tm, w.qLeft, s0, sm, depth + 1);
+		}
+
+		if (top > 0) {
+			w.truncated = true;
+			if (IntersectionMetrics.isCounting()) {
+				IntersectionMetrics.add(IntersectionMetrics.SUBDIVISIONS_TRUNCATED, 1);
+			}
+		}
+		return mergeRoots(w, roots);
+	}
+
+	private static void addRoot(Workspace w, double t) {
+		if (w.foundCount == w.found.length) {
+			w.found = Arrays.copyOf(w.found, 2 * w.found.length);
+		}
+		w.found[w.foundCount++] = t;
+	}
+
+	/*
+	 * Sort the roots found and report every run of them with gaps below
+	 * ROOT_TOLERANCE once, at the middle of the run
+	 */
+	private static int mergeRoots(Workspace w, double[] roots) {
+		double[] found = w.found;
+		int n = w.foundCount;
+		Arrays.sort(found, 0, n);
+		int count = 0;
+		for (int i = 0; i < n && count < roots.length; ) {
+			int j = i;
+			while (j + 1 < n && found[j + 1] - found[j] < ROOT_TOLERANCE) {
+				j++;
+			}
+			roots[count++] = i == j ? found[i] : (found[i] + found[j]) / 2.0;
+			i = j + 1;
+		}
+		return count;
+	}
+
+	/*
+	 * Solve p(t) = q(s) from the given start, returning t or NaN if the
+	 * iteration leaves the curves or does not land on a crossing. Iteration
+	 * runs until the steps stop shrinking the parameters, since near
+	 * tangencies a small residual alone leaves t well short of converged.
+	 */
+	private static double newton(double[] p, double[] q, double t, double s, double tolerance) {
+		for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+			double fx = x(p, t) - x(q, s);
+			double fy = y(p, t) - y(q, s);
+			if (fx == 0.0 && fy == 0.0) {
+				return t;
+			}
+			double pdx = dx(p, t), pdy = dy(p, t);
+			double qdx = dx(q, s), qdy = dy(q, s);
+			//Jacobian is [pdx -qdx; pdy -qdy]
+			double det = -pdx*qdy + qdx*pdy;
+			if (det == 0.0) {
+				return Double.NaN;
+			}
+			double dt = (-qdy*fx + qdx*fy) / det;
+			double ds = (-pdy*fx + pdx*fy) / det;
+			t -= dt;
+			s -= ds;
+			if (!(t >= 0.0 && t <= 1.0 && s >= 0.0 && s <= 1.0)) {
+				return Double.NaN;
+			}
+			if (Math.abs(dt) < STEP_TOLERANCE && Math.abs(ds) < STEP_TOLERANCE) {
+				break;
+			}
+		}
+		double fx = x(p, t) - x(q, s);
+		double fy = y(p, t) - y(q, s);
+		return Math.abs(fx) < tolerance && Math.abs(fy) < tolerance ? t : Double.NaN;
+	}
+
+	private static double x(double[] c, double t) {
+		double u = 1.0 - t;
+		return u*u*u*c[0] + 3.0*u*u*t*c[2] + 3.0*u*t*t*c[4] + t*t*t*c[6];
+	}
+
+	private static double y(double[] c, double t) {
+		double u = 1.0 - t;
+		return u*u*u*c[1] + 3.0*u*u*t*c[3] + 3.0*u*t*t*c[5] + t*t*t*c[7];
+	}
+
+	private static double dx(double[] c, double t) {
+		double u = 1.0 - t;
+		return 3.0*(u*u*(c[2] - c[0]) + 2.0*u*t*(c[4] - c[2]) + t*t*(c[6] - c[4]));
+	}
+
+	private static double dy(double[] c, double t) {
+		double u = 1.0 - t;
+		return 3.0*(u*u*(c[3] - c[1]) + 2.0*u*t*(c[5] - c[3]) + t*t*(c[7] - c[5]));
+	}
+
+	/*
+	 * de Casteljau split at t = 1/2 of the control points stored at offset
+	 */
+	private static void split(double[] c, int offset, double[] left, double[] right) {
+		for (int k = 0; k < 2; k++) {
+			double p0 = c[offset + k], p1 = c[offset + 2 + k], p2 = c[offset + 4 + k], p3 = c[offset + 6 + k];
+			double p01 = (p0 + p1) / 2.0, p12 = (p1 + p2) / 2.0, p23 = (p2 + p3) / 2.0;
+			double p012 = (p01 + p12) / 2.0, p123 = (p12 + p23) / 2.0;
+			double mid = (p012 + p123) / 2.0;
+			left[k] = p0;
+			left[2 + k] = p01;
+			left[4 + k] = p012;
+			left[6 + k] = mid;
+			right[k] = mid;
+			right[2 + k] = p123;
+			right[4 + k] = p23;
+			right[6 + k] = p3;
+		}
+	}
+
+	private static boolean boxesOverlap(double[] c, int p, int q) {
+		return min(c, p) <= max(c, q) && min(c, q) <= max(c, p)
+				&& min(c, p + 1) <= max(c, q + 1) && min(c, q + 1) <= max(c, p + 1);
+	}
+
+	private static double boxSize(double[] c, int offset) {
+		return Math.max(max(c, offset) - min(c, offset), max(c, offset + 1) - min(c, offset + 1));
+	}
+
+	private static double extent(double[] c) {
+		return boxSize(c, 0);
+	}
+
+	//Smallest of the x (or y, with offset + 1) control coordinates
+	private static double min(double[] c, int offset) {
+		return Math.min(Math.min(c[offset], c[offset + 2]), Math.min(c[offset + 4], c[offset + 6]));
+	}
+
+	private static double max(double[] c, int offset) {
+		return Math.max(Math.max(c[offset], c[offset + 2]), Math.max(c[offset + 4], c[offset + 6]));
+	}
+
+	private static int push(Workspace w, int top, double[] p, double t0, double t1, double[] q, double s0, double s1, int depth) {
+		if (top + ENTRY > w.stack.length) {
+			w.stack = Arrays.copyOf(w.stack, 2 * w.stack.length);
+		}
+		double[] stack = w.stack;
+		System.arraycopy(p, 0, stack, top, 8);
+		System.arraycopy(q, 0, stack, top + 8, 8);
+		stack[top + 16] = t0;
+		stack[top + 17] = t1;
+		stack[top + 18] = s0;
+		stack[top + 19] = s1;
+		stack[top + 20] = depth;
+		return top + ENTRY;
+	}
+
+	private static void controlPoints(BezierCurve c, double[] out) {
+		out[0] = c.x1;
+		out[1] = c.y1;
+		out[2] = c.cx1;
+		out[3] = c.cy1;
+		out[4] = c.cx2;
+		out[5] = c.cy2;
+		out[6] = c.x2;
+		out[7] = c.y2;
+	}
+
+	@Override
+	public String toString() {
+		return "SUBDIVISION";
+	}
+
+}
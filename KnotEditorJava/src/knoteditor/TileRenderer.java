@@ -0,0 +1,382 @@
+package knoteditor;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+
+/*
+ * Renders curves and crossing markers to a PNG of any size. The canvas is cut
+ * into bands of square tiles. Every tile only draws the curves and markers
+ * whose padded bounds reach into it, and the tiles of a band render in
+ * parallel on the executor. Finished bands go straight to a StripedPNGWriter
+ * while the next band renders, so at most two bands are in memory at once.
+ *
+ * Curves are stroked and markers drawn as crosses in curve coordinates, after
+ * the transform, like a Graphics2D that was scaled before drawing.
+ */
+public class TileRenderer {
+
+	private static volatile int defaultTileSize = Integer.getInteger("knoteditor.tilesize", 512);
+
+	public static int getDefaultTileSize() {
+		return defaultTileSize;
+	}
+
+	public static void setDefaultTileSize(int tileSize) {
+		defaultTileSize = tileSize;
+	}
+
+	private final int width, height;
+	private AffineTransform transform = new AffineTransform();
+	private int tileSize = defaultTileSize;
+	private Color background = Color.BLACK;
+	private Color curveColor = Color.WHITE;
+	private float curveWidth = 1;
+	private Color markerColor = Color.RED;
+	private float markerWidth = 2;
+	private double markerSize = 5;
+
+	public TileRenderer(int width, int height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("image size must be positive: " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public AffineTransform getTransform() {
+		return new AffineTransform(transform);
+	}
+
+	public void setTransform(AffineTransform transform) {
+		this.transform = new AffineTransform(transform);
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public void setTileSize(int tileSize) {
+		if (tileSize <= 0) {
+			throw new IllegalArgumentException("tile size must be positive: " + tileSize);
+		}
+		this.tileSize = tileSize;
+	}
+
+	public Color getBackground() {
+		return background;
+	}
+
+	public void setBackground(Color background) {
+		this.background = background;
+	}
+
+	public Color getCurveColor() {
+		return curveColor;
+	}
+
+	public void setCurveColor(Color curveColor) {
+		this.curveColor = curveColor;
+	}
+
+	public float getCurveWidth() {
+		return curveWidth;
+	}
+
+	public void setCurveWidth(float curveWidth) {
+		this.curveWidth = curveWidth;
+	}
+
+	public Color getMarkerColor() {
+		return markerColor;
+	}
+
+	public void setMarkerColor(Color markerColor) {
+		this.markerColor = markerColor;
+	}
+
+	public float getMarkerWidth() {
+		return markerWidth;
+	}
+
+	public void setMarkerWidth(float markerWidth) {
+		this.markerWidth = markerWidth;
+	}
+
+	/*
+	 * Half the length of a marker arm
+	 */
+	public double getMarkerSize() {
+		return markerSize;
+	}
+
+	public void setMarkerSize(double markerSize) {
+		this.markerSize = markerSize;
+	}
+
+	public void render(List<BezierCurve> curves, Collection<? extends Point> markers, File file) throws IOException {
+		render(curves, markers, new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+	}
+
+	public void render(List<BezierCurve> curves, Collection<? extends Point> markers, OutputStream out) throws IOException {
+		try {
+			render(curves, markers, out, null);
+		} catch (InterruptedException e) {
+			//Nothing waits without an executor
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public void render(List<BezierCurve> curves, Collection<? extends Point> markers, File file, ExecutorService executor) throws IOException, InterruptedException {
+		render(curves, markers, new BufferedOutputStream(new FileOutputStream(file), 1 << 16), executor);
+	}
+
+	/*
+	 * Render to out and close it. Without an executor the tiles render one
+	 * after another on the calling thread.
+	 */
+	public void render(List<BezierCurve> curves, Collection<? extends Point> markers, OutputStream out, ExecutorService executor) throws IOException, InterruptedException {
+		StripedPNGWriter writer = new StripedPNGWriter(out, width, height);
+		List<Future<Void>> pending = null, next = null;
+		boolean finished = false;
+		try {
+			int bandCount = (height + tileSize - 1) / tileSize;
+			Scene scene = new Scene(curves, markers, bandCount);
+
+			BufferedImage[] bands = new BufferedImage[Math.min(2, bandCount)];
+			for (int i = 0; i < bands.length; i++) {
+				bands[i] = new BufferedImage(width, Math.min(tileSize, height), BufferedImage.TYPE_INT_RGB);
+			}
+
+			pending = submitBand(scene, 0, bands[0], executor);
+			for (int band = 0; band < bandCount; band++) {
+				//Start the next band before waiting on this one
+				next = null;
+				if (band + 1 < bandCount) {
+					next = submitBand(scene, band + 1, bands[(band + 1) % 2], executor);
+				}
+				await(pending);
+
+				BufferedImage image = bands[band % 2];
+				int rows = Math.min(tileSize, height - band * tileSize);
+				int[] rgb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+				writer.writeRows(rgb, 0, width, rows);
+				pending = next;
+			}
+			finished = true;
+		} finally {
+			if (finished) {
+				writer.close();
+			} else {
+				cancel(pending);
+				cancel(next);
+				try {
+					writer.abort();
+				} catch (IOException e) {
+					//Keep the original failure
+				}
+			}
+		}
+	}
+
+	private List<Future<Void>> submitBand(final Scene scene, final int band, BufferedImage image, ExecutorService executor) {
+		final int y0 = band * tileSize;
+		final int rows = Math.min(tileSize, height - y0);
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (int x0 = 0; x0 < width; x0 += tileSize) {
+			final int tileX = x0;
+			final int columns = Math.min(tileSize, width - x0);
+			//Tiles share the band raster but never overlap
+			final BufferedImage tile = image.getSubimage(tileX, 0, columns, rows);
+			if (executor == null) {
+				renderTile(scene, band, tile, tileX, y0);
+			} else {
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						renderTile(scene, band, tile, tileX, y0);
+						return null;
+					}
+				}));
+			}
+		}
+		return futures;
+	}
+
+	private static void await(List<Future<Void>> futures) throws InterruptedException {
+		try {
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	private static void cancel(List<Future<Void>> futures) {
+		if (futures != null) {
+			for (Future<Void> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private void renderTile(Scene scene, int band, BufferedImage tile, int tileX, int tileY) {
+		int columns = tile.getWidth();
+		int rows = tile.getHeight();
+		Graphics2D g = tile.createGraphics();
+		try {
+			g.setColor(background);
+			g.fillRect(0, 0, columns, rows);
+
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+			g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+			g.translate(-tileX, -tileY);
+			g.transform(transform);
+
+			double xmin = tileX, xmax = tileX + columns;
+			double ymin = tileY, ymax = tileY + rows;
+
+			g.setColor(curveColor);
+			g.setStroke(new BasicStroke(curveWidth));
+			CubicCurve2D.Double shape = new CubicCurve2D.Double();
+			int[] curveBand = scene.curveBands[band];
+			for (int k = 0, n = scene.curveCounts[band]; k < n; k++) {
+				int i = curveBand[k];
+				if (scene.overlaps(scene.curveBounds, i, xmin, ymin, xmax, ymax)) {
+					BezierCurve c = scene.curves.get(i);
+					shape.setCurve(c.x1, c.y1, c.cx1, c.cy1, c.cx2, c.cy2, c.x2, c.y2);
+					g.draw(shape);
+				}
+			}
+
+			g.setColor(markerColor);
+			g.setStroke(new BasicStroke(markerWidth));
+			Line2D.Double line = new Line2D.Double();
+			int[] markerBand = scene.markerBands[band];
+			for (int k = 0, n = scene.markerCounts[band]; k < n; k++) {
+				int i = markerBand[k];
+				if (scene.overlaps(scene.markerBounds, i, xmin, ymin, xmax, ymax)) {
+					Point p = scene.markers[i];
+					line.setLine(p.x - markerSize, p.y, p.x + markerSize, p.y);
+					g.draw(line);
+					line.setLine(p.x, p.y - markerSize, p.x, p.y + markerSize);
+					g.draw(line);
+				}
+			}
+		} finally {
+			g.dispose();
+		}
+	}
+
+	/*
+	 * Pixel bounds of every curve and marker, filed under the bands they
+	 * reach into. A tile only scans its own band and checks the x range.
+	 */
+	private class Scene {
+		final List<BezierCurve> curves;
+		final Point[] markers;
+		final double[] curveBounds, markerBounds;
+		final int[][] curveBands, markerBands;
+		final int[] curveCounts, markerCounts;
+
+		Scene(List<BezierCurve> curves, Collection<? extends Point> markers, int bandCount) {
+			this.curves = curves;
+			this.markers = markers.toArray(new Point[markers.size()]);
+			curveBounds = new double[4 * curves.size()];
+			markerBounds = new double[4 * this.markers.length];
+			curveBands = new int[bandCount][];
+			markerBands = new int[bandCount][];
+			curveCounts = new int[bandCount];
+			markerCounts = new int[bandCount];
+
+			double curvePad = curveWidth / 2.0;
+			for (int i = 0; i < curves.size(); i++) {
+				Bounds b = curves.get(i).getBounds();
+				deviceBounds(b.xmin - curvePad, b.ymin - curvePad, b.xmax + curvePad, b.ymax + curvePad, curveBounds, i);
+				file(curveBounds, i, curveBands, curveCounts);
+			}
+			double markerPad = markerSize + markerWidth / 2.0;
+			for (int i = 0; i < this.markers.length; i++) {
+				Point p = this.markers[i];
+				deviceBounds(p.x - markerPad, p.y - markerPad, p.x + markerPad, p.y + markerPad, markerBounds, i);
+				file(markerBounds, i, markerBands, markerCounts);
+			}
+		}
+
+		private void deviceBounds(double x0, double y0, double x1, double y1, double[] bounds, int i) {
+			double[] corners = { x0, y0, x1, y0, x0, y1, x1, y1 };
+			transform.transform(corners, 0, corners, 0, 4);
+			double xmin = Double.POSITIVE_INFINITY, ymin = Double.POSITIVE_INFINITY;
+			double xmax = Double.NEGATIVE_INFINITY, ymax = Double.NEGATIVE_INFINITY;
+			for (int k = 0; k < 8; k += 2) {
+				xmin = Math.min(xmin, corners[k]);
+				xmax = Math.max(xmax, corners[k]);
+				ymin = Math.min(ymin, corners[k + 1]);
+				ymax = Math.max(ymax, corners[k + 1]);
+			}
+			//One more pixel for antialiasing
+			bounds[4 * i] = xmin - 1;
+			bounds[4 * i + 1] = ymin - 1;
+			bounds[4 * i + 2] = xmax + 1;
+			bounds[4 * i + 3] = ymax + 1;
+		}
+
+		private void file(double[] bounds, int i, int[][] bands, int[] counts) {
+			double ymin = bounds[4 * i + 1], ymax = bounds[4 * i + 3];
+			if (!(ymax >= 0 && ymin < height && bounds[4 * i + 2] >= 0 && bounds[4 * i] < width)) {
+				return;
+			}
+			int first = (int) Math.max(0, Math.floor(ymin / tileSize));
+			int last = (int) Math.min(bands.length - 1, Math.floor(ymax / tileSize));
+			for (int band = first; band <= last; band++) {
+				if (bands[band] == null) {
+					bands[band] = new int[16];
+				} else if (counts[band] == bands[band].length) {
+					bands[band] = Arrays.copyOf(bands[band], 2 * counts[band]);
+				}
+				bands[band][counts[band]++] = i;
+			}
+		}
+
+		boolean overlaps(double[] bounds, int i, double xmin, double ymin, double xmax, double ymax) {
+			return bounds[4 * i] < xmax && bounds[4 * i + 2] >= xmin && bounds[4 * i + 1] < ymax && bounds[4 * i + 3] >= ymin;
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BatchRunnerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static String path(String... names) {
+		StringBuilder path = new StringBuilder();
+		for (String name : names) {
+			if (path.length() > 0) {
+				path.append(File.separatorChar);
+			}
+			path.append(name);
+		}
+		return path.toString();
+	}
+
+	private static void writeSVG(File file, List<BezierCurve> curves) throws IOException {
+		Writer out = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			out.write("<svg xmlns='http://www.w3.org/2000/svg'><path d='M" + curves.get(0).x1 + " " + curves.get(0).y1);
+			for (BezierCurve c : curves) {
+				out.write(" C" + c.cx1 + " " + c.cy1 + " " + c.cx2 + " " + c.cy2 + " " + c.x2 + " " + c.y2);
+			}
+			out.write("'/></svg>");
+		} finally {
+			out.close();
+		}
+	}
+
+	//Three random knots and one file that is not XML
+	private List<File> inputs() throws IOException {
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < 3; i++) {
+			File file = folder.newFile("knot" + i + ".svg");
+			writeSVG(file, TestCurves.randomPath(30, new Random(i)));
+			files.add(file);
+		}
+		File corrupt = folder.newFile("corrupt.svg");
+		Writer out = new OutputStreamWriter(new FileOutputStream(corrupt), "UTF-8");
+		try {
+			out.write("<svg><path d='M0 0");
+		} finally {
+			out.close();
+		}
+		files.add(corrupt);
+		return files;
+	}
+
+	@Test
+	public void runWritesEveryLoadableFile() throws Exception {
+		File out = folder.newFolder("out");
+		List<File> files = inputs();
+		BatchRunner.Summary summary = new BatchRunner(out).run(files);
+		assertEquals(3, summary.getWritten());
+		assertEquals(1, summary.getFailed());
+		assertEquals(0, summary.getTimedOut());
+		assertEquals(90, summary.getCurves());
+		for (int i = 0; i < 3; i++) {
+			assertTrue(new File(out, "knot" + i + ".knot").isFile());
+			assertTrue(new File(out, "knot" + i + "-knot.svg").isFile());
+		}
+		assertTrue(summary.getFilesPerSecond() > 0);
+	}
+
+	@Test
+	public void filesOutOfTimeAreNotWritten() throws Exception {
+		File out = folder.newFolder("out");
+		BatchRunner runner = new BatchRunner(out);
+		runner.setTimeout(1, TimeUnit.NANOSECONDS);
+		BatchRunner.Summary summary = runner.run(inputs().subList(0, 3));
+		assertEquals(0, summary.getWritten());
+		assertEquals(0, summary.getFailed());
+		assertEquals(3, summary.getTimedOut());
+		assertEquals(0, out.list().length);
+	}
+
+	@Test
+	public void emptyRunHasNoRates() {
+		BatchRunner.Summary summary = new BatchRunner.Summary();
+		assertEquals(0.0, summary.getFilesPerSecond(), 0.0);
+		assertEquals(0.0, summary.getCurvesPerSecond(), 0.0);
+	}
+
+	@Test
+	public void sameNamesInDifferentDirectoriesStayApart() {
+		File base = new File("drawings").getAbsoluteFile();
+		File a = new File(new File(base, "a"), "knot.svg");
+		File b = new File(new File(base, "b"), "knot.svg");
+		assertEquals(Arrays.asList(path("a", "knot"), path("b", "knot"), path("a", "knot-3")), BatchRunner.outputNames(Arrays.asList(a, b, a)));
+	}
+
+	@Test
+	public void singleDirectoryKeepsPlainNames() {
+		File base = new File("drawings").getAbsoluteFile();
+		assertEquals(Arrays.asList("trefoil", "figure8"), BatchRunner.outputNames(Arrays.asList(new File(base, "trefoil.svg"), new File(base, "figure8.SVG"))));
+	}
+
+}
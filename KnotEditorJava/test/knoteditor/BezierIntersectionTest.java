@@ -0,0 +1,104 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BezierIntersectionTest {
+
+	private static final double TOLERANCE = 1e-9;
+
+	private PairCache cache;
+
+	@Before
+	public void solveEveryPair() {
+		cache = BezierIntersection.getPairCache();
+		BezierIntersection.setPairCache(null);
+	}
+
+	@After
+	public void restoreCache() {
+		BezierIntersection.setPairCache(cache);
+	}
+
+	private static List<BezierIntersection> sorted(Set<BezierIntersection> intersections) {
+		List<BezierIntersection> list = new ArrayList<BezierIntersection>(intersections);
+		Collections.sort(list, new Comparator<BezierIntersection>() {
+			@Override
+			public int compare(BezierIntersection o1, BezierIntersection o2) {
+				return Double.compare(o1.pIntersect.t, o2.pIntersect.t);
+			}
+		});
+		return list;
+	}
+
+	private static void assertGraphCrossings(PairSolve pairSolve) {
+		List<BezierIntersection> found = sorted(BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT, pairSolve));
+		assertEquals(TestCurves.GRAPH_ROOTS.length, found.size());
+		for (int i = 0; i < found.size(); i++) {
+			assertEquals(TestCurves.GRAPH_ROOTS[i], found.get(i).pIntersect.t, TOLERANCE);
+			assertEquals(TestCurves.GRAPH_ROOTS[i], found.get(i).qIntersect.t, TOLERANCE);
+			assertTrue(found.get(i).residual < TOLERANCE);
+		}
+	}
+
+	@Test
+	public void doubleSolveMatchesRoots() {
+		assertGraphCrossings(PairSolve.DOUBLE_SOLVE);
+	}
+
+	@Test
+	public void inversionMatchesRoots() {
+		assertGraphCrossings(PairSolve.INVERSION);
+	}
+
+	@Test
+	public void invertRecoversParameter() {
+		for (int i = 0; i <= 20; i++) {
+			double t = i / 20.0;
+			assertEquals(t, TestCurves.NINE_P.invert(TestCurves.NINE_P.pointX(t), TestCurves.NINE_P.pointY(t)), 1e-7);
+		}
+	}
+
+	/*
+	 * Every root on one curve pairs with exactly one root on the other
+	 */
+	@Test
+	public void matchingIsOneToOne() {
+		for (PairSolve pairSolve : PairSolve.values()) {
+			List<BezierIntersection> found = sorted(BezierIntersection.createIntersections(TestCurves.NINE_P, TestCurves.NINE_Q, IntersectionAlgorithm.IMPLICIT, pairSolve));
+			assertEquals(pairSolve.toString(), 9, found.size());
+			for (int i = 1; i < found.size(); i++) {
+				assertTrue(found.get(i).pIntersect.t > found.get(i - 1).pIntersect.t);
+				for (int j = 0; j < i; j++) {
+					assertTrue(found.get(i).qIntersect.t != found.get(j).qIntersect.t);
+				}
+			}
+		}
+	}
+
+	/*
+	 * The loop of a curve symmetric about x = 0 closes on that line, at
+	 * parameters that add up to one
+	 */
+	@Test
+	public void selfIntersectionOfSymmetricLoop() {
+		BezierCurve loop = new BezierCurve(-1, 0, 2, 1, -2, 1, 1, 0);
+		BezierIntersection x = BezierIntersection.createSelfIntersection(loop);
+		assertNotNull(x);
+		assertEquals(1.0, x.pIntersect.t + x.qIntersect.t, TOLERANCE);
+		assertEquals(0.0, x.pIntersect.x, TOLERANCE);
+		assertEquals(x.pIntersect.y, x.qIntersect.y, TOLERANCE);
+	}
+
+}
@@ -0,0 +1,53 @@
+package knoteditor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CurveBatchTest {
+
+	private static long[] sorted(PairList pairs) {
+		long[] keys = new long[pairs.size()];
+		for (int k = 0; k < pairs.size(); k++) {
+			keys[k] = ((long) pairs.p(k) << 32) | pairs.q(k);
+		}
+		Arrays.sort(keys);
+		return keys;
+	}
+
+	@Test
+	public void candidatePairsMatchSweepAndPrune() {
+		List<BezierCurve> curves = TestCurves.randomPath(400, new Random(7));
+		CurveBatch batch = CurveBatch.of(curves);
+		assertArrayEquals(sorted(BroadPhase.SWEEP_AND_PRUNE.candidatePairs(curves)), sorted(batch.candidatePairs()));
+		for (int i = 0; i < curves.size(); i++) {
+			Bounds expected = curves.get(i).getBounds(), actual = batch.getBounds(i);
+			assertEquals(expected.xmin, actual.xmin, 0.0);
+			assertEquals(expected.ymin, actual.ymin, 0.0);
+			assertEquals(expected.xmax, actual.xmax, 0.0);
+			assertEquals(expected.ymax, actual.ymax, 0.0);
+		}
+	}
+
+	@Test
+	public void batchSolveMatchesCurveSolve() {
+		List<BezierCurve> curves = TestCurves.randomPath(200, new Random(11));
+		CurveBatch batch = CurveBatch.of(curves);
+		PairList pairs = batch.candidatePairs();
+		IntersectionSolver solver = IntersectionSolver.get();
+		double[] fromCurves = new double[pairs.size() * IntersectionSolver.MAX_ROOTS];
+		double[] fromBatch = new double[fromCurves.length];
+		int[] curveCounts = new int[pairs.size()];
+		int[] batchCounts = new int[pairs.size()];
+		solver.intersections(curves, pairs, 0, pairs.size(), fromCurves, curveCounts);
+		solver.intersections(batch, pairs, 0, pairs.size(), fromBatch, batchCounts);
+		assertArrayEquals(curveCounts, batchCounts);
+		assertArrayEquals(fromCurves, fromBatch, 0.0);
+	}
+
+}
@@ -0,0 +1,107 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CurveFileTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void roundTrip() throws IOException {
+		List<BezierCurve> curves = Arrays.asList(TestCurves.AXIS, TestCurves.LIFTED, TestCurves.GRAPH);
+		Set<BezierIntersection> intersections = BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH);
+		File file = folder.newFile("graph.knot");
+		CurveFile.write(file, curves, intersections);
+
+		CurveFile read = CurveFile.open(file);
+		assertEquals(curves, read.getCurves().toList());
+		assertEquals(intersections, read.getIntersections(curves));
+	}
+
+	/*
+	 * Counts so large that the end positions would overflow a long must be
+	 * rejected as corrupt, not wrap around and pass the size check
+	 */
+	@Test
+	public void corruptCountsAreRejected() throws IOException {
+		for (long n : new long[] { Long.MAX_VALUE / 8, 1L << 60, -1 }) {
+			File file = folder.newFile();
+			CurveFile.write(file, CurveBatch.of(Arrays.asList(TestCurves.AXIS)));
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.seek(16);
+				raf.writeLong(Long.reverseBytes(n));
+			} finally {
+				raf.close();
+			}
+			assertRejected(file);
+		}
+	}
+
+	@Test
+	public void truncatedFileIsRejected() throws IOException {
+		File file = folder.newFile();
+		CurveFile.write(file, CurveBatch.of(Arrays.asList(TestCurves.AXIS, TestCurves.GRAPH)));
+		RandomAccessFile raf = new RandomAccessFile(file, "rw");
+		try {
+			raf.setLength(raf.length() - 8);
+		} finally {
+			raf.close();
+		}
+		assertRejected(file);
+	}
+
+	/*
+	 * Each record is overwritten in turn with an index or a parameter that
+	 * the curves cannot back
+	 */
+	@Test
+	public void corruptIntersectionsAreRejected() throws IOException {
+		List<BezierCurve> curves = Arrays.asList(TestCurves.AXIS, TestCurves.GRAPH);
+		Set<BezierIntersection> intersections = BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH);
+		for (int field = 0; field < 4; field++) {
+			File file = folder.newFile();
+			CurveFile.write(file, curves, intersections);
+			RandomAccessFile raf = new RandomAccessFile(file, "rw");
+			try {
+				raf.seek(raf.length() - 24 * intersections.size() + (field < 2 ? 4 * field : 8 * field - 8));
+				if (field < 2) {
+					raf.writeInt(Integer.reverseBytes(field == 0 ? curves.size() : -1));
+				} else {
+					raf.writeLong(Long.reverseBytes(Double.doubleToLongBits(field == 2 ? 1.5 : Double.NaN)));
+				}
+			} finally {
+				raf.close();
+			}
+			assertRejected(file);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void intersectionOutsideTheCurvesIsRejected() throws IOException {
+		Set<BezierIntersection> intersections = BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH);
+		CurveFile.write(folder.newFile(), Arrays.asList(TestCurves.AXIS), intersections);
+	}
+
+	private static void assertRejected(File file) {
+		try {
+			CurveFile.open(file);
+			fail("opened a corrupt file");
+		} catch (IOException expected) {
+		}
+	}
+
+}
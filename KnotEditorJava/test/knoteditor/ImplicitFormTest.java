@@ -0,0 +1,90 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ImplicitFormTest {
+
+	private static final double TOLERANCE = 1e-9;
+
+	//The parabola y = 0.3 (x - 0.5)^2 - 0.02, which crosses GRAPH three times
+	private static final BezierCurve PARABOLA = TestCurves.fromPower(0, 0, 1, 0, 0, 0.3, -0.3, 0.055);
+
+	//The line from (0, -0.2) to (1, 0.2), which crosses GRAPH three times
+	private static final BezierCurve SLOPE = TestCurves.fromPower(0, 0, 1, 0, 0, 0, 0.4, -0.2);
+
+	/*
+	 * f(x, y) with the coefficients in the order ImplicitForm stores them
+	 */
+	private static double evaluate(double[] u, double x, double y) {
+		return u[0] * x * x * x + u[1] * x * x * y + u[2] * x * y * y + u[3] * y * y * y + u[4] * x * x + u[5] * x * y + u[6] * y * y + u[7] * x + u[8] * y + u[9];
+	}
+
+	@Test
+	public void formVanishesOnTheCurve() {
+		double[] u = TestCurves.GRAPH.implicitForm();
+		for (int i = 0; i <= 8; i++) {
+			Point p = TestCurves.GRAPH.pointAt(i / 8.0);
+			assertEquals(0.0, evaluate(u, p.x, p.y), TOLERANCE);
+		}
+	}
+
+	@Test
+	public void formIsComputedOnce() {
+		BezierCurve c = TestCurves.fromPower(0, 0, 1, 0, 4, -6, 2.64, -0.32);
+		assertSame(c.implicitForm(), c.implicitForm());
+	}
+
+	@Test
+	public void elevatedCurvesHaveNoCubicTerms() {
+		for (BezierCurve c : new BezierCurve[] { PARABOLA, SLOPE }) {
+			double[] u = c.implicitForm();
+			for (int i = 0; i < 4; i++) {
+				assertEquals(0.0, u[i], 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void quadraticFallbackMatchesCubicForm() {
+		assertSameCrossings(PARABOLA);
+	}
+
+	@Test
+	public void linearFallbackMatchesCubicForm() {
+		assertSameCrossings(SLOPE);
+	}
+
+	/*
+	 * Solving GRAPH against the fallback form of c must find the points that
+	 * solving c against the full cubic form of GRAPH finds
+	 */
+	private static void assertSameCrossings(BezierCurve c) {
+		List<BezierPoint> fallback = sorted(new ArrayList<BezierPoint>(TestCurves.GRAPH.intersections(c, IntersectionAlgorithm.IMPLICIT)));
+		List<BezierPoint> cubic = sorted(new ArrayList<BezierPoint>(c.intersections(TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT)));
+		assertEquals(3, cubic.size());
+		assertEquals(cubic.size(), fallback.size());
+		for (int i = 0; i < cubic.size(); i++) {
+			assertTrue(fallback.get(i) + " != " + cubic.get(i), fallback.get(i).distance(cubic.get(i)) < TOLERANCE);
+		}
+	}
+
+	private static List<BezierPoint> sorted(List<BezierPoint> points) {
+		Collections.sort(points, new Comparator<BezierPoint>() {
+			@Override
+			public int compare(BezierPoint o1, BezierPoint o2) {
+				return Double.compare(o1.x, o2.x);
+			}
+		});
+		return points;
+	}
+
+}
@@ -0,0 +1,59 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IntersectionIndexTest {
+
+	/*
+	 * Crossings are listed by the index of p, then of q, then by parameter
+	 */
+	private static void assertOrdered(IntersectionIndex index) {
+		List<BezierCurve> curves = index.getCurves();
+		BezierIntersection last = null;
+		for (BezierIntersection x : index.getIntersections()) {
+			if (x.p == x.q) {
+				continue;
+			}
+			if (last != null) {
+				int p = curves.indexOf(x.p) - curves.indexOf(last.p);
+				int q = curves.indexOf(x.q) - curves.indexOf(last.q);
+				assertTrue(p > 0 || p == 0 && (q > 0 || q == 0 && x.pIntersect.t > last.pIntersect.t));
+			}
+			last = x;
+		}
+	}
+
+	/*
+	 * Edits have to leave the index listing what a fresh index over the same
+	 * curves lists, in the same order
+	 */
+	@Test
+	public void editsMatchRebuild() {
+		Random random = new Random(3);
+		IntersectionIndex index = new IntersectionIndex(TestCurves.randomPath(120, random));
+		for (int k = 0; k < 60; k++) {
+			int i = random.nextInt(index.size());
+			switch (k % 3) {
+			case 0:
+				index.replaceCurve(i, TestCurves.randomCurve(random, index.getCurve(i).x1, index.getCurve(i).y1));
+				break;
+			case 1:
+				index.insertCurve(i, TestCurves.randomCurve(random, random.nextDouble() * 1000, random.nextDouble() * 1000));
+				break;
+			default:
+				index.removeCurve(i);
+			}
+			assertOrdered(index);
+		}
+		IntersectionIndex rebuilt = new IntersectionIndex(index.getCurves());
+		assertEquals(new ArrayList<BezierIntersection>(rebuilt.getIntersections()), new ArrayList<BezierIntersection>(index.getIntersections()));
+	}
+
+}
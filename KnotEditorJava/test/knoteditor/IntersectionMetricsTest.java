@@ -0,0 +1,69 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IntersectionMetricsTest {
+
+	private final List<BezierCurve> curves = TestCurves.randomPath(200, new Random(1));
+	private boolean enabled;
+	private PairCache cache;
+
+	@Before
+	public void solveEveryPair() {
+		enabled = IntersectionMetrics.isEnabled();
+		cache = BezierIntersection.getPairCache();
+		BezierIntersection.setPairCache(null);
+	}
+
+	@After
+	public void restore() {
+		IntersectionMetrics.setEnabled(enabled);
+		BezierIntersection.setPairCache(cache);
+	}
+
+	/*
+	 * Every pair (i, j) with j >= i + 2 is considered, and the broad phase
+	 * lets its own candidate pairs through
+	 */
+	@Test
+	public void passIsCounted() {
+		IntersectionMetrics.setEnabled(true);
+		IntersectionMetrics before = IntersectionMetrics.snapshot();
+		Set<BezierIntersection> found = SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE);
+		IntersectionMetrics counted = IntersectionMetrics.snapshot().minus(before);
+		int selfIntersections = 0;
+		for (BezierIntersection x : found) {
+			if (x.p == x.q) {
+				selfIntersections++;
+			}
+		}
+		assertEquals(199 * 198 / 2, counted.getPairsConsidered());
+		assertEquals(BroadPhase.SWEEP_AND_PRUNE.candidatePairs(curves).size(), counted.getCandidatePairs());
+		assertEquals(curves.size(), counted.getSelfIntersectionTests());
+		assertEquals(selfIntersections, counted.getSelfIntersectionsFound());
+		assertTrue(counted.getRootsFound() >= found.size() - selfIntersections);
+		assertTrue(counted.getChainsBuilt() > 0);
+	}
+
+	@Test
+	public void nothingIsCountedWhenDisabled() {
+		IntersectionMetrics.setEnabled(false);
+		IntersectionMetrics before = IntersectionMetrics.snapshot();
+		SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE);
+		IntersectionMetrics counted = IntersectionMetrics.snapshot().minus(before);
+		assertEquals(0, counted.getPairsConsidered());
+		assertEquals(0, counted.getSelfIntersectionTests());
+		assertEquals(0, counted.getChainsBuilt());
+		assertEquals(0, counted.getRootsFound());
+	}
+
+}
@@ -0,0 +1,137 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class IntersectionSolverTest {
+
+	private static final double TOLERANCE = 1e-9;
+
+	private final IntersectionSolver solver = IntersectionSolver.get();
+	private final double[] roots = new double[IntersectionSolver.MAX_ROOTS];
+
+	@After
+	public void followDefaults() {
+		solver.setRootIsolation(null);
+		solver.setRootRefinement(null);
+	}
+
+	private void use(RootIsolation isolation, RootRefinement refinement) {
+		solver.setRootIsolation(isolation);
+		solver.setRootRefinement(refinement);
+	}
+
+	private void assertRoots(double[] expected, int count) {
+		assertEquals("roots " + Arrays.toString(Arrays.copyOf(roots, count)), expected.length, count);
+		for (int i = 0; i < count; i++) {
+			assertEquals(expected[i], roots[i], TOLERANCE);
+		}
+	}
+
+	private void assertGraphRoots() {
+		assertRoots(TestCurves.GRAPH_ROOTS, solver.intersections(TestCurves.AXIS, TestCurves.GRAPH, roots));
+		assertRoots(TestCurves.GRAPH_ROOTS, solver.normalizedIntersections(TestCurves.AXIS, TestCurves.GRAPH, roots));
+		assertRoots(new double[0], solver.intersections(TestCurves.AXIS, TestCurves.LIFTED, roots));
+		assertRoots(new double[0], solver.normalizedIntersections(TestCurves.AXIS, TestCurves.LIFTED, roots));
+	}
+
+	@Test
+	public void sturmBisection() {
+		use(RootIsolation.STURM, RootRefinement.BISECTION);
+		assertGraphRoots();
+	}
+
+	@Test
+	public void sturmNewton() {
+		use(RootIsolation.STURM, RootRefinement.NEWTON);
+		assertGraphRoots();
+	}
+
+	@Test
+	public void descartesBisection() {
+		use(RootIsolation.DESCARTES, RootRefinement.BISECTION);
+		assertGraphRoots();
+	}
+
+	@Test
+	public void descartesNewton() {
+		use(RootIsolation.DESCARTES, RootRefinement.NEWTON);
+		assertGraphRoots();
+	}
+
+	@Test
+	public void isolationsAgreeOnNineCrossings() {
+		use(RootIsolation.STURM, RootRefinement.NEWTON);
+		int count = solver.intersections(TestCurves.NINE_P, TestCurves.NINE_Q, roots);
+		double[] sturm = Arrays.copyOf(roots, count);
+		assertEquals(9, count);
+		use(RootIsolation.DESCARTES, RootRefinement.NEWTON);
+		assertRoots(sturm, solver.intersections(TestCurves.NINE_P, TestCurves.NINE_Q, roots));
+		use(RootIsolation.STURM, RootRefinement.BISECTION);
+		assertRoots(sturm, solver.normalizedIntersections(TestCurves.NINE_P, TestCurves.NINE_Q, roots));
+	}
+
+	/*
+	 * A tangency leaves chain values too close to zero for the plain error
+	 * bound, and the extra evaluations are tallied only while counting
+	 */
+	@Test
+	public void guardedEvaluationsAreCounted() {
+		BezierCurve cup = new BezierCurve(0, 1, 1, -1, 2, -1, 3, 1);
+		BezierCurve line = new BezierCurve(0, -0.5, 1, -0.5, 2, -0.5, 3, -0.5);
+		boolean enabled = IntersectionMetrics.isEnabled();
+		try {
+			IntersectionMetrics.setEnabled(true);
+			IntersectionMetrics before = IntersectionMetrics.snapshot();
+			assertEquals(1, solver.normalizedIntersections(cup, line, roots));
+			IntersectionMetrics counted = IntersectionMetrics.snapshot().minus(before);
+			assertTrue(counted.getCompensatedEvaluations() > 0);
+			assertTrue(counted.getExactEvaluations() <= counted.getCompensatedEvaluations());
+
+			//Descartes has no guarded signs, so the normalized solve keeps to Sturm
+			use(RootIsolation.DESCARTES, RootRefinement.NEWTON);
+			before = IntersectionMetrics.snapshot();
+			assertEquals(1, solver.normalizedIntersections(cup, line, roots));
+			assertEquals(counted.getCompensatedEvaluations(), IntersectionMetrics.snapshot().minus(before).getCompensatedEvaluations());
+
+			IntersectionMetrics.setEnabled(false);
+			before = IntersectionMetrics.snapshot();
+			solver.normalizedIntersections(cup, line, roots);
+			assertEquals(0, IntersectionMetrics.snapshot().minus(before).getCompensatedEvaluations());
+		} finally {
+			IntersectionMetrics.setEnabled(enabled);
+		}
+	}
+
+	/*
+	 * The batch entry point bisects the chains of all pairs together and has
+	 * to find what the single pair solves find
+	 */
+	@Test
+	public void batchMatchesSinglePairs() {
+		use(RootIsolation.STURM, RootRefinement.NEWTON);
+		PairList pairs = new PairList();
+		pairs.add(0, 1);
+		pairs.add(0, 2);
+		pairs.add(3, 4);
+		double[] batchRoots = new double[pairs.size() * IntersectionSolver.MAX_ROOTS];
+		int[] counts = new int[pairs.size()];
+		solver.intersections(Arrays.asList(TestCurves.AXIS, TestCurves.GRAPH, TestCurves.LIFTED, TestCurves.NINE_P, TestCurves.NINE_Q), pairs, 0, pairs.size(), batchRoots, counts);
+		assertEquals(3, counts[0]);
+		assertEquals(0, counts[1]);
+		assertEquals(9, counts[2]);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(TestCurves.GRAPH_ROOTS[i], batchRoots[i], TOLERANCE);
+		}
+		int count = solver.intersections(TestCurves.NINE_P, TestCurves.NINE_Q, roots);
+		for (int i = 0; i < count; i++) {
+			assertEquals(roots[i], batchRoots[2 * IntersectionSolver.MAX_ROOTS + i], TOLERANCE);
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+package knoteditor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class KnotDiagramTest {
+
+	private final List<BezierCurve> curves = TestCurves.trefoil(12);
+	private final KnotDiagram diagram = new KnotDiagram(curves, SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE));
+
+	private static String svg(KnotRenderer renderer) throws IOException {
+		StringWriter out = new StringWriter();
+		renderer.writeSVG(out);
+		return out.toString();
+	}
+
+	@Test
+	public void trefoilCodes() {
+		assertEquals(3, diagram.getCrossingCount());
+		assertEquals(1, diagram.getComponentCount());
+		assertTrue(diagram.isClosed(0));
+		assertEquals("O1 U2 O3 U1 O2 U3", diagram.toGaussString());
+		assertArrayEquals(new int[] { -1, -1, -1 }, diagram.getSigns());
+		assertEquals("PD[X[4, 1, 5, 2], X[2, 5, 3, 6], X[6, 3, 1, 4]]", diagram.toPDString());
+	}
+
+	/*
+	 * Taking a crossing out and putting it back as it was leaves the codes
+	 * as they were
+	 */
+	@Test
+	public void removeAndAddRestoresCodes() {
+		String gauss = diagram.toGaussString();
+		String pd = diagram.toPDString();
+		for (BezierIntersection crossing : new ArrayList<BezierIntersection>(diagram.getCrossings())) {
+			boolean pOver = diagram.isOver(crossing);
+			assertTrue(diagram.removeCrossing(crossing));
+			assertEquals(2, diagram.getCrossingCount());
+			assertTrue(diagram.addCrossing(crossing, pOver));
+			assertEquals(gauss, diagram.toGaussString());
+			assertEquals(pd, diagram.toPDString());
+		}
+	}
+
+	/*
+	 * The renderer draws from the diagram, so a flip made on either shows in
+	 * both the codes and the drawing
+	 */
+	@Test
+	public void rendererSharesOverAndUnder() throws IOException {
+		KnotRenderer renderer = new KnotRenderer(diagram);
+		String alternating = svg(renderer);
+		BezierIntersection first = diagram.getCrossings().iterator().next();
+
+		renderer.flip(first);
+		assertEquals(renderer.isOver(first), diagram.isOver(first));
+		assertFalse(diagram.toGaussString().equals("O1 U2 O3 U1 O2 U3"));
+		assertEquals(1, diagram.getSign(first));
+		String flipped = svg(renderer);
+		assertFalse(flipped.equals(alternating));
+
+		diagram.setOver(first, !diagram.isOver(first));
+		assertEquals(alternating, svg(renderer));
+		diagram.setOver(first, !diagram.isOver(first));
+		assertEquals(flipped, svg(new KnotRenderer(diagram)));
+		assertEquals(flipped, svg(renderer));
+	}
+
+}
@@ -0,0 +1,150 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class KnotRendererTest {
+
+	private static final double TOLERANCE = 1e-9;
+
+	//A strand of two lines along the x axis, joined at x = 100, and a
+	//vertical line crossing the first of them at x = 97. Every line runs at
+	//a speed of 100 per unit of t.
+	private static final BezierCurve LEFT = line(0, 0, 100, 0);
+	private static final BezierCurve RIGHT = line(100, 0, 200, 0);
+	private static final BezierCurve VERTICAL = line(97, -50, 97, 50);
+
+	private static BezierCurve line(double x1, double y1, double x2, double y2) {
+		return new BezierCurve(x1, y1, x1 + (x2 - x1) / 3, y1 + (y2 - y1) / 3, x2 + (x1 - x2) / 3, y2 + (y1 - y2) / 3, x2, y2);
+	}
+
+	private static String svg(KnotRenderer renderer) throws IOException {
+		StringWriter out = new StringWriter();
+		renderer.writeSVG(out);
+		return out.toString();
+	}
+
+	private static void assertPiece(double x1, double y1, double x2, double y2, BezierCurve piece) {
+		assertEquals(piece.toString(), x1, piece.x1, TOLERANCE);
+		assertEquals(piece.toString(), y1, piece.y1, TOLERANCE);
+		assertEquals(piece.toString(), x2, piece.x2, TOLERANCE);
+		assertEquals(piece.toString(), y2, piece.y2, TOLERANCE);
+	}
+
+	/*
+	 * The default gap of 10 cuts 5 either side of the crossing
+	 */
+	@Test
+	public void gapIsCutFromTheUnderStrand() {
+		List<BezierCurve> curves = Arrays.asList(LEFT, RIGHT, VERTICAL);
+		KnotRenderer renderer = new KnotRenderer(curves, SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE));
+		assertEquals(1, renderer.getCrossingCount());
+		BezierIntersection crossing = renderer.getCrossings().iterator().next();
+		renderer.setOver(crossing, crossing.p == LEFT);
+		List<BezierCurve> pieces = renderer.getPieces();
+		assertEquals(4, pieces.size());
+		assertEquals(LEFT, pieces.get(0));
+		assertEquals(RIGHT, pieces.get(1));
+		assertPiece(97, -50, 97, -5, pieces.get(2));
+		assertPiece(97, 5, 97, 50, pieces.get(3));
+	}
+
+	/*
+	 * Only 3 of the 5 either side of the crossing fit on LEFT, and the other
+	 * 2 are cut from the start of RIGHT
+	 */
+	@Test
+	public void gapSpillsOverAJoint() {
+		List<BezierCurve> curves = Arrays.asList(LEFT, RIGHT, VERTICAL);
+		KnotRenderer renderer = new KnotRenderer(curves, SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE));
+		BezierIntersection crossing = renderer.getCrossings().iterator().next();
+		renderer.setOver(crossing, crossing.p == VERTICAL);
+		List<BezierCurve> pieces = renderer.getPieces();
+		assertEquals(3, pieces.size());
+		assertPiece(0, 0, 92, 0, pieces.get(0));
+		assertPiece(102, 0, 200, 0, pieces.get(1));
+		assertEquals(VERTICAL, pieces.get(2));
+	}
+
+	/*
+	 * Flipping a crossing moves the gap to the other strand, and flipping it
+	 * back draws what was drawn before
+	 */
+	@Test
+	public void flipTwiceRestoresTheDrawing() throws IOException {
+		List<BezierCurve> curves = Arrays.asList(LEFT, RIGHT, VERTICAL);
+		KnotRenderer renderer = new KnotRenderer(curves, SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE));
+		BezierIntersection crossing = renderer.getCrossings().iterator().next();
+		String before = svg(renderer);
+		renderer.flip(crossing);
+		assertFalse(before.equals(svg(renderer)));
+		renderer.flip(crossing);
+		assertEquals(before, svg(renderer));
+	}
+
+	/*
+	 * A flip may only drop the pieces of the curves around its crossing, and
+	 * what is drawn afterwards must match a renderer built from scratch
+	 */
+	@Test
+	public void flipKeepsUnrelatedPieces() throws IOException {
+		List<BezierCurve> curves = TestCurves.trefoil(12);
+		KnotDiagram diagram = new KnotDiagram(curves, SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE));
+		KnotRenderer renderer = new KnotRenderer(diagram);
+		renderer.getPieces();
+		BezierCurve[][] before = new BezierCurve[curves.size()][];
+		for (int i = 0; i < curves.size(); i++) {
+			before[i] = renderer.cachedPieces(i);
+			assertNotNull(before[i]);
+		}
+
+		BezierIntersection crossing = renderer.getCrossings().iterator().next();
+		Set<Integer> around = new HashSet<Integer>();
+		for (BezierCurve c : Arrays.asList(crossing.p, crossing.q)) {
+			int i = curves.indexOf(c);
+			around.addAll(Arrays.asList(i, diagram.previous(i), diagram.next(i)));
+		}
+		renderer.flip(crossing);
+		int dropped = 0;
+		for (int i = 0; i < curves.size(); i++) {
+			if (!around.contains(i)) {
+				assertSame("curve " + i, before[i], renderer.cachedPieces(i));
+			} else if (renderer.cachedPieces(i) == null) {
+				dropped++;
+			}
+		}
+		assertTrue(dropped > 0);
+
+		KnotDiagram flipped = new KnotDiagram(curves, diagram.getCrossings());
+		flipped.setOver(crossing, diagram.isOver(crossing));
+		assertEquals(svg(new KnotRenderer(flipped)), svg(renderer));
+	}
+
+	/*
+	 * Curves left of and above the origin must stay inside the picture. The
+	 * curve reaches y = -21.13 and 21.13 between its ends, and the stroke
+	 * adds 1 on every side before the box is rounded out to whole units.
+	 */
+	@Test
+	public void viewBoxCoversNegativeCoordinates() throws IOException {
+		BezierCurve c = new BezierCurve(-40, -20, -10, -30, 10, 30, 40, 20);
+		KnotRenderer renderer = new KnotRenderer(Arrays.asList(c), Collections.<BezierIntersection>emptySet());
+		renderer.setStrokeWidth(2);
+		String svg = svg(renderer);
+		assertTrue(svg, svg.contains("width=\"82.0\" height=\"46.0\" viewBox=\"-41.0 -23.0 82.0 46.0\""));
+	}
+
+}
@@ -0,0 +1,124 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MonotonePiecesTest {
+
+	private static final double TOLERANCE = 1e-9;
+
+	//The parabola y = (x - 0.5)^2, which turns around at t = 0.5
+	private static final BezierCurve PARABOLA = TestCurves.fromPower(0, 0, 1, 0, 0, 1, -1, 0.25);
+
+	//The vertical line x = 0.5 through the turning point of PARABOLA
+	private static final BezierCurve VERTICAL = TestCurves.fromPower(0, 0, 0, 0.5, 0, 0, 2, -1);
+
+	//Far away from both, so PARABOLA and VERTICAL are not neighbours
+	private static final BezierCurve FAR = TestCurves.fromPower(0, 0, 1, 10, 0, 0, 1, 10);
+
+	private PairCache cache;
+	private boolean split;
+
+	@Before
+	public void solveEveryPair() {
+		cache = BezierIntersection.getPairCache();
+		split = SVGKnotEditor.isMonotoneSplit();
+		BezierIntersection.setPairCache(null);
+	}
+
+	@After
+	public void restore() {
+		BezierIntersection.setPairCache(cache);
+		SVGKnotEditor.setMonotoneSplit(split);
+	}
+
+	@Test
+	public void piecesMapOntoTheirCurve() {
+		MonotonePieces pieces = new MonotonePieces(Arrays.asList(TestCurves.GRAPH));
+		//y turns around twice, at 0.5 -+ sqrt(0.03)
+		assertEquals(3, pieces.size());
+		assertEquals(0.0, pieces.getStart(0), 0.0);
+		assertEquals(0.5 - Math.sqrt(0.03), pieces.getEnd(0), TOLERANCE);
+		assertEquals(0.5 + Math.sqrt(0.03), pieces.getEnd(1), TOLERANCE);
+		assertEquals(1.0, pieces.getEnd(2), 0.0);
+		for (int k = 0; k < pieces.size(); k++) {
+			assertEquals(0, pieces.getCurveIndex(k));
+			assertEquals(pieces.getStart(k), pieces.toCurveParameter(k, 0), 0.0);
+			assertEquals(pieces.getEnd(k), pieces.toCurveParameter(k, 1), 0.0);
+			if (k > 0) {
+				assertEquals(pieces.getEnd(k - 1), pieces.getStart(k), 0.0);
+			}
+			for (double t = 0.125; t < 1; t += 0.125) {
+				double u = pieces.toCurveParameter(k, t);
+				assertEquals(pieces.getStart(k) + t * (pieces.getEnd(k) - pieces.getStart(k)), u, TOLERANCE);
+				assertTrue(pieces.getPieces().get(k).pointAt(t).distance(TestCurves.GRAPH.pointAt(u)) < TOLERANCE);
+			}
+		}
+	}
+
+	/*
+	 * Both halves of PARABOLA end on the crossing, and only the first one
+	 * may report it. Descartes isolation reports roots at 0 where the Sturm
+	 * chain does not, so there the second half finds it too.
+	 */
+	@Test
+	public void crossingOnACutIsReportedOnce() {
+		MonotonePieces pieces = new MonotonePieces(Arrays.asList(PARABOLA, FAR, VERTICAL));
+		assertEquals(4, pieces.size());
+		PairList pairs = pieces.candidatePairs();
+		IntersectionSolver solver = IntersectionSolver.get();
+		try {
+			for (RootIsolation isolation : RootIsolation.values()) {
+				solver.setRootIsolation(isolation);
+				List<BezierIntersection> found = new ArrayList<BezierIntersection>();
+				for (int k = 0; k < pairs.size(); k++) {
+					found.addAll(pieces.createIntersections(pairs.p(k), pairs.q(k)));
+				}
+				assertEquals(isolation.toString(), 1, found.size());
+				assertEquals(0.5, found.get(0).pIntersect.t, TOLERANCE);
+				assertEquals(0.5, found.get(0).qIntersect.t, TOLERANCE);
+			}
+		} finally {
+			solver.setRootIsolation(null);
+		}
+	}
+
+	/*
+	 * The pieces are solved on their own, so crossings come out at slightly
+	 * different points, and crossings the whole curves miss may turn up. On
+	 * this path none of the whole curve crossings are lost; see
+	 * SVGKnotEditor.setMonotoneSplit for paths where some are.
+	 */
+	@Test
+	public void piecesFindEveryWholeCurveCrossing() {
+		List<BezierCurve> curves = TestCurves.randomPath(200, new Random(1));
+		SVGKnotEditor.setMonotoneSplit(false);
+		Set<BezierIntersection> whole = SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE);
+		SVGKnotEditor.setMonotoneSplit(true);
+		Set<BezierIntersection> split = SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE);
+		assertTrue(whole.size() > 0);
+		for (BezierIntersection x : whole) {
+			assertTrue("lost " + x, contains(split, x));
+		}
+	}
+
+	private static boolean contains(Set<BezierIntersection> intersections, BezierIntersection x) {
+		for (BezierIntersection y : intersections) {
+			if (y.p == x.p && y.q == x.q && y.pIntersect.distance(x.pIntersect) < 1e-3) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
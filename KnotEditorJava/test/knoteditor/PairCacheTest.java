@@ -0,0 +1,67 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PairCacheTest {
+
+	private final PairCache cache = new PairCache(64);
+	private PairCache previous;
+
+	@Before
+	public void useCache() {
+		previous = BezierIntersection.getPairCache();
+		BezierIntersection.setPairCache(cache);
+	}
+
+	@After
+	public void restoreCache() {
+		BezierIntersection.setPairCache(previous);
+		IntersectionSolver.get().setRootIsolation(null);
+		IntersectionSolver.get().setRootRefinement(null);
+	}
+
+	@Test
+	public void reversedPairHits() {
+		BezierIntersection.createIntersections(TestCurves.NINE_P, TestCurves.NINE_Q, IntersectionAlgorithm.IMPLICIT, PairSolve.DOUBLE_SOLVE);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(9, BezierIntersection.createIntersections(TestCurves.NINE_Q, TestCurves.NINE_P, IntersectionAlgorithm.IMPLICIT, PairSolve.DOUBLE_SOLVE).size());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.size());
+	}
+
+	/*
+	 * A cross-check between two settings has to solve under both of them
+	 */
+	@Test
+	public void settingsArePartOfTheKey() {
+		IntersectionSolver solver = IntersectionSolver.get();
+		solver.setRootIsolation(RootIsolation.STURM);
+		solver.setRootRefinement(RootRefinement.BISECTION);
+		BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT, PairSolve.DOUBLE_SOLVE);
+		solver.setRootRefinement(RootRefinement.NEWTON);
+		BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT, PairSolve.DOUBLE_SOLVE);
+		solver.setRootIsolation(RootIsolation.DESCARTES);
+		BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT, PairSolve.DOUBLE_SOLVE);
+		BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT, PairSolve.INVERSION);
+		BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.SUBDIVISION, PairSolve.INVERSION);
+		assertEquals(0, cache.getHitCount());
+		assertEquals(5, cache.size());
+	}
+
+	@Test
+	public void validationBypassesCache() {
+		BezierIntersection.setValidatePairSolve(true);
+		try {
+			BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT, PairSolve.INVERSION);
+			BezierIntersection.createIntersections(TestCurves.AXIS, TestCurves.GRAPH, IntersectionAlgorithm.IMPLICIT, PairSolve.INVERSION);
+		} finally {
+			BezierIntersection.setValidatePairSolve(false);
+		}
+		assertEquals(0, cache.getHitCount() + cache.getMissCount());
+	}
+
+}
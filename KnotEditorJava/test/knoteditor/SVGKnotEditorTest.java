@@ -0,0 +1,63 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SVGKnotEditorTest {
+
+	private final ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/*
+	 * Culling may only drop pairs that have no crossings
+	 */
+	@Test
+	public void sweepAndPruneMatchesBruteForce() {
+		for (long seed = 1; seed <= 5; seed++) {
+			List<BezierCurve> curves = TestCurves.randomPath(200, new Random(seed));
+			assertEquals(SVGKnotEditor.findIntersections(curves, BroadPhase.BRUTE_FORCE), SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE));
+		}
+	}
+
+	@Test
+	public void parallelMatchesSerial() throws Exception {
+		List<BezierCurve> curves = TestCurves.randomPath(300, new Random(5));
+		assertEquals(SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE), SVGKnotEditor.findIntersections(curves, BroadPhase.SWEEP_AND_PRUNE, executor));
+	}
+
+	/*
+	 * Running chunks have to stop at the deadline too, leaving the pool idle
+	 * soon after the timeout
+	 */
+	@Test
+	public void timeoutStopsRunningChunks() throws Exception {
+		List<BezierCurve> curves = TestCurves.randomPath(3000, new Random(9));
+		try {
+			SVGKnotEditor.findIntersections(curves, BroadPhase.BRUTE_FORCE, executor, 50, TimeUnit.MILLISECONDS);
+			fail("finished within the timeout");
+		} catch (TimeoutException expected) {
+		}
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+		while (executor.getActiveCount() > 0 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertEquals(0, executor.getActiveCount());
+		assertTrue(executor.getQueue().isEmpty());
+	}
+
+}
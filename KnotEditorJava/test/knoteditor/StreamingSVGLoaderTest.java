@@ -0,0 +1,156 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+public class StreamingSVGLoaderTest {
+
+	private static final double EPSILON = 1e-9;
+
+	@Test
+	public void cubicAndSmoothCubic() throws Exception {
+		List<BezierCurve> curves = load("<path d='M10 20 c 3 0 6 3 9 9 s 6 9 9 0 S 40 40 50 50'/>");
+		assertEquals(3, curves.size());
+		assertCurve(10, 20, 13, 20, 16, 23, 19, 29, curves.get(0));
+		//The first control point reflects the previous second one
+		assertCurve(19, 29, 22, 35, 25, 38, 28, 29, curves.get(1));
+		assertCurve(28, 29, 31, 20, 40, 40, 50, 50, curves.get(2));
+	}
+
+	/*
+	 * A smooth curveto after anything but a cubic starts at the current point
+	 */
+	@Test
+	public void smoothCubicAfterMove() throws Exception {
+		List<BezierCurve> curves = load("<path d='M10 20 s 6 9 9 0'/>");
+		assertEquals(1, curves.size());
+		assertCurve(10, 20, 10, 20, 16, 29, 19, 20, curves.get(0));
+	}
+
+	@Test
+	public void linesAndCloseAreElevatedAtTheThirds() throws Exception {
+		List<BezierCurve> curves = load("<path d='M0 0 l 3 6 h 3 v -3 L 0 3 z'/>");
+		assertEquals(5, curves.size());
+		assertCurve(0, 0, 1, 2, 2, 4, 3, 6, curves.get(0));
+		assertCurve(3, 6, 4, 6, 5, 6, 6, 6, curves.get(1));
+		assertCurve(6, 6, 6, 5, 6, 4, 6, 3, curves.get(2));
+		assertCurve(6, 3, 4, 3, 2, 3, 0, 3, curves.get(3));
+		//The closing line back to the start of the subpath
+		assertCurve(0, 3, 0, 2, 0, 1, 0, 0, curves.get(4));
+	}
+
+	@Test
+	public void closeOnTheStartPointAddsNothing() throws Exception {
+		List<BezierCurve> curves = load("<path d='M0 0 c 1 1 2 1 3 0 L 0 0 Z'/>");
+		assertEquals(2, curves.size());
+	}
+
+	@Test
+	public void quadraticsAreElevatedAtTwoThirds() throws Exception {
+		List<BezierCurve> curves = load("<path d='M0 0 q 3 6 6 0 t 6 0 Q 15 3 18 0'/>");
+		assertEquals(3, curves.size());
+		assertCurve(0, 0, 2, 4, 4, 4, 6, 0, curves.get(0));
+		//The smooth quadratic reflects the control point (3, 6) to (9, -6)
+		assertCurve(6, 0, 8, -4, 10, -4, 12, 0, curves.get(1));
+		assertCurve(12, 0, 14, 2, 16, 2, 18, 0, curves.get(2));
+	}
+
+	@Test
+	public void arcIsSplitIntoQuarterTurns() throws Exception {
+		List<BezierCurve> curves = load("<path d='M0 0 a 5 5 0 0 1 10 0'/>");
+		assertEquals(2, curves.size());
+		double k = 4.0 / 3.0 * Math.tan(Math.PI / 8);
+		assertCurve(0, 0, 0, -5 * k, 5 - 5 * k, -5, 5, -5, curves.get(0));
+		assertCurve(5, -5, 5 + 5 * k, -5, 10, -5 * k, 10, 0, curves.get(1));
+	}
+
+	/*
+	 * After closepath the current point is the start of the closed subpath,
+	 * so a relative moveto is measured from there
+	 */
+	@Test
+	public void relativeMoveAfterClose() throws Exception {
+		List<BezierCurve> curves = load("<path d='M10 10 l 3 0 z m 3 3 l 3 0'/>");
+		assertEquals(3, curves.size());
+		assertCurve(13, 10, 12, 10, 11, 10, 10, 10, curves.get(1));
+		assertCurve(13, 13, 14, 13, 15, 13, 16, 13, curves.get(2));
+	}
+
+	/*
+	 * Relative moves add up in double precision; rounding each sum to a float
+	 * would move 100000 + 0.01 to 100000.0078
+	 */
+	@Test
+	public void relativeMoveKeepsDoublePrecision() throws Exception {
+		List<BezierCurve> curves = load("<path d='m 100000 0 m 0.01 0 c 0 0 0 0 0 0'/>");
+		assertEquals(1, curves.size());
+		assertEquals(100000 + (double) 0.01f, curves.get(0).x1, 0);
+	}
+
+	@Test
+	public void nestedTransformsCombine() throws Exception {
+		List<BezierCurve> curves = load("<g transform='translate(100 0)'><g transform='scale(2)'>"
+				+ "<path transform='translate(0 10)' d='M0 0 c 1 0 2 0 3 0'/>"
+				+ "</g></g><path d='M0 0 c 1 0 2 0 3 0'/>");
+		assertEquals(2, curves.size());
+		assertCurve(100, 20, 102, 20, 104, 20, 106, 20, curves.get(0));
+		//A sibling after the groups are closed is untransformed
+		assertCurve(0, 0, 1, 0, 2, 0, 3, 0, curves.get(1));
+	}
+
+	/*
+	 * The DTD names a file that does not exist, so fetching it would fail
+	 */
+	@Test
+	public void doctypeIsNotFetched() throws Exception {
+		String svg = "<?xml version='1.0'?>"
+				+ "<!DOCTYPE svg PUBLIC '-//W3C//DTD SVG 1.1//EN' 'file:///nonexistent/svg11.dtd'>"
+				+ "<svg xmlns='http://www.w3.org/2000/svg'><path d='M0 0 c 1 0 2 0 3 0'/></svg>";
+		List<BezierCurve> curves = parse(svg);
+		assertEquals(1, curves.size());
+		assertCurve(0, 0, 1, 0, 2, 0, 3, 0, curves.get(0));
+	}
+
+	private static List<BezierCurve> load(String body) throws IOException, SAXException {
+		return parse("<svg xmlns='http://www.w3.org/2000/svg'>" + body + "</svg>");
+	}
+
+	private static List<BezierCurve> parse(String svg) throws IOException, SAXException {
+		final List<BezierCurve> curves = new ArrayList<BezierCurve>();
+		StreamingSVGLoader.load(new ByteArrayInputStream(svg.getBytes("UTF-8")), new CurveSink() {
+			@Override
+			public void startPath() {
+			}
+
+			@Override
+			public void curve(BezierCurve c) {
+				curves.add(c);
+			}
+
+			@Override
+			public void endPath() {
+			}
+		});
+		return curves;
+	}
+
+	private static void assertCurve(double x1, double y1, double cx1, double cy1, double cx2, double cy2, double x2, double y2, BezierCurve c) {
+		String message = c.toString();
+		assertEquals(message, x1, c.x1, EPSILON);
+		assertEquals(message, y1, c.y1, EPSILON);
+		assertEquals(message, cx1, c.cx1, EPSILON);
+		assertEquals(message, cy1, c.cy1, EPSILON);
+		assertEquals(message, cx2, c.cx2, EPSILON);
+		assertEquals(message, cy2, c.cy2, EPSILON);
+		assertEquals(message, x2, c.x2, EPSILON);
+		assertEquals(message, y2, c.y2, EPSILON);
+	}
+
+}
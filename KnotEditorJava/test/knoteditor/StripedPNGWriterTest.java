@@ -0,0 +1,94 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class StripedPNGWriterTest {
+
+	private static class ClosingStream extends ByteArrayOutputStream {
+		boolean closed;
+
+		@Override
+		public void close() {
+			closed = true;
+		}
+	}
+
+	private static int[] pixels(int width, int rows, int seed) {
+		int[] rgb = new int[width * rows];
+		for (int i = 0; i < rgb.length; i++) {
+			rgb[i] = (i * 0x010203 + seed * 0x3f1f0f) & 0xffffff;
+		}
+		return rgb;
+	}
+
+	@Test
+	public void stripsDecodeToTheImage() throws IOException {
+		ClosingStream out = new ClosingStream();
+		StripedPNGWriter writer = new StripedPNGWriter(out, 7, 5);
+		int[] top = pixels(7, 3, 1);
+		int[] bottom = pixels(7, 2, 2);
+		writer.writeRows(top, 0, 7, 3);
+		writer.writeRows(bottom, 0, 7, 2);
+		writer.close();
+		assertTrue(out.closed);
+
+		BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+		for (int y = 0; y < 5; y++) {
+			for (int x = 0; x < 7; x++) {
+				int expected = y < 3 ? top[y * 7 + x] : bottom[(y - 3) * 7 + x];
+				assertEquals(expected, image.getRGB(x, y) & 0xffffff);
+			}
+		}
+	}
+
+	@Test
+	public void missingRowsFailOnClose() throws IOException {
+		ClosingStream out = new ClosingStream();
+		StripedPNGWriter writer = new StripedPNGWriter(out, 4, 4);
+		writer.writeRows(pixels(4, 3, 0), 0, 4, 3);
+		try {
+			writer.close();
+			fail("closed with a row missing");
+		} catch (IOException expected) {
+		}
+		assertTrue(out.closed);
+	}
+
+	@Test
+	public void rowsBeyondTheHeightAreRejected() throws IOException {
+		StripedPNGWriter writer = new StripedPNGWriter(new ByteArrayOutputStream(), 4, 4);
+		writer.writeRows(pixels(4, 3, 0), 0, 4, 3);
+		try {
+			writer.writeRows(pixels(4, 2, 0), 0, 4, 2);
+			fail("wrote past the last row");
+		} catch (IllegalArgumentException expected) {
+		}
+		assertEquals(3, writer.getRowsWritten());
+	}
+
+	@Test
+	public void abortClosesTheStream() throws IOException {
+		ClosingStream out = new ClosingStream();
+		StripedPNGWriter writer = new StripedPNGWriter(out, 4, 4);
+		writer.writeRows(pixels(4, 1, 0), 0, 4, 1);
+		writer.abort();
+		assertTrue(out.closed);
+		try {
+			writer.writeRows(pixels(4, 1, 0), 0, 4, 1);
+			fail("wrote after abort");
+		} catch (IOException expected) {
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubdivisionIntersectionTest {
+
+	private static final int PAIRS = 2000;
+
+	//Matched crossings further apart than this count as a disagreement
+	private static final double ROOT_TOLERANCE = 1e-6;
+
+	private final double[] roots = new double[IntersectionSolver.MAX_ROOTS];
+	private PairCache cache;
+
+	@Before
+	public void solveEveryPair() {
+		cache = BezierIntersection.getPairCache();
+		BezierIntersection.setPairCache(null);
+	}
+
+	@After
+	public void restoreCache() {
+		BezierIntersection.setPairCache(cache);
+	}
+
+	@Test
+	public void findsKnownRoots() {
+		int count = IntersectionAlgorithm.SUBDIVISION.intersections(TestCurves.AXIS, TestCurves.GRAPH, roots);
+		assertEquals(3, count);
+		for (int i = 0; i < count; i++) {
+			assertEquals(TestCurves.GRAPH_ROOTS[i], roots[i], 1e-9);
+		}
+		assertEquals(9, IntersectionAlgorithm.SUBDIVISION.intersections(TestCurves.NINE_P, TestCurves.NINE_Q, roots));
+		assertFalse(SubdivisionIntersection.wasTruncated());
+	}
+
+	/*
+	 * A cubic resting on a line touches it at t = 1/2, where every piece
+	 * along the tangency used to report a root of its own
+	 */
+	@Test
+	public void tangencyIsOneRoot() {
+		BezierCurve cup = new BezierCurve(0, 1, 1, -1, 2, -1, 3, 1);
+		BezierCurve line = new BezierCurve(0, -0.5, 1, -0.5, 2, -0.5, 3, -0.5);
+		assertEquals(1, IntersectionAlgorithm.SUBDIVISION.intersections(cup, line, roots));
+		assertEquals(0.5, roots[0], 1e-7);
+	}
+
+	@Test
+	public void overlapIsReportedAsTruncated() {
+		IntersectionAlgorithm.SUBDIVISION.intersections(TestCurves.GRAPH, TestCurves.GRAPH, roots);
+		assertTrue(SubdivisionIntersection.wasTruncated());
+	}
+
+	/*
+	 * Both engines have to report the same matched crossings on random pairs
+	 */
+	@Test
+	public void agreesWithImplicitEngine() {
+		Random random = new Random(42);
+		for (int i = 0; i < PAIRS; i++) {
+			BezierCurve p = randomCurve(random);
+			BezierCurve q = randomCurve(random);
+			double[] implicit = parameters(BezierIntersection.createIntersections(p, q, IntersectionAlgorithm.IMPLICIT));
+			double[] subdivision = parameters(BezierIntersection.createIntersections(p, q, IntersectionAlgorithm.SUBDIVISION));
+			String pair = p + " and " + q;
+			assertEquals(pair, implicit.length, subdivision.length);
+			for (int j = 0; j < implicit.length; j++) {
+				assertEquals(pair, implicit[j], subdivision[j], ROOT_TOLERANCE);
+			}
+		}
+	}
+
+	private static double[] parameters(Set<BezierIntersection> intersections) {
+		double[] t = new double[intersections.size()];
+		int i = 0;
+		for (BezierIntersection intersection : intersections) {
+			t[i++] = intersection.pIntersect.t;
+		}
+		Arrays.sort(t);
+		return t;
+	}
+
+	private static BezierCurve randomCurve(Random random) {
+		return new BezierCurve(random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0, random.nextDouble() * 1000.0);
+	}
+
+}
@@ -0,0 +1,75 @@
+package knoteditor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+ * Curves shared between the tests
+ */
+final class TestCurves {
+
+	//The x axis from 0 to 1, with t running at constant speed
+	static final BezierCurve AXIS = fromPower(0, 0, 1, 0, 0, 0, 0, 0);
+
+	//The graph of 4 (x - 0.2)(x - 0.5)(x - 0.8) over [0, 1], with x = t. It
+	//crosses AXIS at parameter 0.2, 0.5 and 0.8 on both curves.
+	static final BezierCurve GRAPH = fromPower(0, 0, 1, 0, 4, -6, 2.64, -0.32);
+	static final double[] GRAPH_ROOTS = { 0.2, 0.5, 0.8 };
+
+	//The same graph lifted clear of the axis
+	static final BezierCurve LIFTED = fromPower(0, 0, 1, 0, 4, -6, 2.64, 0.68);
+
+	//The pair from BezierCurve.main that crosses nine times
+	static final BezierCurve NINE_P = new BezierCurve(0, 1000, 333, -2000, 666, 3000, 1000, 0);
+	static final BezierCurve NINE_Q = new BezierCurve(0, 0, 3000, 333, -2000, 666, 1000, 1000);
+
+	private TestCurves() {
+	}
+
+	/*
+	 * The trefoil (sin t + 2 sin 2t, cos t - 2 cos 2t) scaled by 100, as a
+	 * closed loop of cubic Hermite pieces. It crosses itself three times.
+	 */
+	static List<BezierCurve> trefoil(int pieces) {
+		List<BezierCurve> curves = new ArrayList<BezierCurve>(pieces);
+		double h = 2 * Math.PI / pieces;
+		for (int i = 0; i < pieces; i++) {
+			double t0 = i * h, t1 = (i + 1) % pieces * h;
+			double x0 = 100 * (Math.sin(t0) + 2 * Math.sin(2 * t0)), y0 = 100 * (Math.cos(t0) - 2 * Math.cos(2 * t0));
+			double x1 = 100 * (Math.sin(t1) + 2 * Math.sin(2 * t1)), y1 = 100 * (Math.cos(t1) - 2 * Math.cos(2 * t1));
+			double dx0 = 100 * (Math.cos(t0) + 4 * Math.cos(2 * t0)), dy0 = 100 * (-Math.sin(t0) + 4 * Math.sin(2 * t0));
+			double dx1 = 100 * (Math.cos(t1) + 4 * Math.cos(2 * t1)), dy1 = 100 * (-Math.sin(t1) + 4 * Math.sin(2 * t1));
+			curves.add(new BezierCurve(x0, y0, x0 + dx0 * h / 3, y0 + dy0 * h / 3, x1 - dx1 * h / 3, y1 - dy1 * h / 3, x1, y1));
+		}
+		return curves;
+	}
+
+	/*
+	 * A random path of joined curves in a 1000 unit square, looping back over
+	 * itself often enough to cross
+	 */
+	static List<BezierCurve> randomPath(int n, Random random) {
+		List<BezierCurve> curves = new ArrayList<BezierCurve>(n);
+		double x = 500, y = 500;
+		for (int i = 0; i < n; i++) {
+			BezierCurve c = randomCurve(random, x, y);
+			curves.add(c);
+			x = c.x2;
+			y = c.y2;
+		}
+		return curves;
+	}
+
+	static BezierCurve randomCurve(Random random, double x, double y) {
+		return new BezierCurve(x, y, random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 1000, random.nextDouble() * 1000);
+	}
+
+	/*
+	 * The cubic x(t) = a3 t^3 + a2 t^2 + a1 t + a0, y(t) likewise with b
+	 */
+	static BezierCurve fromPower(double a3, double a2, double a1, double a0, double b3, double b2, double b1, double b0) {
+		return new BezierCurve(a0, b0, a0 + a1 / 3, b0 + b1 / 3, a0 + 2 * a1 / 3 + a2 / 3, b0 + 2 * b1 / 3 + b2 / 3, a0 + a1 + a2 + a3, b0 + b1 + b2 + b3);
+	}
+
+}
@@ -0,0 +1,107 @@
+package knoteditor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.CubicCurve2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.imageio.ImageIO;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TileRendererTest {
+
+	private static final int WIDTH = 150, HEIGHT = 110, TILE = 32;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+	@After
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private static List<Point> markers(List<BezierCurve> curves) {
+		List<Point> markers = new ArrayList<Point>();
+		for (BezierIntersection x : SVGKnotEditor.findIntersections(curves)) {
+			markers.add(x.pIntersect);
+		}
+		return markers;
+	}
+
+	/*
+	 * The whole scene drawn on one Graphics2D, the way the tiles draw it
+	 */
+	private static BufferedImage reference(TileRenderer renderer, List<BezierCurve> curves, List<Point> markers) {
+		BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.setColor(renderer.getBackground());
+		g.fillRect(0, 0, WIDTH, HEIGHT);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+		g.transform(renderer.getTransform());
+		g.setColor(renderer.getCurveColor());
+		g.setStroke(new BasicStroke(renderer.getCurveWidth()));
+		for (BezierCurve c : curves) {
+			g.draw(new CubicCurve2D.Double(c.x1, c.y1, c.cx1, c.cy1, c.cx2, c.cy2, c.x2, c.y2));
+		}
+		g.setColor(renderer.getMarkerColor());
+		g.setStroke(new BasicStroke(renderer.getMarkerWidth()));
+		double size = renderer.getMarkerSize();
+		for (Point p : markers) {
+			g.draw(new Line2D.Double(p.x - size, p.y, p.x + size, p.y));
+			g.draw(new Line2D.Double(p.x, p.y - size, p.x, p.y + size));
+		}
+		g.dispose();
+		return image;
+	}
+
+	private static void assertSameImage(BufferedImage expected, byte[] png) throws Exception {
+		BufferedImage actual = ImageIO.read(new ByteArrayInputStream(png));
+		assertEquals(WIDTH, actual.getWidth());
+		assertEquals(HEIGHT, actual.getHeight());
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				assertEquals("pixel " + x + ", " + y, expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+
+	/*
+	 * The trefoil scaled into the image so that it crosses tile and band
+	 * edges, and partly hangs off the right edge
+	 */
+	@Test
+	public void tilesMatchASingleRender() throws Exception {
+		List<BezierCurve> curves = TestCurves.trefoil(12);
+		List<Point> markers = markers(curves);
+		assertEquals(3, markers.size());
+		TileRenderer renderer = new TileRenderer(WIDTH, HEIGHT);
+		renderer.setTileSize(TILE);
+		AffineTransform transform = AffineTransform.getTranslateInstance(85, 55);
+		transform.scale(0.2, 0.2);
+		renderer.setTransform(transform);
+		BufferedImage expected = reference(renderer, curves, markers);
+
+		ByteArrayOutputStream serial = new ByteArrayOutputStream();
+		renderer.render(curves, markers, serial);
+		assertSameImage(expected, serial.toByteArray());
+
+		ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+		renderer.render(curves, markers, parallel, executor);
+		assertSameImage(expected, parallel.toByteArray());
+	}
+
+}